@@ -0,0 +1,78 @@
+package slimeattack07.patchgen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.google.gson.JsonParser;
+
+/** Tests for {@link CategoryData}.
+ * 
+ */
+public class CategoryDataTest {
+	
+	@Test
+	public void findsTheFirstEntryOfAnId() {
+		CategoryData cats = create("[{\"id\":\"a\",\"name\":\"A1\",\"priority\":1},"
+				+ "{\"id\":\"a\",\"name\":\"A2\",\"priority\":2}]");
+		
+		assertEquals("A1", cats.getName("a"));
+		assertTrue(cats.remove("a"));
+		assertEquals("A2", cats.getName("a"));
+		assertEquals(2, cats.getPriority("a"));
+		assertTrue(cats.remove("a"));
+		assertFalse(cats.contains("a"));
+		assertFalse(cats.remove("a"));
+	}
+	
+	@Test
+	public void listsChildrenAcrossUndefinedSegments() {
+		CategoryData cats = create("[{\"id\":\"a\",\"name\":\"A\",\"priority\":1},"
+				+ "{\"id\":\"a.b.c\",\"name\":\"C\",\"priority\":2},{\"id\":\"d\",\"name\":\"D\",\"priority\":3}]");
+		
+		assertEquals(Arrays.asList("a", "d"), cats.getChildren(""));
+		assertEquals(Arrays.asList("a.b.c"), cats.getChildren("a"));
+		assertFalse(cats.contains("a.b"));
+		assertEquals(-1, cats.getPriority("a.b"));
+		assertEquals("NOSUCHID", cats.getName("a.b"));
+	}
+	
+	@Test
+	public void unlinksRemovedPaths() {
+		CategoryData cats = create("[{\"id\":\"a.b.c\",\"name\":\"C\",\"priority\":1},"
+				+ "{\"id\":\"d\",\"name\":\"D\",\"priority\":2}]");
+		
+		assertTrue(cats.remove("a.b.c"));
+		assertEquals(Collections.singletonList("d"), cats.getChildren(""));
+		assertFalse(cats.remove("a.b.c"));
+	}
+	
+	@Test
+	public void keepsTheLayoutOfTheData() {
+		String data = "[{\"id\":\"a\",\"name\":\"A\",\"priority\":1.0},5,{\"id\":\"a\",\"name\":\"B\",\"priority\":2}]";
+		CategoryData cats = create(data);
+		
+		assertEquals(JsonParser.parseString(data), cats.getData());
+		assertEquals(1, cats.getPriority("a"));
+		
+		cats.remove("a");
+		cats.addCategory("c", "C", 3);
+		
+		assertEquals(JsonParser.parseString("[5,{\"id\":\"a\",\"name\":\"B\",\"priority\":2},"
+				+ "{\"id\":\"c\",\"name\":\"C\",\"priority\":3}]"), cats.getData());
+	}
+	
+	/** Create category data.
+	 * 
+	 * @param json The data as JSON array.
+	 * @return The category data.
+	 */
+	private static CategoryData create(String json) {
+		return new CategoryData(JsonParser.parseString(json).getAsJsonArray());
+	}
+}
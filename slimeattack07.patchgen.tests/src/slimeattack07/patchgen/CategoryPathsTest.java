@@ -0,0 +1,54 @@
+package slimeattack07.patchgen;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+/** Tests for {@link CategoryPaths}.
+ * 
+ */
+public class CategoryPathsTest {
+	
+	@Test
+	public void internsEveryPrefix() {
+		CategoryPaths paths = new CategoryPaths();
+		int index = paths.intern("a.b.c");
+		
+		assertEquals("a.b.c", paths.get(index));
+		assertEquals(2, paths.getDepth(index));
+		assertArrayEquals(new int[] {paths.intern("a"), paths.intern("a.b"), index}, paths.getPrefixes(index));
+	}
+	
+	@Test
+	public void reusesKnownCategories() {
+		CategoryPaths paths = new CategoryPaths();
+		int index = paths.intern("a.b");
+		
+		assertEquals(index, paths.intern("a.b"));
+		assertEquals(paths.getPrefixes(index)[0], paths.intern("a"));
+		assertNotEquals(index, paths.intern("a.c"));
+	}
+	
+	@Test
+	public void dropsEmptyTrailingSegments() {
+		CategoryPaths paths = new CategoryPaths();
+		
+		// Like String.split, which the categories used to be split with.
+		assertEquals(paths.intern("a"), paths.intern("a."));
+		assertEquals(paths.intern("a.b"), paths.intern("a.b.."));
+		assertEquals(0, paths.getDepth(paths.intern("a.")));
+	}
+	
+	@Test
+	public void keepsEmptySegmentsInBetween() {
+		CategoryPaths paths = new CategoryPaths();
+		int index = paths.intern("a..b");
+		
+		assertEquals(2, paths.getDepth(index));
+		assertEquals("a", paths.get(paths.getPrefixes(index)[0]));
+		assertEquals("a.", paths.get(paths.getPrefixes(index)[1]));
+		assertEquals("a..b", paths.get(paths.getPrefixes(index)[2]));
+	}
+}
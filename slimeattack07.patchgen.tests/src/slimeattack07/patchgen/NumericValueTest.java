@@ -0,0 +1,77 @@
+package slimeattack07.patchgen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+import com.google.gson.JsonPrimitive;
+
+/** Tests for {@link NumericValue}.
+ * 
+ */
+public class NumericValueTest {
+	
+	@Test
+	public void classifiesNumbersByTheirText() {
+		assertEquals(NumericValue.LONG, NumericValue.parse("42").getKind());
+		assertEquals(NumericValue.LONG, NumericValue.parse("-9223372036854775808").getKind());
+		assertEquals(NumericValue.DOUBLE, NumericValue.parse("1.5").getKind());
+		assertEquals(NumericValue.DOUBLE, NumericValue.parse("1.0").getKind());
+		assertEquals(NumericValue.DOUBLE, NumericValue.parse("0.1").getKind());
+		// Neither fits: too large for a long, and too precise for a double.
+		assertEquals(NumericValue.DECIMAL, NumericValue.parse("9223372036854775808").getKind());
+		assertEquals(NumericValue.DECIMAL, NumericValue.parse("0.10000000000000001").getKind());
+	}
+	
+	@Test
+	public void rejectsNonNumbers() {
+		assertNull(NumericValue.parse("NaN"));
+		assertNull(NumericValue.parse("abc"));
+		assertNull(NumericValue.parse(new JsonPrimitive("1")));
+	}
+	
+	@Test
+	public void comparesAcrossKinds() {
+		assertEquals(0, NumericValue.parse("1").compareTo(NumericValue.parse("1.0")));
+		assertTrue(NumericValue.parse("2").compareTo(NumericValue.parse("1.5")) > 0);
+		assertTrue(NumericValue.parse("9223372036854775807").compareTo(NumericValue.parse("9223372036854775808")) < 0);
+		assertTrue(NumericValue.parse("0.1").compareTo(NumericValue.parse("0.10000000000000001")) < 0);
+	}
+	
+	@Test
+	public void comparesPrimitivesWithoutLosingPrecision() {
+		NumericValue big = NumericValue.parse("9007199254740993");
+		NumericValue rounded = NumericValue.parse("9007199254740992.0");
+		
+		// Equal as doubles, but not as the numbers that were written.
+		assertFalse(NumericValue.equal(big.getKind(), big.getBits(), rounded.getKind(), rounded.getBits()));
+		assertTrue(NumericValue.equal(NumericValue.DOUBLE, Double.doubleToRawLongBits(0.0), NumericValue.DOUBLE,
+				Double.doubleToRawLongBits(-0.0)));
+	}
+	
+	@Test
+	public void computesDeltaAndPercentage() {
+		assertEquals(new BigDecimal("5"), NumericValue.parse("15").getDelta(NumericValue.parse("10")));
+		assertEquals(0, new BigDecimal("50").compareTo(NumericValue.parse("15").getPercentage(NumericValue.parse("10"))));
+		// Rounded to three significant digits, however small the change.
+		assertEquals(0, new BigDecimal("0.000100").compareTo(NumericValue.parse("1000001")
+				.getPercentage(NumericValue.parse("1000000"))));
+		assertNull(NumericValue.parse("15").getPercentage(NumericValue.parse("0")));
+		// Overflowing longs fall back to BigDecimals.
+		assertEquals(new BigDecimal("18446744073709551615"),
+				NumericValue.parse("9223372036854775807").getDelta(NumericValue.parse("-9223372036854775808")));
+	}
+	
+	@Test
+	public void keepsTextOfPrimitives() {
+		assertEquals("1.5", NumericValue.parse("1.5").toString());
+		assertEquals("-3", NumericValue.parse("-3").toString());
+		assertEquals("0.1", NumericValue.parse("0.1").toString());
+		assertEquals("0.10000000000000001", NumericValue.parse("0.10000000000000001").toString());
+	}
+}
@@ -0,0 +1,66 @@
+package slimeattack07.patchgen.diff;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static slimeattack07.patchgen.diff.DiffEngineTest.getIds;
+import static slimeattack07.patchgen.snapshots.TestSnapshots.source;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/** Tests for folding change sets with {@link ChangeSet#then(ChangeSet)}.
+ * 
+ */
+public class ChangeSetTest {
+	private static final String[] V1 = {"{\"id\":\"a\",\"value\":1}", "{\"id\":\"b\",\"value\":2}",
+			"{\"id\":\"c\",\"value\":3}"};
+	private static final String[] V2 = {"{\"id\":\"a\",\"value\":10}", "{\"id\":\"c\",\"value\":4}",
+			"{\"id\":\"d\",\"value\":5}"};
+	private static final String[] V3 = {"{\"id\":\"a\",\"value\":1}", "{\"id\":\"c\",\"value\":6}",
+			"{\"id\":\"e\",\"value\":7}"};
+	
+	@Test
+	public void foldsToTheDirectDiff() throws IOException {
+		ChangeSet folded = diff(V1, V2).then(diff(V2, V3));
+		ChangeSet direct = diff(V1, V3);
+		
+		assertEquals(getIds(direct.getChanges()), getIds(folded.getChanges()));
+		assertEquals(getIds(direct.getChanged()), getIds(folded.getChanged()));
+		assertEquals(getIds(direct.getAdded()), getIds(folded.getAdded()));
+		assertEquals(getIds(direct.getRemoved()), getIds(folded.getRemoved()));
+	}
+	
+	@Test
+	public void dropsChangesThatCancelOut() throws IOException {
+		ChangeSet folded = diff(V1, V2).then(diff(V2, V3));
+		
+		// a changed and changed back, d was added and removed again.
+		assertEquals(Arrays.asList("b", "c", "e"), getIds(folded.getChanges()));
+		assertTrue(diff(V1, V2).then(diff(V2, V1)).isEmpty());
+	}
+	
+	@Test
+	public void keepsOuterSides() throws IOException {
+		ChangeSet folded = diff(V1, V2).then(diff(V2, V3));
+		Change c = folded.getChanged().get(0);
+		
+		assertEquals(3, c.getOldEntry().get("value").getAsInt());
+		assertEquals(6, c.getNewEntry().get("value").getAsInt());
+		assertNull(folded.getRemoved().get(0).getNewEntry());
+		assertNull(folded.getAdded().get(0).getOldEntry());
+	}
+	
+	/** Diff two snapshots.
+	 * 
+	 * @param old_entries The entries of the old snapshot, in id order.
+	 * @param new_entries The entries of the new snapshot, in id order.
+	 * @return The changes.
+	 * @throws IOException If reading fails.
+	 */
+	private static ChangeSet diff(String[] old_entries, String[] new_entries) throws IOException {
+		return DiffEngine.diff(source(true, old_entries), source(true, new_entries), 100);
+	}
+}
@@ -0,0 +1,108 @@
+package slimeattack07.patchgen.diff;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static slimeattack07.patchgen.snapshots.TestSnapshots.entry;
+import static slimeattack07.patchgen.snapshots.TestSnapshots.source;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.JsonParser;
+
+/** Tests for {@link DiffEngine}.
+ * 
+ */
+public class DiffEngineTest {
+	
+	@Test
+	public void findsChangedAddedAndRemovedEntries() throws IOException {
+		ChangeSet changes = DiffEngine.diff(
+				source(true, "{\"id\":\"a\",\"value\":1}", "{\"id\":\"b\",\"value\":2}", "{\"id\":\"c\",\"value\":3}"),
+				source(true, "{\"id\":\"a\",\"value\":1}", "{\"id\":\"c\",\"value\":4}", "{\"id\":\"d\",\"value\":5}"), 100);
+		
+		assertEquals(Arrays.asList("b", "c", "d"), getIds(changes.getChanges()));
+		assertEquals(Arrays.asList("c"), getIds(changes.getChanged()));
+		assertEquals(Arrays.asList("d"), getIds(changes.getAdded()));
+		assertEquals(Arrays.asList("b"), getIds(changes.getRemoved()));
+		assertEquals(3, changes.getOldData().getValue("c").getAsInt());
+		assertEquals(4, changes.getNewData().getValue("c").getAsInt());
+	}
+	
+	@Test
+	public void sortsUnsortedSnapshotsFirst() throws IOException {
+		String[] old_entries = {"{\"id\":\"c\",\"value\":3}", "{\"id\":\"a\",\"value\":1}", "{\"id\":\"b\",\"value\":2}"};
+		String[] new_entries = {"{\"id\":\"b\",\"value\":2}", "{\"id\":\"c\",\"value\":4}", "{\"id\":\"a\",\"value\":1}"};
+		
+		// Once in memory, once through spill files.
+		for(int budget : new int[] {100, 1}) {
+			ChangeSet changes = DiffEngine.diff(source(false, old_entries), source(false, new_entries), budget);
+			assertEquals(Arrays.asList("c"), getIds(changes.getChanged()));
+		}
+	}
+	
+	@Test
+	public void usesFirstEntryOfRepeatedIds() throws IOException {
+		ChangeSet changes = DiffEngine.diff(source(true, "{\"id\":\"a\",\"value\":1}"),
+				source(true, "{\"id\":\"a\",\"value\":1}", "{\"id\":\"a\",\"value\":2}"), 100);
+		
+		assertTrue(changes.isEmpty());
+	}
+	
+	@Test
+	public void rejectsSnapshotsMarkedSortedThatAreNot() {
+		try {
+			DiffEngine.diff(source(true, "{\"id\":\"b\"}", "{\"id\":\"a\"}"), source(true), 100);
+			fail("Expected the unsorted snapshot to be detected");
+		} catch(IOException e) {
+			// Expected.
+		}
+	}
+	
+	@Test
+	public void skipsUnchangedCategories() throws IOException {
+		ChangeSet changes = DiffEngine.diff(source(true, "{\"id\":\"a\",\"category\":\"x\",\"value\":1}"),
+				source(true, "{\"id\":\"a\",\"category\":\"x\",\"value\":2}"), 100, Collections.singleton("x"));
+		
+		assertTrue(changes.isEmpty());
+	}
+	
+	@Test
+	public void comparesNumbersByText() {
+		assertTrue(DiffEngine.isSame(entry("{\"value\":1.50}"), entry("{\"value\":1.50}")));
+		assertFalse(DiffEngine.isSame(entry("{\"value\":1}"), entry("{\"value\":1.0}")));
+		// The same as doubles, but not the same numbers.
+		assertFalse(DiffEngine.isSame(entry("{\"value\":9007199254740993}"), entry("{\"value\":9007199254740992}")));
+		assertFalse(DiffEngine.isSame(entry("{\"value\":1}"), entry("{\"value\":\"1\"}")));
+		assertFalse(DiffEngine.isSame(entry("{\"value\":true}"), entry("{\"value\":\"true\"}")));
+	}
+	
+	@Test
+	public void comparesNestedValues() {
+		assertTrue(DiffEngine.isSame(entry("{\"a\":[1,{\"b\":null}],\"c\":2}"), entry("{\"c\":2,\"a\":[1,{\"b\":null}]}")));
+		assertFalse(DiffEngine.isSame(entry("{\"a\":[1,2]}"), entry("{\"a\":[2,1]}")));
+		assertFalse(DiffEngine.isSame(entry("{\"a\":1}"), entry("{\"a\":1,\"b\":1}")));
+		assertFalse(DiffEngine.isSame(JsonParser.parseString("null"), JsonParser.parseString("0")));
+	}
+	
+	/** Get the ids of changes.
+	 * 
+	 * @param changes The changes.
+	 * @return The ids, in the same order.
+	 */
+	static List<String> getIds(List<Change> changes) {
+		List<String> ids = new ArrayList<>();
+		
+		for(Change change : changes)
+			ids.add(change.getId());
+		
+		return ids;
+	}
+}
@@ -0,0 +1,110 @@
+package slimeattack07.patchgen.diff;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static slimeattack07.patchgen.snapshots.TestSnapshots.ids;
+import static slimeattack07.patchgen.snapshots.TestSnapshots.readAll;
+import static slimeattack07.patchgen.snapshots.TestSnapshots.source;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+
+import slimeattack07.patchgen.snapshots.SnapshotReader;
+import slimeattack07.patchgen.snapshots.SnapshotSource;
+
+/** Tests for {@link IdSorter}.
+ * 
+ */
+public class IdSorterTest {
+	private static final String[] ENTRIES = {"{\"id\":\"d\",\"value\":1}", "{\"id\":\"b\",\"value\":2}",
+			"{\"id\":\"e\",\"value\":3}", "{\"id\":\"b\",\"value\":4}", "{\"value\":5}", "{\"id\":\"a\",\"value\":6}",
+			"{\"id\":\"c\",\"value\":7}"};
+	
+	@Test
+	public void sortsInMemory() throws IOException {
+		try(SnapshotSource unsorted = source(false, ENTRIES)){
+			List<JsonObject> sorted = readAll(IdSorter.sort(unsorted, 100));
+			
+			assertEquals(Arrays.asList("a", "b", "b", "c", "d", "e"), ids(sorted));
+			// Stable, so entries sharing an id keep their order.
+			assertEquals(2, sorted.get(1).get("value").getAsInt());
+			assertEquals(4, sorted.get(2).get("value").getAsInt());
+		}
+	}
+	
+	@Test
+	public void mergesSpilledRuns() throws IOException {
+		int runs = countRuns();
+		
+		try(SnapshotSource unsorted = source(false, ENTRIES)){
+			SnapshotSource merged = IdSorter.sort(unsorted, 2);
+			assertTrue(countRuns() > runs);
+			
+			List<JsonObject> sorted = readAll(merged);
+			
+			assertEquals(Arrays.asList("a", "b", "b", "c", "d", "e"), ids(sorted));
+			assertEquals(2, sorted.get(1).get("value").getAsInt());
+			assertEquals(4, sorted.get(2).get("value").getAsInt());
+		}
+		
+		// Closing the merge deletes the spill files.
+		assertEquals(runs, countRuns());
+	}
+	
+	@Test
+	public void deletesSpilledRunsWhenClosedEarly() throws IOException {
+		int runs = countRuns();
+		
+		try(SnapshotSource unsorted = source(false, ENTRIES); SnapshotSource merged = IdSorter.sort(unsorted, 2)){
+			merged.next();
+		}
+		
+		assertEquals(runs, countRuns());
+	}
+	
+	@Test
+	public void returnsSortedSourcesAsIs() throws IOException {
+		try(SnapshotSource sorted = source(true, "{\"id\":\"a\"}", "{\"id\":\"b\"}")){
+			assertSame(sorted, IdSorter.sort(sorted, 1));
+		}
+	}
+	
+	@Test
+	public void sortsFiles() throws IOException {
+		File in = File.createTempFile("patchgen-test", ".json");
+		File out = File.createTempFile("patchgen-test", ".json");
+		
+		try {
+			Files.writeString(in.toPath(), "{\"data\":[" + String.join(",", ENTRIES) + "]}", StandardCharsets.UTF_8);
+			
+			assertEquals(6, IdSorter.sortFile(in, out, 3));
+			
+			try(SnapshotReader reader = new SnapshotReader(Files.newInputStream(out.toPath()))){
+				assertTrue(reader.isSortedById());
+				assertEquals(Arrays.asList("a", "b", "b", "c", "d", "e"), ids(readAll(reader)));
+			}
+		} finally {
+			in.delete();
+			out.delete();
+		}
+	}
+	
+	/** Count the spill files in the temporary directory.
+	 * 
+	 * @return The amount of spill files.
+	 */
+	private static int countRuns() {
+		File[] runs = new File(System.getProperty("java.io.tmpdir")).listFiles(
+				(dir, name) -> name.startsWith("patchgen-run"));
+		return runs == null ? 0 : runs.length;
+	}
+}
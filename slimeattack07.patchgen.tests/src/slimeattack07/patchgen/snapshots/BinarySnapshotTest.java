@@ -0,0 +1,121 @@
+package slimeattack07.patchgen.snapshots;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static slimeattack07.patchgen.snapshots.TestSnapshots.entry;
+import static slimeattack07.patchgen.snapshots.TestSnapshots.ids;
+import static slimeattack07.patchgen.snapshots.TestSnapshots.readAll;
+import static slimeattack07.patchgen.snapshots.TestSnapshots.source;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+
+import slimeattack07.patchgen.diff.DiffEngine;
+
+/** Tests for writing and reading {@link BinarySnapshot}s.
+ * 
+ */
+public class BinarySnapshotTest {
+	private static final String[] ENTRIES = {"{\"id\":\"c\",\"value\":\"text\",\"name\":\"C\",\"category\":\"x.y\"}",
+			"{\"id\":\"a\",\"value\":1.50,\"bulleted\":false}", "{\"id\":\"b\",\"value\":9223372036854775807}",
+			"{\"id\":\"d\",\"value\":0.1}", "{\"id\":\"e\",\"value\":123456789012345678901234567890}",
+			"{\"id\":\"f\",\"value\":true,\"is_text\":true,\"developer_comment\":false}", "{\"id\":\"g\"}",
+			"{\"id\":\"h\",\"value\":-0.0}"};
+	
+	@Test
+	public void roundTripsEveryEntryExactly() throws IOException {
+		BinarySnapshot snapshot = write(ENTRIES);
+		List<JsonObject> entries = readAll(snapshot.entries());
+		
+		assertEquals(Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h"), ids(entries));
+		assertTrue(SnapshotHash.compute(source(false, ENTRIES)).matches(
+				SnapshotHash.compute(write(ENTRIES).entries())));
+		
+		for(JsonObject entry : entries)
+			assertTrue(DiffEngine.isSame(entry, find(entry.get("id").getAsString())));
+	}
+	
+	@Test
+	public void looksUpEntriesById() throws IOException {
+		BinarySnapshot snapshot = write(ENTRIES);
+		
+		assertEquals(8, snapshot.size());
+		assertEquals(2, snapshot.find("c"));
+		assertEquals(-1, snapshot.find("bb"));
+		assertTrue(snapshot.contains("h"));
+		assertFalse(snapshot.contains("z"));
+		assertEquals("1.50", snapshot.getValue("a").getAsString());
+		assertEquals("text", snapshot.getValue("c").getAsString());
+		assertNull(snapshot.getValue("g"));
+		assertNull(snapshot.getValue("z"));
+	}
+	
+	@Test
+	public void refusesEntriesThatDontRoundTrip() {
+		BinarySnapshotWriter writer = new BinarySnapshotWriter();
+		
+		assertTrue(writer.add(entry("{\"id\":\"a\"}")));
+		assertFalse(writer.add(entry("{\"id\":\"a\",\"value\":2}")));
+		assertFalse(writer.add(entry("{\"value\":1}")));
+		assertFalse(writer.add(entry("{\"id\":1}")));
+		assertFalse(writer.add(entry("{\"id\":\"b\",\"value\":{\"x\":1}}")));
+		assertFalse(writer.add(entry("{\"id\":\"b\",\"value\":null}")));
+		assertFalse(writer.add(entry("{\"id\":\"b\",\"extra\":1}")));
+		assertFalse(writer.add(entry("{\"id\":\"b\",\"bulleted\":\"true\"}")));
+		// Refused entries don't take up their id.
+		assertTrue(writer.add(entry("{\"id\":\"b\"}")));
+	}
+	
+	@Test
+	public void rejectsOtherData() {
+		try {
+			new BinarySnapshot(ByteBuffer.wrap(new byte[16]));
+			fail("Expected the buffer to be rejected");
+		} catch(IOException e) {
+			// Expected.
+		}
+	}
+	
+	/** Find an entry of {@link #ENTRIES} by id.
+	 * 
+	 * @param id The id.
+	 * @return The entry as written.
+	 */
+	private static JsonObject find(String id) {
+		for(String json : ENTRIES) {
+			JsonObject entry = entry(json);
+			
+			if(entry.get("id").getAsString().equals(id))
+				return entry;
+		}
+		
+		throw new AssertionError(id);
+	}
+	
+	/** Write a binary snapshot and open it from memory.
+	 * 
+	 * @param entries The entries as JSON.
+	 * @return The snapshot.
+	 * @throws IOException If writing or reading fails.
+	 */
+	private static BinarySnapshot write(String... entries) throws IOException {
+		BinarySnapshotWriter writer = new BinarySnapshotWriter();
+		
+		for(String json : entries)
+			assertTrue(json, writer.add(entry(json)));
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		writer.write(bytes);
+		return new BinarySnapshot(ByteBuffer.wrap(bytes.toByteArray()));
+	}
+}
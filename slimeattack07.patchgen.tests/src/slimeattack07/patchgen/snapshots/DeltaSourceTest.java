@@ -0,0 +1,81 @@
+package slimeattack07.patchgen.snapshots;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static slimeattack07.patchgen.snapshots.TestSnapshots.ids;
+import static slimeattack07.patchgen.snapshots.TestSnapshots.readAll;
+import static slimeattack07.patchgen.snapshots.TestSnapshots.source;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+
+import slimeattack07.patchgen.diff.Change;
+import slimeattack07.patchgen.diff.DiffEngine;
+
+/** Tests for reconstructing versions from deltas with {@link DeltaSource}.
+ * 
+ */
+public class DeltaSourceTest {
+	private static final String[] BASE = {"{\"id\":\"a\",\"value\":1}", "{\"id\":\"b\",\"value\":2}",
+			"{\"id\":\"c\",\"category\":\"x\",\"value\":3}"};
+	private static final String[] TARGET = {"{\"id\":\"a\",\"value\":1}", "{\"id\":\"c\",\"category\":\"x\",\"value\":3.0}",
+			"{\"id\":\"d\",\"value\":\"new\"}"};
+	
+	@Test
+	public void appliesChangesAdditionsAndRemovals() throws IOException {
+		List<JsonObject> entries = readAll(new DeltaSource(source(true, BASE),
+				source(true, "{\"id\":\"b\",\"removed\":true}", "{\"id\":\"c\",\"value\":4}", "{\"id\":\"d\",\"value\":5}")));
+		
+		assertEquals(Arrays.asList("a", "c", "d"), ids(entries));
+		assertEquals(4, entries.get(1).get("value").getAsInt());
+		assertFalse(entries.get(1).has("category"));
+	}
+	
+	@Test
+	public void rebuildsTheStoredVersion() throws IOException {
+		SnapshotSource rebuilt = new DeltaSource(source(true, BASE), writeDelta(source(true, BASE), source(true, TARGET)));
+		
+		// 3 and 3.0 are different numbers to the patch notes, so the delta has to keep the change.
+		assertTrue(SnapshotHash.compute(rebuilt).matches(SnapshotHash.compute(source(true, TARGET))));
+	}
+	
+	@Test
+	public void rebuildsChains() throws IOException {
+		String[] next = {"{\"id\":\"c\",\"category\":\"x\",\"value\":3.0}", "{\"id\":\"e\",\"value\":false}"};
+		SnapshotSource middle = new DeltaSource(source(true, BASE), writeDelta(source(true, BASE), source(true, TARGET)));
+		SnapshotSource rebuilt = new DeltaSource(middle, writeDelta(source(true, TARGET), source(true, next)));
+		
+		assertTrue(SnapshotHash.compute(rebuilt).matches(SnapshotHash.compute(source(true, next))));
+	}
+	
+	@Test
+	public void emptyDeltaGivesTheBase() throws IOException {
+		assertEquals(Arrays.asList("a", "b", "c"), ids(readAll(new DeltaSource(source(true, BASE), source(true)))));
+	}
+	
+	/** Write a delta the way versions are stored as delta.
+	 * 
+	 * @param base The entries of the base version.
+	 * @param target The entries of the version to store.
+	 * @return The entries of the delta.
+	 * @throws IOException If reading or writing fails.
+	 */
+	private static SnapshotSource writeDelta(SnapshotSource base, SnapshotSource target) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		
+		try(SnapshotWriter writer = new SnapshotWriter(bytes, true)){
+			for(Change change : DiffEngine.diff(base, target, 100).getChanges())
+				writer.write(change.isRemoved() ? DeltaSource.removal(change.getId()) : change.getNewEntry());
+		}
+		
+		return new SnapshotReader(new ByteArrayInputStream(bytes.toByteArray()));
+	}
+}
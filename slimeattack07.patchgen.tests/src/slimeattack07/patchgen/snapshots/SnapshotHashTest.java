@@ -0,0 +1,59 @@
+package slimeattack07.patchgen.snapshots;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static slimeattack07.patchgen.snapshots.TestSnapshots.source;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.junit.Test;
+
+/** Tests for {@link SnapshotHash}.
+ * 
+ */
+public class SnapshotHashTest {
+	
+	@Test
+	public void ignoresFieldOrder() throws IOException {
+		SnapshotHash hash = SnapshotHash.compute(source(true, "{\"id\":\"a\",\"value\":1,\"name\":\"A\"}"));
+		
+		assertTrue(hash.matches(SnapshotHash.compute(source(true, "{\"name\":\"A\",\"value\":1,\"id\":\"a\"}"))));
+	}
+	
+	@Test
+	public void seesEveryChange() throws IOException {
+		SnapshotHash hash = SnapshotHash.compute(source(true, "{\"id\":\"a\",\"value\":1}"));
+		
+		assertFalse(hash.matches(SnapshotHash.compute(source(true, "{\"id\":\"a\",\"value\":1.0}"))));
+		assertFalse(hash.matches(SnapshotHash.compute(source(true, "{\"id\":\"a\",\"value\":\"1\"}"))));
+		assertFalse(hash.matches(SnapshotHash.compute(source(true, "{\"id\":\"a\",\"value\":1}", "{\"id\":\"b\"}"))));
+		assertFalse(hash.matches(SnapshotHash.compute(source(true))));
+	}
+	
+	@Test
+	public void findsUnchangedCategories() throws IOException {
+		SnapshotHash old_hash = SnapshotHash.compute(source(true, "{\"id\":\"a\",\"category\":\"x.y\",\"value\":1}",
+				"{\"id\":\"b\",\"category\":\"x.z\",\"value\":2}", "{\"id\":\"c\",\"category\":\"w\",\"value\":3}"));
+		SnapshotHash new_hash = SnapshotHash.compute(source(true, "{\"id\":\"a\",\"category\":\"x.y\",\"value\":1}",
+				"{\"id\":\"b\",\"category\":\"x.z\",\"value\":4}", "{\"id\":\"c\",\"category\":\"w\",\"value\":3}"));
+		Set<String> unchanged = old_hash.getUnchangedCategories(new_hash);
+		
+		assertTrue(unchanged.contains("x.y"));
+		assertTrue(unchanged.contains("w"));
+		// A changed sub-category changes its parents as well.
+		assertFalse(unchanged.contains("x.z"));
+		assertFalse(unchanged.contains("x"));
+	}
+	
+	@Test
+	public void survivesJsonRoundTrip() throws IOException {
+		SnapshotHash hash = SnapshotHash.compute(source(true, "{\"id\":\"a\",\"category\":\"x.y\",\"value\":1}"));
+		SnapshotHash copy = SnapshotHash.fromJson(hash.toJson());
+		
+		assertEquals(hash.getRoot(), copy.getRoot());
+		assertTrue(hash.matches(copy));
+		assertTrue(hash.getUnchangedCategories(copy).contains("x"));
+	}
+}
@@ -0,0 +1,75 @@
+package slimeattack07.patchgen.snapshots;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import slimeattack07.patchgen.PatchNoteData;
+
+/** Helpers for building snapshots in tests.
+ * 
+ */
+public class TestSnapshots {
+	
+	/** Create an entry.
+	 * 
+	 * @param json The entry as JSON. The value is parsed as it is written, so numbers keep their text.
+	 * @return The entry.
+	 */
+	public static JsonObject entry(String json) {
+		return JsonParser.parseString(json).getAsJsonObject();
+	}
+	
+	/** Read a snapshot from its entries, the same way snapshot files are read.
+	 * 
+	 * @param sorted Whether the snapshot is marked as being in id order.
+	 * @param entries The entries as JSON.
+	 * @return The entries of the snapshot.
+	 * @throws IOException If reading fails.
+	 */
+	public static SnapshotSource source(boolean sorted, String... entries) throws IOException {
+		StringBuilder sb = new StringBuilder("{");
+		
+		if(sorted)
+			sb.append(String.format("\"%s\":{\"%s\":true},", PatchNoteData.META, SnapshotWriter.SORTED));
+		
+		sb.append(String.format("\"%s\":[%s]}", PatchNoteData.DATA, String.join(",", entries)));
+		return new SnapshotReader(new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.UTF_8)));
+	}
+	
+	/** Read all entries of a source.
+	 * 
+	 * @param source The source. Will be closed.
+	 * @return The entries.
+	 * @throws IOException If reading fails.
+	 */
+	public static List<JsonObject> readAll(SnapshotSource source) throws IOException {
+		List<JsonObject> entries = new ArrayList<>();
+		
+		try(SnapshotSource s = source){
+			while(s.hasNext())
+				entries.add(s.next());
+		}
+		
+		return entries;
+	}
+	
+	/** Get the ids of entries.
+	 * 
+	 * @param entries The entries.
+	 * @return The ids, in the same order.
+	 */
+	public static List<String> ids(List<JsonObject> entries) {
+		List<String> ids = new ArrayList<>();
+		
+		for(JsonObject entry : entries)
+			ids.add(entry.get(PatchNoteData.ID).getAsString());
+		
+		return ids;
+	}
+}
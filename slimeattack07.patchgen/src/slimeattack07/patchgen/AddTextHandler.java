@@ -2,8 +2,6 @@ package slimeattack07.patchgen;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
 
 import org.eclipse.core.commands.AbstractHandler;
 import org.eclipse.core.commands.ExecutionEvent;
@@ -12,8 +10,6 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
 public class AddTextHandler extends AbstractHandler {
@@ -57,28 +53,23 @@ public class AddTextHandler extends AbstractHandler {
 	private boolean processText(String id, String category, boolean devcom, String text) {
 		IProject project = Utils.getProject();
 		IFile ifile = Utils.requestFile(project, "data", "text", "json");
-		JsonArray arr = new JsonArray();
+		PatchNoteData data = new PatchNoteData();
 		
 		if(ifile.exists()) {
-			try ( // Auto-closes resources
-					Reader reader = new InputStreamReader(ifile.getContents());) {
-				Gson gson = new Gson();
-
-				PatchNoteData data = gson.fromJson(reader, PatchNoteData.class);
+			try {
+				data = ParsedDataCache.getInstance().getPatchNoteData(ifile);
 				
 				if(data.contains(id)) {
 					boolean accepted = Utils.displayYesNo("PatchGen: Add Text", String.format(
 							"Id '%s' already exists. Would you like to overwrite it? It currently says the following: \"%s\"",
 							id, data.get(id).get(PatchNoteData.VALUE)));
 					if(accepted)
-						arr.remove(data.get(id));
+						data.remove(id);
 					else {
 						Utils.displayWarning("PatchGen: Add Text", "User canceled addition of text.");
 						return false;
 					}
 				}
-				
-				arr = data.getData();				
 			} catch (IOException | CoreException e) {
 				e.printStackTrace();
 			}
@@ -91,10 +82,8 @@ public class AddTextHandler extends AbstractHandler {
 		entry.addProperty(PatchNoteData.IS_TEXT, true);
 		entry.addProperty(PatchNoteData.VALUE, text);
 		
-		arr.add(entry);
-		JsonObject data = new JsonObject();
-		data.add(PatchNoteData.DATA, arr);
-		InputStream is = new ByteArrayInputStream(data.toString().getBytes());
+		data.add(entry);
+		InputStream is = new ByteArrayInputStream(JsonAdapters.GSON.toJson(data).getBytes());
 		
 		try {
 			if(ifile.exists())
@@ -102,6 +91,8 @@ public class AddTextHandler extends AbstractHandler {
 			else
 				ifile.create(is, false, null);
 			
+			// Adding several lines in a row only reads the file once.
+			ParsedDataCache.getInstance().put(ifile, data);
 			return true;
 		} catch (CoreException e) {
 			Utils.displayError("PatchGen: Add Text", "Failed to create/modify file.");
@@ -0,0 +1,141 @@
+package slimeattack07.patchgen;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.swt.widgets.Display;
+
+import com.google.gson.JsonObject;
+
+import slimeattack07.patchgen.scanning.ClassFileExtractor;
+import slimeattack07.patchgen.scanning.EntryExtractor;
+import slimeattack07.patchgen.scanning.Extractors;
+import slimeattack07.patchgen.scanning.ProjectScanner;
+import slimeattack07.patchgen.scanning.ScanCache;
+
+/** Handler for the 'benchmark extractors' button in the view screen. Extracts all source units of the active project
+ * with every extractor, bypassing the scan cache, and reports how long each of them took and whether they agree.
+ * 
+ */
+public class BenchmarkExtractorsHandler extends AbstractHandler {
+	/** Amount of timed runs per extractor. The fastest run is reported. */
+	public static final int RUNS = 3;
+	
+	@Override
+	public Object execute(ExecutionEvent event) throws ExecutionException {
+		IProject project = Utils.getProject();
+		
+		if(project == null) {
+			System.out.println("Failed to load active project");
+			Utils.displayError("PatchGen: Benchmark extractors", "Failed to load active project.");
+			return null;
+		}
+		
+		IJavaProject javaproject = JavaCore.create(project);
+		Display display = Display.getCurrent();
+		Job job = new Job(String.format("PatchGen: Benchmarking extractors on '%s'", project.getName())) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					String report = benchmark(javaproject, monitor);
+					System.out.println(report);
+					display.asyncExec(() -> Utils.displayInfo("PatchGen: Benchmark extractors", report));
+					return Status.OK_STATUS;
+				} catch (OperationCanceledException e) {
+					return Status.CANCEL_STATUS;
+				} catch (JavaModelException | IOException e) {
+					e.printStackTrace();
+					return new Status(IStatus.ERROR, ScanCache.PLUGIN_ID, "Failed to benchmark extractors", e);
+				}
+			}
+		};
+		
+		job.setUser(true);
+		job.schedule();
+		return null;
+	}
+	
+	/** Time every extractor on all source units of a project.
+	 * 
+	 * @param project The project.
+	 * @param monitor The monitor to report progress to.
+	 * @return The report.
+	 * @throws JavaModelException If a unit can't be read.
+	 * @throws IOException If a class file can't be read.
+	 */
+	private String benchmark(IJavaProject project, IProgressMonitor monitor) throws JavaModelException, IOException {
+		List<ICompilationUnit> units = new ArrayList<>();
+		
+		for(IPackageFragment frag : ProjectScanner.getSourceFragments(project))
+			for(ICompilationUnit unit : frag.getCompilationUnits())
+				units.add(unit);
+		
+		List<String> names = Extractors.getNames();
+		SubMonitor sub = SubMonitor.convert(monitor, "Benchmarking extractors", (names.size() + 1) * (RUNS + 1));
+		StringBuilder report = new StringBuilder(String.format("Extracted %d compilation unit(s):", units.size()));
+		List<List<JsonObject>> reference = null;
+		
+		for(String name : names) {
+			EntryExtractor extractor = Extractors.create(name);
+			sub.subTask(name);
+			// The first run warms up the parser and the Java model, and is not timed.
+			List<List<JsonObject>> result = extractor.extract(units);
+			sub.split(1);
+			long best = Long.MAX_VALUE;
+			
+			for(int i = 0; i < RUNS; i++) {
+				long start = System.nanoTime();
+				extractor.extract(units);
+				best = Math.min(best, System.nanoTime() - start);
+				sub.split(1);
+			}
+			
+			int count = 0;
+			
+			for(List<JsonObject> entries : result)
+				count += entries.size();
+			
+			report.append(System.lineSeparator()).append(String.format("%s: %d ms, %d entries", name, best / 1000000, count));
+			
+			if(reference == null)
+				reference = result;
+			else if(!reference.equals(result))
+				report.append(String.format(" (differs from %s)", names.get(0)));
+		}
+		
+		// Class files are read from the output of the last build, so only the time and amount of entries are reported.
+		List<Path> folders = ProjectScanner.getOutputFolders(project);
+		ClassFileExtractor extractor = new ClassFileExtractor();
+		sub.subTask(Extractors.BYTECODE);
+		int count = extractor.extract(folders).size();
+		sub.split(1);
+		long best = Long.MAX_VALUE;
+		
+		for(int i = 0; i < RUNS; i++) {
+			long start = System.nanoTime();
+			extractor.extract(folders);
+			best = Math.min(best, System.nanoTime() - start);
+			sub.split(1);
+		}
+		
+		report.append(System.lineSeparator()).append(String.format("%s: %d ms, %d entries", Extractors.BYTECODE, best / 1000000, count));
+		return report.toString();
+	}
+}
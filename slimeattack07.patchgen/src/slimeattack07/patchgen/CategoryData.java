@@ -1,14 +1,23 @@
 package slimeattack07.patchgen;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 /** Utility class for storing and handling data for patch note categories.
+ * The entries are kept in the order they were added so they serialize to the same layout as always, while lookups go 
+ * through a trie keyed on the dot-separated segments of the category ids.
  * 
  */
 public class CategoryData {
-	private JsonArray data;
+	// Entries are compared by identity, so duplicates and entries without id keep their place as well.
+	private final LinkedHashSet<Entry> data = new LinkedHashSet<>();
+	private final Node root = new Node("", null);
 	
 	public static final String CAT_PRIO = "priority";
 	
@@ -17,15 +26,21 @@ public class CategoryData {
 	 * @param data Initial data.
 	 */
 	public CategoryData(JsonArray data) {
-		this.data = data;
+		for(JsonElement element : data)
+			insert(element);
 	}
 	
 	/** Get the data stored in this instance.
 	 * 
-	 * @return The stored data.
+	 * @return The stored data, in the order it was added. Changing the array doesn't change this instance.
 	 */
 	public JsonArray getData() {
-		return data;
+		JsonArray array = new JsonArray(data.size());
+		
+		for(Entry entry : data)
+			array.add(entry.element);
+		
+		return array;
 	}
 	
 	/** Check if the data contains an entry with the specified id.
@@ -34,16 +49,7 @@ public class CategoryData {
 	 * @return True if id is contained in data, false otherwise.
 	 */
 	public boolean contains(String id) {
-		for(JsonElement element : data) {
-			if(element.isJsonObject()) {
-				JsonObject entry = element.getAsJsonObject();
-				
-				if(entry.has(PatchNoteData.ID) && entry.get(PatchNoteData.ID).getAsString().equals(id))
-					return true;
-			}
-		}
-		
-		return false;
+		return getEntry(id) != null;
 	}
 	
 	/** Remove an entry with the specified id.
@@ -52,17 +58,21 @@ public class CategoryData {
 	 * @return True if id was removed from data, false otherwise.
 	 */
 	public boolean remove(String id) {
-		for(JsonElement element : data) {
-			if(element.isJsonObject()) {
-				JsonObject entry = element.getAsJsonObject();
-				
-				if(entry.has(PatchNoteData.ID) && entry.get(PatchNoteData.ID).getAsString().equals(id)) {
-					return data.remove(element);
-				}
-			}
+		Node node = find(id, false);
+		
+		if(node == null || node.entries.isEmpty())
+			return false;
+		
+		// Another entry may share the id, in which case it is found from now on.
+		data.remove(node.entries.remove(0));
+		
+		// Unlink the nodes on the path that no longer lead to any entry.
+		while(node != root && node.entries.isEmpty() && node.children.isEmpty()) {
+			node.parent.children.remove(node.id.substring(node.parent == root ? 0 : node.parent.id.length() + 1));
+			node = node.parent;
 		}
 		
-		return false;
+		return true;
 	}
 	
 	/** Get the priority of an entry with the specified id.
@@ -71,16 +81,12 @@ public class CategoryData {
 	 * @return The priority if id is contained in data, -1 otherwise.
 	 */
 	public int getPriority(String id) {
-		for(JsonElement element : data) {
-			if(element.isJsonObject()) {
-				JsonObject entry = element.getAsJsonObject();
-				
-				if(entry.has(PatchNoteData.ID) && entry.get(PatchNoteData.ID).getAsString().equals(id))
-					return entry.has(CAT_PRIO) ? entry.get(CAT_PRIO).getAsInt() : 0;
-			}
-		}
+		JsonObject entry = getEntry(id);
 		
-		return -1;
+		if(entry == null)
+			return -1;
+		
+		return entry.has(CAT_PRIO) ? entry.get(CAT_PRIO).getAsInt() : 0;
 	}
 	
 	/** Get the name of an entry with the specified id.
@@ -89,16 +95,37 @@ public class CategoryData {
 	 * @return The name if id is contained in data, "NOSUCHID" otherwise.
 	 */
 	public String getName(String id) {
-		for(JsonElement element : data) {
-			if(element.isJsonObject()) {
-				JsonObject entry = element.getAsJsonObject();
-				
-				if(entry.has(PatchNoteData.ID) && entry.get(PatchNoteData.ID).getAsString().equals(id))
-					return entry.has(PatchNoteData.NAME) ? entry.get(PatchNoteData.NAME).getAsString() : "NONAMEPROVIDED";
-			}
-		}
+		JsonObject entry = getEntry(id);
 		
-		return "NOSUCHID";
+		if(entry == null)
+			return "NOSUCHID";
+		
+		return entry.has(PatchNoteData.NAME) ? entry.get(PatchNoteData.NAME).getAsString() : "NONAMEPROVIDED";
+	}
+	
+	/** Get the ids of the direct sub-categories of a category that are contained in the data.
+	 * 
+	 * @param id The id of the parent category, or the empty String for the top level categories.
+	 * @return The ids of the sub-categories, in the order they were first added.
+	 */
+	public List<String> getChildren(String id) {
+		List<String> children = new ArrayList<>();
+		Node node = id.isEmpty() ? root : find(id, false);
+		
+		if(node != null)
+			collectChildren(node, children);
+		
+		return children;
+	}
+	
+	/** Get the id of the parent category of a category.
+	 * 
+	 * @param id The id of the category.
+	 * @return The id of the parent category, or the empty String if the category is a top level category.
+	 */
+	public static String getParent(String id) {
+		int dot = id.lastIndexOf('.');
+		return dot < 0 ? "" : id.substring(0, dot);
 	}
 	
 	/** Add a new category to the stored data.
@@ -113,7 +140,116 @@ public class CategoryData {
 			jo.addProperty(PatchNoteData.ID, id);
 			jo.addProperty(PatchNoteData.NAME, name);
 			jo.addProperty(CAT_PRIO, priority);
-			data.add(jo);
+			insert(jo);
+		}
+	}
+	
+	/** Get the entry with the specified id.
+	 * 
+	 * @param id The id of the entry.
+	 * @return The entry, or null if no such entry exists.
+	 */
+	@Nullable
+	private JsonObject getEntry(String id) {
+		Node node = find(id, false);
+		return node == null || node.entries.isEmpty() ? null : node.entries.get(0).element.getAsJsonObject();
+	}
+	
+	/** Find the node for a category id, walking one segment at a time.
+	 * 
+	 * @param id The id of the category.
+	 * @param create Whether missing nodes should be created along the way.
+	 * @return The node, or null if it doesn't exist and create is false.
+	 */
+	@Nullable
+	private Node find(String id, boolean create) {
+		Node node = root;
+		int start = 0;
+		
+		while(node != null) {
+			int dot = id.indexOf('.', start);
+			int end = dot < 0 ? id.length() : dot;
+			String segment = id.substring(start, end);
+			Node child = node.children.get(segment);
+			
+			if(child == null && create) {
+				child = new Node(node == root ? segment : node.id + "." + segment, node);
+				node.children.put(segment, child);
+			}
+			
+			node = child;
+			
+			if(dot < 0)
+				break;
+			
+			start = dot + 1;
+		}
+		
+		return node;
+	}
+	
+	/** Add an element to the data and insert it into the trie. If the id is already present, the earlier entry keeps 
+	 * being found until it is removed, matching the behavior of a linear scan from the start of the data. Elements 
+	 * that aren't entries with an id are only kept in the data.
+	 * 
+	 * @param element The element to add.
+	 */
+	private void insert(JsonElement element) {
+		Entry entry = new Entry(element);
+		data.add(entry);
+		
+		if(element.isJsonObject() && element.getAsJsonObject().has(PatchNoteData.ID))
+			find(element.getAsJsonObject().get(PatchNoteData.ID).getAsString(), true).entries.add(entry);
+	}
+	
+	/** Collect the ids of the closest descendants of a node that hold an entry.
+	 * 
+	 * @param node The node to start from.
+	 * @param children The list to add the ids to.
+	 */
+	private void collectChildren(Node node, List<String> children) {
+		for(Node child : node.children.values()) {
+			if(!child.entries.isEmpty())
+				children.add(child.id);
+			else
+				collectChildren(child, children); // Skip over segments that were never defined as a category.
+		}
+	}
+	
+	/** Element of the category data. Not a record, entries must be compared by identity.
+	 * 
+	 */
+	private static class Entry {
+		private final JsonElement element;
+		
+		/** Constructor.
+		 * 
+		 * @param element The element as it is stored in the data.
+		 */
+		public Entry(JsonElement element) {
+			this.element = element;
+		}
+	}
+	
+	/** Node in the category trie. A node exists for every segment prefix of a known id, but only holds entries if
+	 * that prefix itself is a category. Entries sharing an id are kept in the order they were added, the first one is 
+	 * the one that is found.
+	 * 
+	 */
+	private static class Node {
+		private final String id;
+		private final Node parent; // Null for the root.
+		private final LinkedHashMap<String, Node> children = new LinkedHashMap<>();
+		private final List<Entry> entries = new ArrayList<>(1);
+		
+		/** Constructor.
+		 * 
+		 * @param id The full category id this node represents.
+		 * @param parent The parent node, or null for the root.
+		 */
+		public Node(String id, Node parent) {
+			this.id = id;
+			this.parent = parent;
 		}
 	}
 }
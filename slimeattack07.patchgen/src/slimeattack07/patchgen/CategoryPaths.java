@@ -0,0 +1,82 @@
+package slimeattack07.patchgen;
+
+import java.util.Arrays;
+
+/** Interned category ids for a single generation run. Every distinct category id, and every prefix of one, gets a small
+ * index. The prefixes and the depth of a category are worked out once when it is first added, instead of splitting
+ * the id again for every entry that uses it.
+ * 
+ */
+class CategoryPaths {
+	private final StringPool ids = new StringPool();
+	// The indices of all prefixes of every category, from the top level category down to the category itself.
+	private int[][] prefixes = new int[16][];
+	
+	/** Get the index of a category, adding it and its prefixes if they aren't known yet.
+	 * 
+	 * @param id The id of the category. Empty trailing segments are dropped like String.split does, so "a." is the same
+	 * category as "a".
+	 * @return The index.
+	 */
+	public int intern(String id) {
+		int end = id.length();
+		
+		while(end > 0 && id.charAt(end - 1) == '.')
+			end--;
+		
+		return internPath(end < id.length() ? id.substring(0, end) : id);
+	}
+	
+	/** Get the index of a category, adding it and its prefixes if they aren't known yet. Every segment counts, even if
+	 * it is empty.
+	 * 
+	 * @param id The id of the category.
+	 * @return The index.
+	 */
+	private int internPath(String id) {
+		int index = ids.find(id);
+		
+		if(index >= 0)
+			return index;
+		
+		int dot = id.lastIndexOf('.');
+		int parent_index = dot < 0 ? -1 : internPath(id.substring(0, dot));
+		int[] parent = parent_index < 0 ? new int[0] : prefixes[parent_index];
+		index = ids.intern(id);
+		
+		if(index == prefixes.length)
+			prefixes = Arrays.copyOf(prefixes, index * 2);
+		
+		prefixes[index] = Arrays.copyOf(parent, parent.length + 1);
+		prefixes[index][parent.length] = index;
+		return index;
+	}
+	
+	/** Get the id of a category.
+	 * 
+	 * @param index The index of the category.
+	 * @return The id.
+	 */
+	public String get(int index) {
+		return ids.get(index);
+	}
+	
+	/** Get the depth of a category.
+	 * 
+	 * @param index The index of the category.
+	 * @return The depth, 0 for top level categories.
+	 */
+	public int getDepth(int index) {
+		return prefixes[index].length - 1;
+	}
+	
+	/** Get the prefixes of a category.
+	 * 
+	 * @param index The index of the category.
+	 * @return The indices of the prefixes, from the top level category down to the category itself. Must not be
+	 * changed.
+	 */
+	public int[] getPrefixes(int index) {
+		return prefixes[index];
+	}
+}
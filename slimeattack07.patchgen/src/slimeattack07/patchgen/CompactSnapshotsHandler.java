@@ -0,0 +1,47 @@
+package slimeattack07.patchgen;
+
+import java.io.IOException;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+
+import slimeattack07.patchgen.snapshots.SnapshotStore;
+
+/** Handler for the 'compact snapshots' button in the view screen. Rebases the versions of the active project so that
+ * every keyframe interval-th version is stored in full and the versions in between are stored as delta against their
+ * predecessor.
+ * 
+ */
+public class CompactSnapshotsHandler extends AbstractHandler {
+	
+	@Override
+	public Object execute(ExecutionEvent event) throws ExecutionException {
+		IProject project = Utils.getProject();
+		
+		if(project == null) {
+			System.out.println("Failed to load active project");
+			Utils.displayError("PatchGen: Compact snapshots", "Failed to load active project.");
+			return null;
+		}
+		
+		if(!Utils.displayYesNo("PatchGen: Compact snapshots", String.format("Store every %d. version in full and all other "
+				+ "versions as delta? Versions stored as delta can't be converted to binary snapshots.", Settings.getKeyframeInterval())))
+			return null;
+		
+		int deltas;
+		
+		try {
+			deltas = SnapshotStore.compact(project);
+		} catch (CoreException | IOException e) {
+			e.printStackTrace();
+			Utils.displayError("PatchGen: Compact snapshots", "Failed to compact snapshots.");
+			return null;
+		}
+		
+		Utils.displayInfo("PatchGen: Compact snapshots", String.format("Stored %d version(s) as delta.", deltas));
+		return null;
+	}
+}
@@ -0,0 +1,68 @@
+package slimeattack07.patchgen;
+
+import java.io.IOException;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+
+import slimeattack07.patchgen.snapshots.SnapshotStore;
+import slimeattack07.patchgen.snapshots.VersionHistory;
+
+/** Handler for the 'convert snapshots' button in the view screen. Converts all JSON version snapshots of the active
+ * project to binary snapshots. Once converted, comparisons use the binary snapshots and new versions are stored in 
+ * binary as well.
+ * 
+ */
+public class ConvertSnapshotsHandler extends AbstractHandler {
+	
+	@Override
+	public Object execute(ExecutionEvent event) throws ExecutionException {
+		IProject project = Utils.getProject();
+		
+		if(project == null) {
+			System.out.println("Failed to load active project");
+			Utils.displayError("PatchGen: Convert snapshots", "Failed to load active project.");
+			return null;
+		}
+		
+		IFolder folder_data = project.getFolder(new Path("src/patchgen/data"));
+		
+		if(!folder_data.exists()) {
+			Utils.displayWarning("PatchGen: Convert snapshots", "There are no versions to convert yet.");
+			return null;
+		}
+		
+		int converted = 0;
+		
+		try {
+			for(IResource member : folder_data.members()) {
+				String name = member.getName();
+				
+				// Skip anything that isn't a version snapshot.
+				if(member.getType() != IResource.FILE || !"json".equals(member.getFileExtension()) 
+						|| name.equals("text.json") || name.equals("categories.json") 
+					|| name.equals(VersionHistory.FILE_NAME + ".json") || name.equals(SnapshotStore.CURRENT + ".json"))
+					continue;
+				
+				String version = name.substring(0, name.length() - ".json".length());
+				System.out.println(String.format("Converting version '%s'", version));
+				
+				if(SnapshotStore.convert(project, version) != null)
+					converted++;
+			}
+		} catch (CoreException | IOException e) {
+			e.printStackTrace();
+			Utils.displayError("PatchGen: Convert snapshots", "Failed to convert snapshots.");
+			return null;
+		}
+		
+		Utils.displayInfo("PatchGen: Convert snapshots", String.format("Converted %d version(s) to binary snapshots.", converted));
+		return null;
+	}
+}
@@ -0,0 +1,82 @@
+package slimeattack07.patchgen;
+
+import java.util.function.Supplier;
+
+import org.eclipse.swt.widgets.Display;
+
+/** Prompter that shows dialogs in the workbench. Dialogs are always opened on the UI thread, so it can be used from 
+ * jobs as well.
+ * 
+ */
+public class DialogPrompter implements Prompter {
+	public static final DialogPrompter INSTANCE = new DialogPrompter();
+	
+	/** Constructor. */
+	private DialogPrompter() {}
+	
+	@Override
+	public void displayError(String title, String message) {
+		onUIThread(() -> Utils.displayError(title, message));
+	}
+	
+	@Override
+	public void displayWarning(String title, String message) {
+		onUIThread(() -> Utils.displayWarning(title, message));
+	}
+	
+	@Override
+	public void displayInfo(String title, String message) {
+		onUIThread(() -> Utils.displayInfo(title, message));
+	}
+	
+	@Override
+	public boolean displayYesNo(String title, String message) {
+		return onUIThread(() -> Utils.displayYesNo(title, message));
+	}
+	
+	@Override
+	public int displayPositiveIntInput(String title, String message) {
+		return onUIThread(() -> Utils.displayPositiveIntInput(title, message));
+	}
+	
+	@Override
+	public String displayNotBlankInput(String title, String message, String... banned) {
+		return onUIThread(() -> Utils.displayNotBlankInput(title, message, banned));
+	}
+	
+	@Override
+	public String displayOutputVersionInput(String title, String message) {
+		return onUIThread(() -> Utils.displayOutputVersionInput(title, message));
+	}
+	
+	/** Run something on the UI thread and wait for it to finish.
+	 * 
+	 * @param runnable The thing to run.
+	 */
+	private static void onUIThread(Runnable runnable) {
+		onUIThread(() -> {
+			runnable.run();
+			return null;
+		});
+	}
+	
+	/** Run something on the UI thread and wait for its result.
+	 * 
+	 * @param <T> The type of result.
+	 * @param supplier The thing to run.
+	 * @return The result.
+	 */
+	private static <T> T onUIThread(Supplier<T> supplier) {
+		Display display = Display.getDefault();
+		
+		if(Display.getCurrent() == display)
+			return supplier.get();
+		
+		Object[] result = new Object[1];
+		display.syncExec(() -> result[0] = supplier.get());
+		
+		@SuppressWarnings("unchecked")
+		T t = (T) result[0];
+		return t;
+	}
+}
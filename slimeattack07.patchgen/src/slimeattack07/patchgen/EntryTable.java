@@ -0,0 +1,633 @@
+package slimeattack07.patchgen;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+
+/** Column store for patch note entries. Every entry is a row, and every field is a column: ids, names and categories
+ * are indices into a {@link StringPool}, the type of the value is a tag, and the value itself sits in a single
+ * primitive column that holds a long, the bits of a double, a boolean or the index of a String depending on the tag.
+ * The flags of an entry share a single byte. Fields nobody knows about, or known fields holding something unexpected,
+ * are kept as JSON next to the row so nothing is lost when the entry is written again. Entries are only turned into
+ * JSON at the edges, by {@link #add(JsonObject)} and {@link #getEntry(int)}. Data files are read straight into the
+ * columns by {@link #add(JsonReader)}.
+ * 
+ */
+class EntryTable {
+	public static final byte NONE = 0;
+	public static final byte BOOLEAN = 1;
+	public static final byte LONG = 2;
+	public static final byte DOUBLE = 3;
+	public static final byte STRING = 4;
+	public static final byte OTHER = 5;
+	
+	private static final int HAS_BULLETED = 1;
+	private static final int BULLETED = 1 << 1;
+	private static final int HAS_IS_TEXT = 1 << 2;
+	private static final int IS_TEXT = 1 << 3;
+	private static final int HAS_DEVCOM = 1 << 4;
+	private static final int DEVCOM = 1 << 5;
+	
+	private final StringPool pool;
+	private int size = 0;
+	private int[] ids;
+	private int[] names;
+	private int[] categories;
+	private byte[] types;
+	private byte[] flags;
+	private long[] values;
+	private JsonObject[] extras;
+	// First row of every id, indexed by the pool index of the id. -1 if no row has the String as id.
+	private int[] first_rows;
+	
+	/** Constructor.
+	 * 
+	 */
+	public EntryTable() {
+		pool = new StringPool();
+		allocate(16);
+		first_rows = new int[16];
+		Arrays.fill(first_rows, -1);
+	}
+	
+	/** Constructor. Copies another table, the copy can be changed without affecting the original.
+	 * 
+	 * @param other The table to copy.
+	 */
+	public EntryTable(EntryTable other) {
+		pool = new StringPool(other.pool);
+		size = other.size;
+		ids = Arrays.copyOf(other.ids, Math.max(size, 16));
+		names = Arrays.copyOf(other.names, ids.length);
+		categories = Arrays.copyOf(other.categories, ids.length);
+		types = Arrays.copyOf(other.types, ids.length);
+		flags = Arrays.copyOf(other.flags, ids.length);
+		values = Arrays.copyOf(other.values, ids.length);
+		extras = new JsonObject[ids.length];
+		first_rows = Arrays.copyOf(other.first_rows, other.first_rows.length);
+		
+		for(int i = 0; i < size; i++)
+			extras[i] = other.extras[i] == null ? null : other.extras[i].deepCopy();
+	}
+	
+	/** Get the amount of entries.
+	 * 
+	 * @return The amount of entries.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/** Add an entry.
+	 * 
+	 * @param entry The entry. Not kept, later changes to it are not reflected.
+	 */
+	public void add(JsonObject entry) {
+		int row = newRow();
+		
+		for(Map.Entry<String, JsonElement> field : entry.entrySet())
+			setField(row, field.getKey(), field.getValue().deepCopy());
+		
+		indexRow(row);
+	}
+	
+	/** Add an entry straight from JSON, without building a JsonObject for it first. Every field is read on its own and
+	 * goes into the columns right away. Numbers are read as JSON, so they keep the text they were written with.
+	 * 
+	 * @param in The reader, positioned at the entry.
+	 * @throws IOException If reading fails.
+	 */
+	public void add(JsonReader in) throws IOException {
+		int row = newRow();
+		in.beginObject();
+		
+		while(in.hasNext()) {
+			String key = in.nextName();
+			
+			switch(in.peek()) {
+			case STRING: setField(row, key, new JsonPrimitive(in.nextString())); break;
+			case BOOLEAN: setField(row, key, new JsonPrimitive(in.nextBoolean())); break;
+			default: setField(row, key, JsonAdapters.ELEMENT.read(in));
+			}
+		}
+		
+		in.endObject();
+		indexRow(row);
+	}
+	
+	/** Set a field of a row. Known fields holding what they are supposed to go into the columns, anything else is kept
+	 * as JSON.
+	 * 
+	 * @param row The row.
+	 * @param key The name of the field.
+	 * @param element The value of the field. Kept as is if it ends up as JSON, so it must not be shared.
+	 */
+	private void setField(int row, String key, JsonElement element) {
+		boolean primitive = element.isJsonPrimitive();
+		
+		switch(key) {
+		case PatchNoteData.ID:
+			if(primitive) {
+				ids[row] = intern(element.getAsString());
+				return;
+			}
+			
+			break;
+		case PatchNoteData.NAME:
+			if(primitive) {
+				names[row] = intern(element.getAsString());
+				return;
+			}
+			
+			break;
+		case PatchNoteData.CATEGORY:
+			if(primitive) {
+				categories[row] = intern(element.getAsString());
+				return;
+			}
+			
+			break;
+		case PatchNoteData.VALUE:
+			if(primitive && setValue(row, element.getAsJsonPrimitive()))
+				return;
+			
+			types[row] = OTHER;
+			break;
+		case PatchNoteData.BULLETED:
+			if(primitive) {
+				setFlag(row, HAS_BULLETED, BULLETED, element.getAsBoolean());
+				return;
+			}
+			
+			break;
+		case PatchNoteData.IS_TEXT:
+			if(primitive) {
+				setFlag(row, HAS_IS_TEXT, IS_TEXT, element.getAsBoolean());
+				return;
+			}
+			
+			break;
+		case PatchNoteData.DEVELOPER_COMMENT:
+			if(primitive) {
+				setFlag(row, HAS_DEVCOM, DEVCOM, element.getAsBoolean());
+				return;
+			}
+			
+			break;
+		}
+		
+		if(extras[row] == null)
+			extras[row] = new JsonObject();
+		
+		extras[row].add(key, element);
+	}
+	
+	/** Make a row that was just added findable by its id.
+	 * 
+	 * @param row The row.
+	 */
+	private void indexRow(int row) {
+		if(ids[row] >= 0 && first_rows[ids[row]] < 0)
+			first_rows[ids[row]] = row;
+	}
+	
+	/** Add all entries of another table.
+	 * 
+	 * @param other The table to add the entries of.
+	 */
+	public void addAll(EntryTable other) {
+		for(int i = 0; i < other.size; i++) {
+			int row = newRow();
+			ids[row] = other.ids[i] < 0 ? -1 : intern(other.pool.get(other.ids[i]));
+			names[row] = other.names[i] < 0 ? -1 : intern(other.pool.get(other.names[i]));
+			categories[row] = other.categories[i] < 0 ? -1 : intern(other.pool.get(other.categories[i]));
+			types[row] = other.types[i];
+			flags[row] = other.flags[i];
+			values[row] = other.types[i] == STRING ? intern(other.pool.get((int) other.values[i])) : other.values[i];
+			extras[row] = other.extras[i] == null ? null : other.extras[i].deepCopy();
+			indexRow(row);
+		}
+	}
+	
+	/** Turn a row back into JSON.
+	 * 
+	 * @param row The row.
+	 * @return The entry. Changes to it are not reflected in the table.
+	 */
+	public JsonObject getEntry(int row) {
+		JsonObject entry = new JsonObject();
+		
+		if(ids[row] >= 0)
+			entry.addProperty(PatchNoteData.ID, pool.get(ids[row]));
+		
+		JsonElement value = getValue(row);
+		
+		if(value != null)
+			entry.add(PatchNoteData.VALUE, value);
+		
+		if(names[row] >= 0)
+			entry.addProperty(PatchNoteData.NAME, pool.get(names[row]));
+		
+		if(categories[row] >= 0)
+			entry.addProperty(PatchNoteData.CATEGORY, pool.get(categories[row]));
+		
+		if((flags[row] & HAS_BULLETED) != 0)
+			entry.addProperty(PatchNoteData.BULLETED, (flags[row] & BULLETED) != 0);
+		
+		if((flags[row] & HAS_IS_TEXT) != 0)
+			entry.addProperty(PatchNoteData.IS_TEXT, (flags[row] & IS_TEXT) != 0);
+		
+		if((flags[row] & HAS_DEVCOM) != 0)
+			entry.addProperty(PatchNoteData.DEVELOPER_COMMENT, (flags[row] & DEVCOM) != 0);
+		
+		if(extras[row] != null)
+			for(Map.Entry<String, JsonElement> field : extras[row].entrySet())
+				if(!entry.has(field.getKey()))
+					entry.add(field.getKey(), field.getValue().deepCopy());
+		
+		return entry;
+	}
+	
+	/** Get the first row with an id.
+	 * 
+	 * @param id The id.
+	 * @return The row, or -1 if no row has the id.
+	 */
+	public int find(String id) {
+		int index = pool.find(id);
+		return index < 0 ? -1 : first_rows[index];
+	}
+	
+	/** Get the id of a row.
+	 * 
+	 * @param row The row.
+	 * @return The id, or null if the entry has none.
+	 */
+	@Nullable
+	public String getId(int row) {
+		return ids[row] < 0 ? null : pool.get(ids[row]);
+	}
+	
+	/** Get the name of a row.
+	 * 
+	 * @param row The row.
+	 * @return The name, or null if the entry has none.
+	 */
+	@Nullable
+	public String getName(int row) {
+		return names[row] < 0 ? null : pool.get(names[row]);
+	}
+	
+	/** Get the category id of a row.
+	 * 
+	 * @param row The row.
+	 * @return The category id, or null if the entry has none.
+	 */
+	@Nullable
+	public String getCategory(int row) {
+		return categories[row] < 0 ? null : pool.get(categories[row]);
+	}
+	
+	/** Get the distinct categories of all rows.
+	 * 
+	 * @return The category ids, in the order they first appear. Rows without category are left out.
+	 */
+	public List<String> getCategories() {
+		List<String> result = new ArrayList<>();
+		boolean[] seen = new boolean[pool.size()];
+		
+		for(int i = 0; i < size; i++) {
+			int category = categories[i];
+			
+			if(category >= 0 && !seen[category]) {
+				seen[category] = true;
+				result.add(pool.get(category));
+			}
+		}
+		
+		return result;
+	}
+	
+	/** Get the type of the value of a row.
+	 * 
+	 * @param row The row.
+	 * @return The type, one of {@link #NONE}, {@link #BOOLEAN}, {@link #LONG}, {@link #DOUBLE}, {@link #STRING} or
+	 * {@link #OTHER}.
+	 */
+	public byte getType(int row) {
+		return types[row];
+	}
+	
+	/** Get the raw value column of a row. Holds the long or the bits of the double for rows of type {@link #LONG} or
+	 * {@link #DOUBLE}.
+	 * 
+	 * @param row The row.
+	 * @return The raw value.
+	 */
+	public long getBits(int row) {
+		return values[row];
+	}
+	
+	/** Get the value of a row of type {@link #LONG}.
+	 * 
+	 * @param row The row.
+	 * @return The value.
+	 */
+	public long getLong(int row) {
+		return values[row];
+	}
+	
+	/** Get the value of a row of type {@link #DOUBLE}.
+	 * 
+	 * @param row The row.
+	 * @return The value.
+	 */
+	public double getDouble(int row) {
+		return Double.longBitsToDouble(values[row]);
+	}
+	
+	/** Get the value of a row of type {@link #BOOLEAN}.
+	 * 
+	 * @param row The row.
+	 * @return The value.
+	 */
+	public boolean getBoolean(int row) {
+		return values[row] != 0;
+	}
+	
+	/** Get the value of a row of type {@link #STRING}.
+	 * 
+	 * @param row The row.
+	 * @return The value.
+	 */
+	public String getString(int row) {
+		return pool.get((int) values[row]);
+	}
+	
+	/** Get the value of a row as JSON.
+	 * 
+	 * @param row The row.
+	 * @return The value, or null if the entry has none.
+	 */
+	@Nullable
+	public JsonElement getValue(int row) {
+		switch(types[row]) {
+		case BOOLEAN: return new JsonPrimitive(getBoolean(row));
+		case LONG: return new JsonPrimitive(getLong(row));
+		case DOUBLE: return new JsonPrimitive(getDouble(row));
+		case STRING: return new JsonPrimitive(getString(row));
+		case OTHER: return extras[row].get(PatchNoteData.VALUE).deepCopy();
+		default: return null;
+		}
+	}
+	
+	/** Check if a row should be bulleted.
+	 * 
+	 * @param row The row.
+	 * @return The bulleted flag of the entry, true if it has none.
+	 */
+	public boolean isBulleted(int row) {
+		return (flags[row] & HAS_BULLETED) == 0 || (flags[row] & BULLETED) != 0;
+	}
+	
+	/** Check if a row is text written by developers.
+	 * 
+	 * @param row The row.
+	 * @return The is_text flag of the entry, false if it has none.
+	 */
+	public boolean isText(int row) {
+		return (flags[row] & IS_TEXT) != 0;
+	}
+	
+	/** Check if a row is a developer comment.
+	 * 
+	 * @param row The row.
+	 * @return The developer_comment flag of the entry, false if it has none.
+	 */
+	public boolean isDeveloperComment(int row) {
+		return (flags[row] & DEVCOM) != 0;
+	}
+	
+	/** Remove a row. The rows after it move up by one.
+	 * 
+	 * @param row The row.
+	 */
+	public void remove(int row) {
+		int id = ids[row];
+		int moved = size - row - 1;
+		System.arraycopy(ids, row + 1, ids, row, moved);
+		System.arraycopy(names, row + 1, names, row, moved);
+		System.arraycopy(categories, row + 1, categories, row, moved);
+		System.arraycopy(types, row + 1, types, row, moved);
+		System.arraycopy(flags, row + 1, flags, row, moved);
+		System.arraycopy(values, row + 1, values, row, moved);
+		System.arraycopy(extras, row + 1, extras, row, moved);
+		extras[--size] = null;
+		
+		for(int i = 0; i < first_rows.length; i++)
+			if(first_rows[i] > row)
+				first_rows[i]--;
+		
+		// Another row may share the id, in which case it should now be found instead.
+		if(id >= 0) {
+			first_rows[id] = -1;
+			
+			for(int i = 0; i < size; i++) {
+				if(ids[i] == id) {
+					first_rows[id] = i;
+					break;
+				}
+			}
+		}
+	}
+	
+	/** Reorder the rows. The row found for an id stays the same entry, even if the order of entries sharing the id
+	 * changes.
+	 * 
+	 * @param order The old row of every new row.
+	 */
+	public void reorder(int[] order) {
+		int[] new_rows = new int[size];
+		
+		for(int i = 0; i < size; i++)
+			new_rows[order[i]] = i;
+		
+		ids = permute(ids, order);
+		names = permute(names, order);
+		categories = permute(categories, order);
+		types = permute(types, order);
+		flags = permute(flags, order);
+		values = permute(values, order);
+		extras = permute(extras, order);
+		
+		for(int i = 0; i < first_rows.length; i++)
+			if(first_rows[i] >= 0)
+				first_rows[i] = new_rows[first_rows[i]];
+	}
+	
+	/** Store the value of a row if it fits one of the primitive columns.
+	 * 
+	 * @param row The row.
+	 * @param value The value.
+	 * @return True if the value was stored, false if it has to be kept as JSON.
+	 */
+	private boolean setValue(int row, JsonPrimitive value) {
+		if(value.isBoolean()) {
+			types[row] = BOOLEAN;
+			values[row] = value.getAsBoolean() ? 1 : 0;
+			return true;
+		}
+		
+		if(value.isString()) {
+			types[row] = STRING;
+			values[row] = intern(value.getAsString());
+			return true;
+		}
+		
+		// Numbers are only stored if that doesn't change them or how they are written, so 1.50 or 1e2 stay as they were
+		// written.
+		NumericValue number = NumericValue.parse(value);
+		
+		if(number == null || !NumericValue.isPrimitive(number.getKind()) || !number.toString().equals(value.getAsString()))
+			return false;
+		
+		types[row] = number.getKind();
+		values[row] = number.getBits();
+		return true;
+	}
+	
+	/** Set a flag of a row.
+	 * 
+	 * @param row The row.
+	 * @param has The bit marking that the entry has the flag.
+	 * @param bit The bit holding the flag.
+	 * @param value The value of the flag.
+	 */
+	private void setFlag(int row, int has, int bit, boolean value) {
+		flags[row] = (byte) (value ? flags[row] | has | bit : (flags[row] | has) & ~bit);
+	}
+	
+	/** Intern a String, making room for it in the id index.
+	 * 
+	 * @param s The String.
+	 * @return The index of the String.
+	 */
+	private int intern(String s) {
+		int index = pool.intern(s);
+		
+		if(index >= first_rows.length) {
+			int old = first_rows.length;
+			first_rows = Arrays.copyOf(first_rows, Math.max(old * 2, index + 1));
+			Arrays.fill(first_rows, old, first_rows.length, -1);
+		}
+		
+		return index;
+	}
+	
+	/** Add an empty row.
+	 * 
+	 * @return The row.
+	 */
+	private int newRow() {
+		if(size == ids.length) {
+			int capacity = size * 2;
+			ids = Arrays.copyOf(ids, capacity);
+			names = Arrays.copyOf(names, capacity);
+			categories = Arrays.copyOf(categories, capacity);
+			types = Arrays.copyOf(types, capacity);
+			flags = Arrays.copyOf(flags, capacity);
+			values = Arrays.copyOf(values, capacity);
+			extras = Arrays.copyOf(extras, capacity);
+		}
+		
+		ids[size] = -1;
+		names[size] = -1;
+		categories[size] = -1;
+		types[size] = NONE;
+		flags[size] = 0;
+		values[size] = 0;
+		extras[size] = null;
+		return size++;
+	}
+	
+	/** Allocate all columns.
+	 * 
+	 * @param capacity The amount of rows to make room for.
+	 */
+	private void allocate(int capacity) {
+		ids = new int[capacity];
+		names = new int[capacity];
+		categories = new int[capacity];
+		types = new byte[capacity];
+		flags = new byte[capacity];
+		values = new long[capacity];
+		extras = new JsonObject[capacity];
+	}
+	
+	/** Reorder a column.
+	 * 
+	 * @param column The column.
+	 * @param order The old row of every new row.
+	 * @return The reordered column.
+	 */
+	private int[] permute(int[] column, int[] order) {
+		int[] result = new int[column.length];
+		
+		for(int i = 0; i < size; i++)
+			result[i] = column[order[i]];
+		
+		return result;
+	}
+	
+	/** Reorder a column.
+	 * 
+	 * @param column The column.
+	 * @param order The old row of every new row.
+	 * @return The reordered column.
+	 */
+	private byte[] permute(byte[] column, int[] order) {
+		byte[] result = new byte[column.length];
+		
+		for(int i = 0; i < size; i++)
+			result[i] = column[order[i]];
+		
+		return result;
+	}
+	
+	/** Reorder a column.
+	 * 
+	 * @param column The column.
+	 * @param order The old row of every new row.
+	 * @return The reordered column.
+	 */
+	private long[] permute(long[] column, int[] order) {
+		long[] result = new long[column.length];
+		
+		for(int i = 0; i < size; i++)
+			result[i] = column[order[i]];
+		
+		return result;
+	}
+	
+	/** Reorder a column.
+	 * 
+	 * @param column The column.
+	 * @param order The old row of every new row.
+	 * @return The reordered column.
+	 */
+	private JsonObject[] permute(JsonObject[] column, int[] order) {
+		JsonObject[] result = new JsonObject[column.length];
+		
+		for(int i = 0; i < size; i++)
+			result[i] = column[order[i]];
+		
+		return result;
+	}
+}
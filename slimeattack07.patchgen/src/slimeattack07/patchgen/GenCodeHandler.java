@@ -7,8 +7,10 @@ import org.eclipse.core.commands.AbstractHandler;
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.PlatformUI;
@@ -74,6 +76,28 @@ public class GenCodeHandler extends AbstractHandler {
 			ifile = Utils.requestFile(project, "patchnotes", "basic", "js");
 			is = new ByteArrayInputStream(BasicStyleJS.getScript().getBytes());
 
+			if (ifile.exists()) 
+				ifile.setContents(is, false, true, null);
+			else 
+				ifile.create(is, false, null);
+			
+			ifile = Utils.requestFile(project, "processor", "WatchableProcessor", "java");
+			is = new ByteArrayInputStream(WatchableProcessor.getCode().getBytes());
+			
+			if (ifile.exists()) 
+				ifile.setContents(is, false, true, null);
+			else 
+				ifile.create(is, false, null);
+			
+			// The processor is registered through a service file, which has to end up in the jar holding the processor.
+			IFolder folder_meta = project.getFolder(new Path("src/patchgen/processor/META-INF"));
+			
+			if (!folder_meta.exists())
+				folder_meta.create(false, false, null);
+			
+			ifile = Utils.requestFile(project, "processor/META-INF/services", "javax.annotation.processing", "Processor");
+			is = new ByteArrayInputStream(WatchableProcessor.getService().getBytes());
+			
 			if (ifile.exists()) 
 				ifile.setContents(is, false, true, null);
 			else 
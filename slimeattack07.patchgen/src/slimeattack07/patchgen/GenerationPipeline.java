@@ -0,0 +1,298 @@
+package slimeattack07.patchgen;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+
+import com.google.gson.JsonObject;
+
+import slimeattack07.patchgen.diff.ChangeSet;
+import slimeattack07.patchgen.diff.IdSorter;
+import slimeattack07.patchgen.diff.RangeDiff;
+import slimeattack07.patchgen.scanning.ClassFileExtractor;
+import slimeattack07.patchgen.scanning.Extractors;
+import slimeattack07.patchgen.scanning.ProjectScanner;
+import slimeattack07.patchgen.scanning.ScanCache;
+import slimeattack07.patchgen.scanning.SnapshotBuilder;
+import slimeattack07.patchgen.snapshots.BinarySnapshot;
+import slimeattack07.patchgen.snapshots.SnapshotLookup;
+import slimeattack07.patchgen.snapshots.SnapshotStore;
+import slimeattack07.patchgen.snapshots.SnapshotWriter;
+import slimeattack07.patchgen.snapshots.VersionHistory;
+
+/**
+ * Generates the patch notes of a single project: scans the project, stores the
+ * result as new version and compares it to an older version. All questions go
+ * through a {@link Prompter}, so the same steps run from the view screen and in
+ * batch generation. Nothing is shared between instances, so several projects can
+ * be processed at the same time.
+ */
+public class GenerationPipeline {
+	private final IProject project;
+	private final IJavaProject javaproject;
+	private final Prompter prompter;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param project  The project to generate patch notes for. Must be a Java
+	 *                 project.
+	 * @param prompter The prompter to ask the user with.
+	 */
+	public GenerationPipeline(IProject project, Prompter prompter) {
+		this.project = project;
+		this.javaproject = JavaCore.create(project);
+		this.prompter = prompter;
+	}
+	
+	/**
+	 * Scans the project for watched constants, then stores them as new version and
+	 * generates patch notes against an older version.
+	 * 
+	 * @param monitor The monitor to report progress to and check for cancellation.
+	 * @return The result of the generation.
+	 */
+	public IStatus run(IProgressMonitor monitor) {
+		File temp = null;
+		File sorted = null;
+		
+		try {
+			File source;
+			
+			if (Extractors.CURRENT.equals(Settings.getExtractor())) {
+				// Written by the annotation processor or the snapshot builder during the last build, so there is nothing 
+				// to scan. A pending update of the builder is waited for, so the snapshot includes the latest changes.
+				SnapshotBuilder.join(project);
+				source = SnapshotStore.getJsonFile(project, SnapshotStore.CURRENT).getLocation().toFile();
+				
+				if (!source.isFile()) {
+					System.out.println("No snapshot was written by the annotation processor");
+					prompter.displayError("Generate patch notes", String.format("File src/patchgen/data/%s.json does not exist. "
+							+ "Build the project with the PatchGen annotation processor first.", SnapshotStore.CURRENT));
+					return Status.OK_STATUS;
+				}
+			} else {
+				// Entries are streamed to a temporary file as they are found, the version to store them as is only known
+				// once the scan is done.
+				temp = File.createTempFile("patchgen", ".json");
+				source = temp;
+				
+				try(SnapshotWriter writer = new SnapshotWriter(new FileOutputStream(temp))){
+					if (Extractors.BYTECODE.equals(Settings.getExtractor())) {
+						// Reads the output of the last build, so it is only as recent as that build.
+						for (JsonObject entry : new ClassFileExtractor().extract(ProjectScanner.getOutputFolders(javaproject)))
+							writer.write(entry);
+					} else {
+						ScanCache cache = ScanCache.load(project);
+						new ProjectScanner(cache, Extractors.create()).scan(javaproject, writer, monitor);
+						System.out.println(String.format("Scanned %d compilation unit(s), %d unchanged unit(s) were taken from the cache", 
+								cache.getScanned(), cache.getCached()));
+						cache.save();
+					}
+				}
+			}
+			
+			// Snapshots are stored in id order, so comparing versions is a single merge pass.
+			sorted = File.createTempFile("patchgen", ".json");
+			int count = IdSorter.sortFile(source, sorted, Settings.getDiffMemoryBudget());
+			
+			if (count > 0) {
+				if (generate(sorted, monitor))
+					prompter.displayInfo("Generate patch notes", String.format("Generated patch notes for project '%s'", project.getName()));
+			} else {
+				System.out.println("Nothing changed!");
+				prompter.displayWarning("Generate patch notes", "Failed to detect any changes.");
+			}
+			
+			return Status.OK_STATUS;
+		} catch (OperationCanceledException | InterruptedException e) {
+			System.out.println("Scan canceled");
+			return Status.CANCEL_STATUS;
+		} catch (CoreException | IOException e) {
+			e.printStackTrace();
+			return new Status(IStatus.ERROR, ScanCache.PLUGIN_ID, "Failed to generate patch notes", e);
+		} finally {
+			if(temp != null)
+				temp.delete();
+			
+			if(sorted != null)
+				sorted.delete();
+		}
+	}
+	
+	/**
+	 * Store the snapshot as new version and generate patch notes against an older
+	 * version. The snapshot is compared and all questions are asked before anything
+	 * is written, so the snapshot, categories, patch notes and text are written in a
+	 * single workspace operation without keeping the project locked while the user
+	 * is being asked things.
+	 * 
+	 * @param snapshot The file holding the snapshot to store.
+	 * @param monitor  The monitor to report progress to.
+	 * @return True if patch notes were generated, false if the user canceled.
+	 * @throws CoreException If a file can't be written.
+	 * @throws IOException   If reading or writing a snapshot fails.
+	 */
+	private boolean generate(File snapshot, IProgressMonitor monitor) throws CoreException, IOException {
+		String new_version = askNewVersion();
+		
+		if (new_version == null)
+			return false;
+		
+		String old_version = askOldVersion(new_version);
+		
+		if (old_version == null)
+			return false;
+		
+		ChangeSet changes = RangeDiff.diff(project, old_version, new_version, snapshot);
+		IWorkspaceRunnable notes = compareToVersion(changes, old_version, new_version);
+		
+		// Only this project is locked, other projects can generate at the same time. The snapshot is stored even if no
+		// patch notes are written.
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		workspace.run((IWorkspaceRunnable) m -> {
+			try {
+				createFiles(snapshot, old_version, new_version);
+				// Only possible once the new version is stored, since steps are cached by content hash.
+				RangeDiff.cache(project, old_version, new_version, changes);
+			} catch (IOException e) {
+				throw new CoreException(new Status(IStatus.ERROR, ScanCache.PLUGIN_ID, "Failed to store snapshot", e));
+			}
+			
+			if (notes != null)
+				notes.run(m);
+		}, project, IWorkspace.AVOID_UPDATE, monitor);
+		
+		return notes != null;
+	}
+	
+	/**
+	 * Ask the user what version to store the snapshot as.
+	 * 
+	 * @return The version, or null if the user canceled.
+	 */
+	@Nullable
+	private String askNewVersion() {
+		while(true) {
+			System.out.println("DataGen: Specify version:");
+			String version = prompter.displayNotBlankInput(Prompter.NEW_VERSION, "Specify version name.", "categories", "text", 
+					VersionHistory.FILE_NAME, SnapshotStore.CURRENT);
+			
+			if(version.equals("NOTHING")) {
+				prompter.displayWarning(Prompter.NEW_VERSION, "User canceled generation of patch notes.");
+				return null;
+			}
+			
+			if (!SnapshotStore.exists(project, version) || prompter.displayYesNo(Prompter.OVERWRITE_VERSION, 
+					String.format("Version '%s' already exists. Would you like to overwrite it?", version)))
+				return version;
+		}
+	}
+	
+	/**
+	 * Ask the user what version to compare to.
+	 * 
+	 * @param new_version The version the snapshot will be stored as.
+	 * @return The old version, or null if the user canceled.
+	 */
+	@Nullable
+	private String askOldVersion(String new_version) {
+		// TODO: Add version check. Temporarily using System.in for testing.
+		while(true) {
+			System.out.println("Comparison: Specify version to compare to:");
+			String old_version = prompter.displayNotBlankInput(Prompter.OLD_VERSION, "Specify version to compare to. Type 'cancel' to cancel.", "categories", 
+					"text", VersionHistory.FILE_NAME);
+			
+			// TODO: Add way to determine if other versions even exist to compare to.
+			if (old_version.equals("NOTHING") || old_version.toLowerCase().equals("cancel")) {
+				prompter.displayInfo("PatchGen: Comparison", "User canceled generation of release notes.");
+				return null;
+			}
+			
+			// The new version is only stored after the comparison, so comparing to it compares to its previous contents.
+			if (!SnapshotStore.exists(project, old_version)) {
+				System.out.println(String.format("File src/patchgen/data/%s.json does not exist", old_version));
+				prompter.displayWarning("PatchGen: Comparison", String.format("File src/patchgen/data/%s.json does not exist", old_version));
+			}
+			else
+				return old_version;
+		}
+	}
+	
+	/**
+	 * Generate JSON database.
+	 * 
+	 * @param snapshot    The file holding the snapshot to store.
+	 * @param old_version The version that will be compared to.
+	 * @param new_version The version to store the snapshot as.
+	 * @throws CoreException If a file can't be written.
+	 * @throws IOException   If reading or writing the snapshot fails.
+	 */
+	private void createFiles(File snapshot, String old_version, String new_version) throws CoreException, IOException {
+		// TODO: Make folder/file gen run on plugin load?
+		// Check if patchgen folder exists, create if it doesn't exist.
+		IFolder folder_patchgen = project.getFolder(new Path("src/patchgen"));
+		
+		if (!folder_patchgen.exists())
+			folder_patchgen.create(false, false, null);
+		
+		IFolder folder_data = project.getFolder(new Path("src/patchgen/data"));
+		
+		// Check if patchgen/data folder exists, create if it doesn't exist.
+		if (!folder_data.exists())
+			folder_data.create(false, false, null);
+		
+		SnapshotStore.store(project, new_version, snapshot);
+		
+		// Once a project uses binary snapshots, keep storing new versions in binary as well.
+		if (SnapshotStore.hasBinary(project, old_version) && !SnapshotStore.hasBinary(project, new_version))
+			SnapshotStore.convert(project, new_version);
+	}
+	
+	/**
+	 * Prepare the patch notes for the changes between two versions.
+	 * 
+	 * @param changes     The changes from the old version to the new snapshot.
+	 * @param old_version The old version.
+	 * @param new_version The new version.
+	 * @return The runnable writing the patch notes, or null if there is nothing to
+	 *         write.
+	 * @throws CoreException If a snapshot can't be opened.
+	 * @throws IOException   If reading a snapshot fails.
+	 */
+	@Nullable
+	private IWorkspaceRunnable compareToVersion(ChangeSet changes, String old_version, String new_version) 
+			throws CoreException, IOException {
+		// Nothing to write about if neither the entries changed nor any text was added.
+		if (changes.isEmpty() && !PatchNoteData.hasText(project)) {
+			System.out.println("Nothing changed!");
+			prompter.displayInfo("PatchGen: Comparison", String.format("Versions '%s' and '%s' are the same and no text was "
+					+ "added, so there is nothing to generate.", old_version, new_version));
+			return null;
+		}
+		
+		System.out.println(String.format("Detected %d changed, %d added and %d removed entries", 
+				changes.getChanged().size(), changes.getAdded().size(), changes.getRemoved().size()));
+		
+		// Only entries present in both versions can be compared. A binary snapshot of the old version can serve those 
+		// by id as is, otherwise only the changed entries are passed on.
+		try (BinarySnapshot old_binary = SnapshotStore.openBinary(project, old_version)) {
+			SnapshotLookup old_data = old_binary != null ? old_binary : changes.getOldData();
+			return changes.getNewData().prepareNotes(old_data, project, old_version, new_version, prompter);
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package slimeattack07.patchgen;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+
+/** Application for generating patch notes without the workbench, for example on a build server. Run it with
+ * -application slimeattack07.patchgen.headless and the following arguments:
+ * <ul>
+ * <li>-project &lt;path&gt;: The project to generate patch notes for. May be given more than once.</li>
+ * <li>-old &lt;version&gt;: The version to compare to.</li>
+ * <li>-new &lt;version&gt;: The version to store the current state as. Overwritten if it exists.</li>
+ * <li>-formats &lt;formats&gt;: The output formats, separated by commas. Defaults to 'html'.</li>
+ * <li>-author &lt;name&gt;: The author of the patch notes.</li>
+ * <li>-style &lt;css&gt;: The style of html patch notes. Defaults to 'basic'.</li>
+ * <li>-scripts &lt;scripts&gt;: The scripts to include in html patch notes, separated by commas.</li>
+ * <li>-resettext: Clear text.json after generating.</li>
+ * <li>-category &lt;id&gt; &lt;name&gt; &lt;priority&gt;: The name and priority of a category that is not in 
+ * categories.json yet. May be given more than once.</li>
+ * </ul>
+ * Projects are processed at the same time. A project with a new category that is not given with -category fails,
+ * without changing categories.json.
+ * 
+ */
+public class HeadlessApplication implements IApplication {
+	public static final Integer EXIT_FAILED = 1;
+	
+	@Override
+	public Object start(IApplicationContext context) throws Exception {
+		String[] args = (String[]) context.getArguments().get(IApplicationContext.APPLICATION_ARGS);
+		List<String> paths = new ArrayList<>();
+		Map<String, String> answers = new HashMap<>();
+		answers.put(Prompter.OUTPUT_FORMAT, "html");
+		answers.put(Prompter.STYLE, "basic");
+		answers.put(Prompter.OVERWRITE_VERSION, "true");
+		answers.put(Prompter.OVERWRITE_FILE, "true");
+		
+		for(int i = 0; i < args.length; i++) {
+			String value = i + 1 < args.length ? args[i + 1] : "";
+			
+			switch(args[i]) {
+			case "-project": paths.add(value); i++; break;
+			case "-old": answers.put(Prompter.OLD_VERSION, value); i++; break;
+			case "-new": answers.put(Prompter.NEW_VERSION, value); i++; break;
+			case "-formats": answers.put(Prompter.OUTPUT_FORMAT, value); i++; break;
+			case "-author": answers.put(Prompter.AUTHOR, value); i++; break;
+			case "-style": answers.put(Prompter.STYLE, value); i++; break;
+			case "-scripts":
+				answers.put(Prompter.SCRIPT_INCLUSION, "true");
+				answers.put(Prompter.SCRIPTS, value);
+				i++;
+				break;
+			case "-resettext": answers.put(Prompter.RESET_TEXT, "true"); break;
+			case "-category":
+				if(i + 3 >= args.length) {
+					System.out.println("Argument -category needs an id, a name and a priority");
+					return EXIT_FAILED;
+				}
+				
+				answers.put(Prompter.forCategory(Prompter.CATEGORY_NAME, args[i + 1]), args[i + 2]);
+				answers.put(Prompter.forCategory(Prompter.CATEGORY_PRIORITY, args[i + 1]), args[i + 3]);
+				i += 3;
+				break;
+			default: System.out.println(String.format("Ignoring unknown argument '%s'", args[i]));
+			}
+		}
+		
+		if(paths.isEmpty() || !answers.containsKey(Prompter.OLD_VERSION) || !answers.containsKey(Prompter.NEW_VERSION)) {
+			System.out.println("Usage: -project <path> [-project <path> ...] -old <version> -new <version> [-formats <formats>] "
+					+ "[-author <name>] [-style <css>] [-scripts <scripts>] [-resettext] [-category <id> <name> <priority> ...]");
+			return EXIT_FAILED;
+		}
+		
+		// Importing changes the workspace, so that is done one project at a time.
+		List<IProject> projects = new ArrayList<>();
+		
+		for(String path : paths) {
+			IProject project = importProject(path);
+			
+			if(project == null)
+				return EXIT_FAILED;
+			
+			projects.add(project);
+		}
+		
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(projects.size(), Runtime.getRuntime().availableProcessors()));
+		List<Future<IStatus>> results = new ArrayList<>();
+		
+		for(IProject project : projects) {
+			Prompter prompter = new HeadlessPrompter(project.getName(), answers);
+			results.add(pool.submit(() -> new GenerationPipeline(project, prompter).run(new NullProgressMonitor())));
+		}
+		
+		pool.shutdown();
+		boolean failed = false;
+		
+		for(int i = 0; i < results.size(); i++) {
+			IStatus status;
+			
+			try {
+				status = results.get(i).get();
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+				status = null;
+			}
+			
+			if(status == null || !status.isOK()) {
+				System.out.println(String.format("Failed to generate patch notes for project '%s'", projects.get(i).getName()));
+				failed = true;
+			}
+		}
+		
+		return failed ? EXIT_FAILED : EXIT_OK;
+	}
+	
+	@Override
+	public void stop() {}
+	
+	/** Get a project from the workspace, adding it if it isn't part of the workspace yet.
+	 * 
+	 * @param path The path of the project directory.
+	 * @return The open project, or null if it couldn't be loaded.
+	 */
+	@Nullable
+	private static IProject importProject(String path) {
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		
+		try {
+			IProjectDescription description = workspace.loadProjectDescription(Path.fromOSString(path).append(".project"));
+			IProject project = workspace.getRoot().getProject(description.getName());
+			
+			if(!project.exists())
+				project.create(description, null);
+			
+			if(!project.isOpen())
+				project.open(null);
+			
+			// The project may have changed on disk since the workspace last saw it.
+			project.refreshLocal(IResource.DEPTH_INFINITE, null);
+			return project;
+		} catch (CoreException e) {
+			System.out.println(String.format("Failed to load project at '%s'", path));
+			e.printStackTrace();
+			return null;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package slimeattack07.patchgen;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/** Prompter for batch generation. Questions are answered from a map keyed by their title, messages are printed. Any 
+ * question without answer is treated as canceled, so a batch run never waits for input. Text input is only answered
+ * once per title, being asked again means the answer was rejected, so that is treated as canceled as well.
+ * 
+ */
+public class HeadlessPrompter implements Prompter {
+	private final String name;
+	private final Map<String, String> answers;
+	private final Set<String> answered = new HashSet<>();
+	
+	/** Constructor.
+	 * 
+	 * @param name The name to prefix messages with, usually the project name.
+	 * @param answers The answers by question title, see the titles in {@link Prompter}.
+	 */
+	public HeadlessPrompter(String name, Map<String, String> answers) {
+		this.name = name;
+		this.answers = answers;
+	}
+	
+	@Override
+	public void displayError(String title, String message) {
+		System.out.println(String.format("[%s] ERROR %s: %s", name, title, message));
+	}
+	
+	@Override
+	public void displayWarning(String title, String message) {
+		System.out.println(String.format("[%s] WARNING %s: %s", name, title, message));
+	}
+	
+	@Override
+	public void displayInfo(String title, String message) {
+		System.out.println(String.format("[%s] %s: %s", name, title, message));
+	}
+	
+	@Override
+	public boolean displayYesNo(String title, String message) {
+		return Boolean.parseBoolean(answer(title, message, "false", false));
+	}
+	
+	@Override
+	public int displayPositiveIntInput(String title, String message) {
+		return Math.max(-1, Utils.toInt(answer(title, message, "-1", false)));
+	}
+	
+	@Override
+	public String displayNotBlankInput(String title, String message, String... banned) {
+		if(!answered.add(title))
+			return answer(title, message, "NOTHING", true);
+		
+		String answer = answer(title, message, "NOTHING", false);
+		
+		for(String ban : banned)
+			if(ban.equals(answer))
+				return "NOTHING";
+		
+		return answer.isBlank() ? "NOTHING" : answer;
+	}
+	
+	@Override
+	public String displayOutputVersionInput(String title, String message) {
+		return answer(title, message, "NOTHING", false);
+	}
+	
+	/** Look up the answer to a question.
+	 * 
+	 * @param title The title of the question.
+	 * @param message The question.
+	 * @param fallback The answer if there is none, which should mean 'cancel' or 'no'.
+	 * @param rejected Whether the answer was rejected before, in which case the fallback is used.
+	 * @return The answer.
+	 */
+	private String answer(String title, String message, String fallback, boolean rejected) {
+		String answer = rejected ? fallback : answers.getOrDefault(title, fallback);
+		System.out.println(String.format("[%s] %s %s", name, message, answer));
+		return answer;
+	}
+}
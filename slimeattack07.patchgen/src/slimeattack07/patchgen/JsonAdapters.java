@@ -0,0 +1,149 @@
+package slimeattack07.patchgen;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.function.IntFunction;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/** Shared Gson instance of the plugin. Gson is thread-safe, so there is no need to create a new one every time.
+ * {@link PatchNoteData} and {@link CategoryData} are read and written by hand instead of through reflection, which
+ * also means they are always created through their constructors. Both use the layout {"data": [entry, entry, ...]}.
+ * Any top level field other than "data" is skipped when reading. Patch note entries are read straight into the column
+ * store of the data, without building a JsonObject per entry.
+ * 
+ */
+public class JsonAdapters {
+	private static final PatchNoteDataAdapter PATCH_NOTE_DATA = new PatchNoteDataAdapter();
+	public static final Gson GSON = new GsonBuilder()
+			.registerTypeAdapter(PatchNoteData.class, PATCH_NOTE_DATA.nullSafe())
+			.registerTypeAdapter(CategoryData.class, new CategoryDataAdapter().nullSafe())
+			.create();
+	public static final TypeAdapter<JsonElement> ELEMENT = GSON.getAdapter(JsonElement.class);
+	
+	/** Read patch note data, such as text.json or a JSON snapshot. Entries are read straight into the column store of
+	 * the data, see {@link PatchNoteDataAdapter}.
+	 * 
+	 * @param is The stream to read from. Will be closed.
+	 * @return The data. Empty if the stream is empty or doesn't hold an object, like a reset text.json.
+	 * @throws IOException If reading fails.
+	 */
+	public static PatchNoteData readPatchNoteData(InputStream is) throws IOException {
+		try(JsonReader in = new JsonReader(new InputStreamReader(is))){
+			try {
+				if(in.peek() != JsonToken.BEGIN_OBJECT)
+					return new PatchNoteData();
+			} catch(EOFException e) {
+				return new PatchNoteData();
+			}
+			
+			return PATCH_NOTE_DATA.read(in);
+		}
+	}
+	
+	/** Read the entries of a data file.
+	 * 
+	 * @param in The reader, positioned at the start of the file.
+	 * @param entry_reader The reader for a single entry.
+	 * @throws IOException If reading fails.
+	 */
+	private static void readEntries(JsonReader in, EntryReader entry_reader) throws IOException {
+		in.beginObject();
+		
+		while(in.hasNext()) {
+			if(!in.nextName().equals(PatchNoteData.DATA) || in.peek() != JsonToken.BEGIN_ARRAY) {
+				in.skipValue();
+				continue;
+			}
+			
+			in.beginArray();
+			
+			while(in.hasNext())
+				entry_reader.read(in);
+			
+			in.endArray();
+		}
+		
+		in.endObject();
+	}
+	
+	/** Write the entries of a data file.
+	 * 
+	 * @param out The writer.
+	 * @param size The amount of entries.
+	 * @param entries The entries by position.
+	 * @throws IOException If writing fails.
+	 */
+	private static void writeEntries(JsonWriter out, int size, IntFunction<JsonElement> entries) throws IOException {
+		out.beginObject();
+		out.name(PatchNoteData.DATA);
+		out.beginArray();
+		
+		for(int i = 0; i < size; i++)
+			ELEMENT.write(out, entries.apply(i));
+		
+		out.endArray();
+		out.endObject();
+	}
+	
+	/** Reader for a single entry of a data file.
+	 * 
+	 */
+	private interface EntryReader {
+		void read(JsonReader in) throws IOException;
+	}
+	
+	/** Adapter for patch note data, such as text.json and JSON snapshots.
+	 * 
+	 */
+	private static class PatchNoteDataAdapter extends TypeAdapter<PatchNoteData> {
+		
+		@Override
+		public void write(JsonWriter out, PatchNoteData value) throws IOException {
+			// One entry at a time, so the whole data never has to exist as JSON.
+			writeEntries(out, value.size(), value::getEntry);
+		}
+		
+		@Override
+		public PatchNoteData read(JsonReader in) throws IOException {
+			PatchNoteData data = new PatchNoteData();
+			
+			readEntries(in, entry -> {
+				if(entry.peek() == JsonToken.BEGIN_OBJECT)
+					data.add(entry);
+				else
+					data.add(ELEMENT.read(entry)); // Not an entry, which is logged and dropped.
+			});
+			
+			return data;
+		}
+	}
+	
+	/** Adapter for category data, such as categories.json.
+	 * 
+	 */
+	private static class CategoryDataAdapter extends TypeAdapter<CategoryData> {
+		
+		@Override
+		public void write(JsonWriter out, CategoryData value) throws IOException {
+			writeEntries(out, value.getData().size(), value.getData()::get);
+		}
+		
+		@Override
+		public CategoryData read(JsonReader in) throws IOException {
+			JsonArray array = new JsonArray();
+			// Read as is, so priorities written as 1.0 or as a long are still accepted when the priority is read.
+			readEntries(in, entry -> array.add(ELEMENT.read(entry)));
+			return new CategoryData(array);
+		}
+	}
+}
@@ -0,0 +1,217 @@
+package slimeattack07.patchgen;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+import com.google.gson.JsonPrimitive;
+
+/** Number classified once as a long, a double or a BigDecimal, so it can be compared exactly. Integers are longs, other
+ * numbers are doubles as long as the double holds exactly the number that was written, and anything else is kept as a
+ * BigDecimal. Values of the same primitive kind are compared without creating any objects, see
+ * {@link #equal(byte, long, byte, long)}.
+ * 
+ */
+class NumericValue implements Comparable<NumericValue> {
+	public static final byte LONG = EntryTable.LONG;
+	public static final byte DOUBLE = EntryTable.DOUBLE;
+	public static final byte DECIMAL = 6;
+	
+	private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+	// Tiny changes to large numbers would round to 0% with a fixed amount of decimals.
+	private static final MathContext PERCENTAGE_CONTEXT = new MathContext(3, RoundingMode.HALF_UP);
+	
+	private final byte kind;
+	// The long, or the bits of the double.
+	private final long bits;
+	// Only set for numbers that don't fit a long or double.
+	private final BigDecimal decimal;
+	
+	/** Constructor.
+	 * 
+	 * @param kind The kind of number.
+	 * @param bits The long or the bits of the double. Ignored for BigDecimals.
+	 * @param decimal The BigDecimal, or null if the number is a long or double.
+	 */
+	private NumericValue(byte kind, long bits, @Nullable BigDecimal decimal) {
+		this.kind = kind;
+		this.bits = bits;
+		this.decimal = decimal;
+	}
+	
+	/** Create a number from a primitive column.
+	 * 
+	 * @param kind {@link #LONG} or {@link #DOUBLE}.
+	 * @param bits The long, or the bits of the double.
+	 * @return The number.
+	 */
+	public static NumericValue of(byte kind, long bits) {
+		return new NumericValue(kind, bits, null);
+	}
+	
+	/** Classify a JSON number.
+	 * 
+	 * @param value The value.
+	 * @return The number, or null if the value is not a number.
+	 */
+	@Nullable
+	public static NumericValue parse(JsonPrimitive value) {
+		return value.isNumber() ? parse(value.getAsString()) : null;
+	}
+	
+	/** Classify a number as it was written.
+	 * 
+	 * @param text The number.
+	 * @return The number, or null if the text is not a finite number.
+	 */
+	@Nullable
+	public static NumericValue parse(String text) {
+		// Short integers always fit a long, which saves creating a BigDecimal for the most common numbers.
+		if(isIntegral(text) && text.length() < 19)
+			return of(LONG, Long.parseLong(text));
+		
+		BigDecimal decimal;
+		
+		try {
+			decimal = new BigDecimal(text);
+		} catch(NumberFormatException e) {
+			return null; // NaN and infinity have no exact value.
+		}
+		
+		if(isIntegral(text) && decimal.unscaledValue().bitLength() < 64)
+			return of(LONG, decimal.longValue());
+		
+		double d = decimal.doubleValue();
+		
+		if(Double.isFinite(d) && decimal.compareTo(BigDecimal.valueOf(d)) == 0)
+			return of(DOUBLE, Double.doubleToRawLongBits(d));
+		
+		return new NumericValue(DECIMAL, 0, decimal);
+	}
+	
+	/** Check if a type tag of an {@link EntryTable} stands for a primitive number.
+	 * 
+	 * @param type The type tag.
+	 * @return True if the value is a long or double, false otherwise.
+	 */
+	public static boolean isPrimitive(byte type) {
+		return type == LONG || type == DOUBLE;
+	}
+	
+	/** Check if two primitive numbers are equal. Numbers of the same kind are compared directly.
+	 * 
+	 * @param kind The kind of the first number, {@link #LONG} or {@link #DOUBLE}.
+	 * @param bits The first long, or the bits of the first double.
+	 * @param other_kind The kind of the second number, {@link #LONG} or {@link #DOUBLE}.
+	 * @param other_bits The second long, or the bits of the second double.
+	 * @return True if the numbers are equal, false otherwise.
+	 */
+	public static boolean equal(byte kind, long bits, byte other_kind, long other_bits) {
+		if(kind != other_kind)
+			return of(kind, bits).compareTo(of(other_kind, other_bits)) == 0;
+		
+		// Compared as doubles so that 0.0 and -0.0 are equal.
+		return kind == LONG ? bits == other_bits : Double.longBitsToDouble(bits) == Double.longBitsToDouble(other_bits);
+	}
+	
+	/** Get the kind of this number.
+	 * 
+	 * @return {@link #LONG}, {@link #DOUBLE} or {@link #DECIMAL}.
+	 */
+	public byte getKind() {
+		return kind;
+	}
+	
+	/** Get the long, or the bits of the double.
+	 * 
+	 * @return The bits, 0 for BigDecimals.
+	 */
+	public long getBits() {
+		return bits;
+	}
+	
+	/** Get the exact value of this number.
+	 * 
+	 * @return The value.
+	 */
+	public BigDecimal toBigDecimal() {
+		switch(kind) {
+		case LONG: return BigDecimal.valueOf(bits);
+		case DOUBLE: return BigDecimal.valueOf(Double.longBitsToDouble(bits));
+		default: return decimal;
+		}
+	}
+	
+	/** Get the difference to an older value.
+	 * 
+	 * @param old_value The older value.
+	 * @return This value minus the older value.
+	 */
+	public BigDecimal getDelta(NumericValue old_value) {
+		if(kind == LONG && old_value.kind == LONG) {
+			try {
+				return BigDecimal.valueOf(Math.subtractExact(bits, old_value.bits));
+			} catch(ArithmeticException e) {
+				// Overflow, the BigDecimals below can't overflow.
+			}
+		}
+		
+		return toBigDecimal().subtract(old_value.toBigDecimal());
+	}
+	
+	/** Get the difference to an older value relative to the older value.
+	 * 
+	 * @param old_value The older value.
+	 * @return The difference in percent, rounded to three significant digits, or null if the older value is zero.
+	 */
+	@Nullable
+	public BigDecimal getPercentage(NumericValue old_value) {
+		BigDecimal old_decimal = old_value.toBigDecimal();
+		
+		if(old_decimal.signum() == 0)
+			return null;
+		
+		return getDelta(old_value).multiply(HUNDRED).divide(old_decimal.abs(), PERCENTAGE_CONTEXT).stripTrailingZeros();
+	}
+	
+	@Override
+	public int compareTo(NumericValue other) {
+		if(kind == other.kind && kind == LONG)
+			return Long.compare(bits, other.bits);
+		
+		if(kind == other.kind && kind == DOUBLE) {
+			double d = Double.longBitsToDouble(bits);
+			double other_d = Double.longBitsToDouble(other.bits);
+			return d < other_d ? -1 : (d > other_d ? 1 : 0);
+		}
+		
+		return toBigDecimal().compareTo(other.toBigDecimal());
+	}
+	
+	@Override
+	public String toString() {
+		switch(kind) {
+		case LONG: return Long.toString(bits);
+		case DOUBLE: return Double.toString(Double.longBitsToDouble(bits));
+		default: return decimal.toString();
+		}
+	}
+	
+	/** Check if a number is written as a plain integer.
+	 * 
+	 * @param text The number.
+	 * @return True if it only has digits and possibly a minus sign, false otherwise.
+	 */
+	private static boolean isIntegral(String text) {
+		int start = text.startsWith("-") ? 1 : 0;
+		
+		if(start == text.length())
+			return false;
+		
+		for(int i = start; i < text.length(); i++)
+			if(text.charAt(i) < '0' || text.charAt(i) > '9')
+				return false;
+		
+		return true;
+	}
+}
@@ -0,0 +1,239 @@
+package slimeattack07.patchgen;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import slimeattack07.patchgen.snapshots.SnapshotSource;
+
+/** Cache of parsed data files, shared by everything in the plugin. Files are identified by their path and considered
+ * unchanged as long as their modification stamp is the same. The least recently used files are evicted once the cache
+ * is full, and files that changed or were deleted are evicted when the workspace reports it. The cached instances are
+ * never handed out, callers get copies they are free to change.
+ * 
+ */
+public class ParsedDataCache implements IResourceChangeListener {
+	private static ParsedDataCache instance;
+	
+	private final Map<String, CachedFile> files;
+	
+	/** Constructor.
+	 * 
+	 * @param size The maximum amount of files to keep.
+	 */
+	private ParsedDataCache(int size) {
+		this.files = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedFile> eldest) {
+				return size() > size;
+			}
+		};
+	}
+	
+	/** Get the cache, creating it on first use.
+	 * 
+	 * @return The cache.
+	 */
+	public static synchronized ParsedDataCache getInstance() {
+		if(instance == null) {
+			instance = new ParsedDataCache(Settings.getParsedCacheSize());
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(instance, IResourceChangeEvent.POST_CHANGE);
+		}
+		
+		return instance;
+	}
+	
+	/** Get the data in a file holding patch note entries, such as text.json or a JSON snapshot.
+	 * 
+	 * @param ifile The file. Must exist.
+	 * @return A copy of the data.
+	 * @throws IOException If reading fails.
+	 * @throws CoreException If the file can't be opened.
+	 */
+	public PatchNoteData getPatchNoteData(IFile ifile) throws IOException, CoreException {
+		return getCached(ifile).copy();
+	}
+	
+	/** Get the entries in a file holding patch note entries for reading them one at a time, such as a JSON snapshot 
+	 * that is about to be diffed. The entries are read from the cached data without copying it.
+	 * 
+	 * @param ifile The file. Must exist.
+	 * @return The entries.
+	 * @throws IOException If reading fails.
+	 * @throws CoreException If the file can't be opened.
+	 */
+	public SnapshotSource getEntries(IFile ifile) throws IOException, CoreException {
+		return new EntrySource(getCached(ifile));
+	}
+	
+	/** Get the data in a file holding categories, such as categories.json.
+	 * 
+	 * @param ifile The file. Must exist.
+	 * @return A copy of the data.
+	 * @throws IOException If reading fails.
+	 * @throws CoreException If the file can't be opened.
+	 */
+	public CategoryData getCategoryData(IFile ifile) throws IOException, CoreException {
+		Object data = lookup(ifile);
+		
+		if(!(data instanceof CategoryData)) {
+			try(Reader reader = new InputStreamReader(ifile.getContents())){
+				data = JsonAdapters.GSON.fromJson(reader, CategoryData.class);
+			}
+			
+			// An empty file has no categories yet.
+			if(data == null)
+				data = new CategoryData(new JsonArray());
+			
+			store(ifile, data);
+		}
+		
+		return new CategoryData(((CategoryData) data).getData().deepCopy());
+	}
+	
+	/** Store the data that was just written to a file, so the next request doesn't have to read it again.
+	 * 
+	 * @param ifile The file.
+	 * @param data The data written to the file. A copy is stored, so the caller can keep changing it.
+	 */
+	public void put(IFile ifile, PatchNoteData data) {
+		store(ifile, data.copy());
+	}
+	
+	/** Store the data that was just written to a file, so the next request doesn't have to read it again.
+	 * 
+	 * @param ifile The file.
+	 * @param data The data written to the file. A copy is stored, so the caller can keep changing it.
+	 */
+	public void put(IFile ifile, CategoryData data) {
+		store(ifile, new CategoryData(data.getData().deepCopy()));
+	}
+	
+	@Override
+	public synchronized void resourceChanged(IResourceChangeEvent event) {
+		// The stamps are checked on every request anyway, this just frees the memory of files that are outdated.
+		Iterator<CachedFile> iterator = files.values().iterator();
+		
+		while(iterator.hasNext()) {
+			CachedFile cached = iterator.next();
+			
+			if(!cached.ifile.exists() || cached.ifile.getModificationStamp() != cached.stamp)
+				iterator.remove();
+		}
+	}
+	
+	/** Get the cached data in a file holding patch note entries, reading the file if needed.
+	 * 
+	 * @param ifile The file. Must exist.
+	 * @return The data, which must not be changed.
+	 * @throws IOException If reading fails.
+	 * @throws CoreException If the file can't be opened.
+	 */
+	private PatchNoteData getCached(IFile ifile) throws IOException, CoreException {
+		Object data = lookup(ifile);
+		
+		if(!(data instanceof PatchNoteData)) {
+			data = JsonAdapters.readPatchNoteData(ifile.getContents());
+			store(ifile, data);
+		}
+		
+		return (PatchNoteData) data;
+	}
+	
+	/** Get the cached data of a file.
+	 * 
+	 * @param ifile The file.
+	 * @return The data, or null if it isn't cached or the file changed since.
+	 */
+	@Nullable
+	private synchronized Object lookup(IFile ifile) {
+		CachedFile cached = files.get(ifile.getFullPath().toString());
+		return cached != null && cached.stamp == ifile.getModificationStamp() ? cached.data : null;
+	}
+	
+	/** Cache the data of a file.
+	 * 
+	 * @param ifile The file.
+	 * @param data The data, which must not be changed afterwards.
+	 */
+	private synchronized void store(IFile ifile, Object data) {
+		files.put(ifile.getFullPath().toString(), new CachedFile(ifile, ifile.getModificationStamp(), data));
+	}
+	
+	/** Entries of cached data, turned into JSON one at a time.
+	 * 
+	 */
+	private static class EntrySource implements SnapshotSource {
+		private final PatchNoteData data;
+		private final boolean sorted;
+		private int index = 0;
+		
+		/** Constructor.
+		 * 
+		 * @param data The cached data. Is not changed.
+		 */
+		public EntrySource(PatchNoteData data) {
+			this.data = data;
+			this.sorted = data.isSortedById();
+		}
+		
+		@Override
+		public boolean isSortedById() {
+			return sorted;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return index < data.size();
+		}
+		
+		@Override
+		public JsonObject next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			
+			return data.getEntry(index++);
+		}
+		
+		@Override
+		public void close() {
+			// Nothing to close, the data stays cached.
+		}
+	}
+	
+	/** Parsed data of a single file.
+	 * 
+	 */
+	private static class CachedFile {
+		private final IFile ifile;
+		private final long stamp;
+		private final Object data;
+		
+		/** Constructor.
+		 * 
+		 * @param ifile The file.
+		 * @param stamp The modification stamp of the file when it was parsed.
+		 * @param data The parsed data.
+		 */
+		public CachedFile(IFile ifile, long stamp, Object data) {
+			this.ifile = ifile;
+			this.stamp = stamp;
+			this.data = data;
+		}
+	}
+}
@@ -3,31 +3,40 @@ package slimeattack07.patchgen;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 
 import slimeattack07.patchgen.generators.HtmlGenerator;
 import slimeattack07.patchgen.generators.MarkdownGenerator;
 import slimeattack07.patchgen.generators.PatchNoteGenerator;
 import slimeattack07.patchgen.generators.PlainTextGenerator;
+import slimeattack07.patchgen.scanning.ScanCache;
+import slimeattack07.patchgen.snapshots.SnapshotLookup;
 
 /** Utility class for storing and handling data for patch note entries.
+ * The entries are kept in an {@link EntryTable}, they are only turned into JSON when they are read or written.
  * 
  */
-public class PatchNoteData {
-	private JsonArray data;
+public class PatchNoteData implements SnapshotLookup {
+	private final EntryTable entries;
 	
 	public static final String ID = "id";
 	public static final String VALUE = "value";
@@ -39,180 +48,289 @@ public class PatchNoteData {
 	public static final String DEVELOPER_COMMENT = "developer_comment";
 	public static final String IS_TEXT = "is_text";
 	
+	/** Constructor. Creates empty data.
+	 * 
+	 */
+	public PatchNoteData() {
+		this.entries = new EntryTable();
+	}
+	
 	/** Constructor.
 	 * 
-	 * @param data The initial data.
+	 * @param data The initial data. Not kept, later changes to it are not reflected.
 	 */
 	public PatchNoteData(JsonArray data) {
-		this.data = data;
+		this();
+		
+		for(JsonElement element : data)
+			add(element);
+	}
+	
+	/** Constructor.
+	 * 
+	 * @param entries The entries.
+	 */
+	private PatchNoteData(EntryTable entries) {
+		this.entries = entries;
 	}
 	
-	/** Get the data stored in this instance.
+	/** Get the data stored in this instance as JSON.
 	 * 
-	 * @return The data.
+	 * @return The data. Changes to it are not reflected in this instance.
 	 */
 	public JsonArray getData() {
+		JsonArray data = new JsonArray(entries.size());
+		
+		for(int i = 0; i < entries.size(); i++)
+			data.add(entries.getEntry(i));
+		
 		return data;
 	}
 	
-	/** Ask the user what output generator should be used.
+	/** Get a single entry as JSON.
+	 * 
+	 * @param index The position of the entry.
+	 * @return The entry. Changes to it are not reflected in this instance.
+	 */
+	public JsonObject getEntry(int index) {
+		return entries.getEntry(index);
+	}
+	
+	/** Get the amount of entries.
+	 * 
+	 * @return The amount of entries.
+	 */
+	public int size() {
+		return entries.size();
+	}
+	
+	/** Check if the entries are in id order. Entries without id are ignored.
+	 * 
+	 * @return True if no id comes before the id of an earlier entry, false otherwise.
+	 */
+	boolean isSortedById() {
+		String last = null;
+		
+		for(int i = 0; i < entries.size(); i++) {
+			String id = entries.getId(i);
+			
+			if(id == null)
+				continue;
+			
+			if(last != null && id.compareTo(last) < 0)
+				return false;
+			
+			last = id;
+		}
+		
+		return true;
+	}
+	
+	/** Create a copy of this instance.
+	 * 
+	 * @return The copy, which can be changed without affecting this instance.
+	 */
+	public PatchNoteData copy() {
+		return new PatchNoteData(new EntryTable(entries));
+	}
+	
+	/** Ask the user what output generators should be used.
 	 * 
 	 * @param project The project to generate release notes for.
-	 * @param name The name that will be given to the created file.
-	 * @return
+	 * @param name The name that will be given to the created files.
+	 * @param prompter The prompter to ask the user with.
+	 * @return The generators, one per requested format. Empty if the user canceled or requested an unknown format.
 	 */
-	@Nullable
-	private PatchNoteGenerator askGenerator(IProject project, String name) {
-		String format = Utils.displayOutputVersionInput("PatchGen: Specify output format", "What should the output format be? Supported are 'txt', 'md' and 'html'.");
-		switch(format) {
-		case "txt": return new PlainTextGenerator(project, name);
-		case "md": return new MarkdownGenerator(project, name);
-		case "html": return new HtmlGenerator(project, name);
-		default: return null;
+	private List<PatchNoteGenerator> askGenerators(IProject project, String name, Prompter prompter) {
+		String formats = prompter.displayOutputVersionInput(Prompter.OUTPUT_FORMAT, "What should the output format be? Supported are 'txt', 'md' and 'html'.");
+		List<PatchNoteGenerator> gens = new ArrayList<>();
+		
+		// Batch generation may ask for several formats at once, the dialog only allows one.
+		for(String format : formats.split(",")) {
+			switch(format.strip()) {
+			case "txt": gens.add(new PlainTextGenerator(project, name, prompter)); break;
+			case "md": gens.add(new MarkdownGenerator(project, name, prompter)); break;
+			case "html": gens.add(new HtmlGenerator(project, name, prompter)); break;
+			default: return new ArrayList<>();
+			}
 		}
+		
+		return gens;
 	}
 	
 	// TODO: Strategy would be as follow: Sort on (nested) categories first. If category priority unknown, ask user.
 	// Save category info in file somewhere. Make method later for changing these afterwards.
-	/** Generate patch notes. The instance this method is called for will serve as the newest data.
+	/** Prepare the patch notes. The instance this method is called for will serve as the newest data. All questions are
+	 * asked and all entries are compared right away, but nothing is written yet. The files are only written by the
+	 * returned runnable, so the caller can run it as a workspace operation without keeping the project locked while the
+	 * user is being asked things.
 	 * 
 	 * @param old_data The old data to compare to when searching for changes.
 	 * @param project The project to generate patch notes for.
+	 * @param prompter The prompter to ask the user with.
+	 * @return The runnable writing the patch notes, or null if nothing should be written.
+	 * @throws CoreException If a new category was not given a name and priority.
 	 */
-	public void genNotes(PatchNoteData old_data, IProject project, String old_version, String new_version) {
+	@Nullable
+	public IWorkspaceRunnable prepareNotes(SnapshotLookup old_data, IProject project, String old_version, String new_version, 
+			Prompter prompter) throws CoreException {
 		// Add the text entries to the data so we can also generate them.
-		JsonArray text_array = retrieveText(project);
+		PatchNoteData text = retrieveText(project);
 		
-		if(text_array != null)
-			data.addAll(text_array);
+		if(text != null)
+			addAll(text);
 		
-		CategoryData cats = saveCategories(project); // Ensure categories are up-to-date
+		CategoryPaths paths = new CategoryPaths();
+		CategoryData cats = askCategories(project, paths, prompter); // Ensure categories are up-to-date
 		
 		if(cats == null) {
 			System.out.println("Failed to update categories");
-			return;
+			return null;
 		}
 		
 		// Sort per category to make generation easier.
-		sortData(cats);
-		System.out.println("Data is now: " + data.toString());
+		sortData(cats, paths);
+		System.out.println(String.format("Sorted %d entries", entries.size()));
 		
-		PatchNoteGenerator gen = askGenerator(project, String.format("%s_to_%s", old_version, new_version));
+		List<PatchNoteGenerator> gens = askGenerators(project, String.format("%s_to_%s", old_version, new_version), prompter);
 		
-		if(!gen.isValid()) {
+		if(gens.isEmpty() || gens.stream().anyMatch(gen -> !gen.isValid())) {
 			System.out.println("Unable to generate patch notes.");
-			Utils.displayError("PatchGen: Generate patch notes", "Unable to generate patch notes.");
-			return;
+			prompter.displayError("PatchGen: Generate patch notes", "Unable to generate patch notes.");
+			return null;
 		}
 		
+		boolean reset_text = prompter.displayYesNo(Prompter.RESET_TEXT, "Would you like to clear the text.json file to start fresh for the next patch? You can always use the 'ResetText' button to do this at any time yourself.");
+		
+		// Compare all entries in parallel first. Rendering stays on this thread so categories are generated in order.
+		ChangeRecord[] records = new ChangeRecord[entries.size()];
+		ForkJoinPool.commonPool().invoke(new CompareTask(old_data, this, records, 0, records.length));
+		
+		return monitor -> {
+			saveCategories(project, cats);
+			// The categories are written first, generating them removes them from the data.
+			genNotes(gens, records, cats, paths);
+			
+			if(reset_text) {
+				IFile ifile = Utils.requestFile(project, "data", "text", "json");
+				
+				if(ifile.exists())
+					ifile.setContents(new ByteArrayInputStream("".getBytes()), false, true, null);
+			}
+		};
+	}
+	
+	/** Generate patch notes from the compared entries.
+	 * 
+	 * @param gens The patch note generators to use.
+	 * @param records The records of the entries, in the order of the entries. Null for entries that should be skipped.
+	 * @param cats The category data. Categories are removed once they are generated.
+	 * @param paths The category ids of this run.
+	 */
+	private static void genNotes(List<PatchNoteGenerator> gens, ChangeRecord[] records, CategoryData cats, 
+			CategoryPaths paths) {
 		String last_category = "";
 		int last_depth = 0;
 		
-		for(JsonElement element : data) {
-			if(element.isJsonObject()) {
-				JsonObject entry = element.getAsJsonObject();
-				
-				if(!entry.has(ID)) {
-					System.out.println(String.format("Invalid entry: %s", entry));
-					continue;
-				}
-				
-				String id = entry.get(ID).getAsString();
-				
-				if(entry.has(IS_TEXT) && entry.get(IS_TEXT).getAsBoolean()) {
-					String value = entry.has(VALUE) ? entry.get(VALUE).getAsString() : "NOTEXT";
-					boolean is_developer_comment = entry.has(DEVELOPER_COMMENT) ? entry.get(DEVELOPER_COMMENT).getAsBoolean() : false;
-					
-					// Generate needed categories that haven't been generated yet.
-					if(entry.has(CATEGORY)) {
-						String cat = entry.get(CATEGORY).getAsString();
-						
-						if(!cat.equals(last_category)) {
-							last_depth = (int) cat.chars().filter(ch -> ch == '.').count();
-							cats = genCategories(gen, cats, cat);
-							last_category = cat;
-						}
-					}
-					
-					gen.addText(value, last_depth, is_developer_comment);
-				}
-				else if (old_data.contains(id)) {
-					JsonObject match = old_data.get(id);
-					String text = compareValues(entry, match);
-						
-					if(!text.isBlank()) {
-						// Generate needed categories that haven't been generated yet.
-						if(entry.has(CATEGORY)) {
-							String cat = entry.get(CATEGORY).getAsString();
-							
-							if(!cat.equals(last_category)) {
-								last_depth = (int) cat.chars().filter(ch -> ch == '.').count();
-								cats = genCategories(gen, cats, cat);
-								last_category = cat;
-							}
-						}
-						
-						boolean bulleted = entry.has(PatchNoteData.BULLETED) ? 
-								entry.get(PatchNoteData.BULLETED).getAsBoolean() : true;
-						gen.addContent(text, last_depth, bulleted);
-					}
-				}
+		for(ChangeRecord record : records) {
+			if(record == null)
+				continue;
+			
+			System.out.println(record.text);
+			
+			// Generate needed categories that haven't been generated yet.
+			if(record.category != null && !record.category.equals(last_category)) {
+				int path = paths.intern(record.category);
+				last_depth = paths.getDepth(path);
+				cats = genCategories(gens, cats, paths, path);
+				last_category = record.category;
+			}
+			
+			for(PatchNoteGenerator gen : gens) {
+				if(record.is_text)
+					gen.addText(record.text, last_depth, record.is_developer_comment);
+				else
+					gen.addContent(record.text, last_depth, record.bulleted);
 			}
 		}
 		
-		gen.finish();
+		for(PatchNoteGenerator gen : gens)
+			gen.finish();
+	}
+	
+	/** Compare a single entry to its old version. Has no side effects, so it is safe to call from multiple threads.
+	 * 
+	 * @param old_data The old data to compare to.
+	 * @param row The position of the entry to compare.
+	 * @return The record of what should be added to the patch notes, or null if nothing should be added.
+	 */
+	@Nullable
+	private ChangeRecord compareEntry(SnapshotLookup old_data, int row) {
+		String id = entries.getId(row);
 		
-		if(Utils.displayYesNo("PatchGen: Reset text file", "Would you like to clear the text.json file to start fresh for the next patch? You can always use the 'ResetText' button to do this at any time yourself.")) {
-			IFile ifile = Utils.requestFile(project, "data", "text", "json");
-			
-			if(ifile.exists())
-				try {
-					ifile.setContents(new ByteArrayInputStream("".getBytes()), false, true, null);
-				} catch (CoreException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
-		}		
+		if(id == null) {
+			System.out.println(String.format("Invalid entry: %s", entries.getEntry(row)));
+			return null;
+		}
+		
+		String category = entries.getCategory(row);
+		
+		if(entries.isText(row)) {
+			String value = entries.getType(row) == EntryTable.NONE ? "NOTEXT" : entries.getValue(row).getAsString();
+			return new ChangeRecord(value, category, true, entries.isDeveloperComment(row), false);
+		}
+		
+		if(!old_data.contains(id))
+			return null;
+		
+		String text = compareValues(old_data, id, row);
+		
+		if(text.isBlank())
+			return null;
+		
+		return new ChangeRecord(text, category, false, false, entries.isBulleted(row));
 	}
 	
 	/** Generating categories in the patch notes.
 	 * 
-	 * @param gen The patch note generator to use.
+	 * @param gens The patch note generators to use.
 	 * @param cats The category data containing the categories to generate.
-	 * @param id The category to generate. This method will generate any parent categories for this id that have not
-	 * been generated yet.
+	 * @param paths The category ids of this run.
+	 * @param path The index of the category to generate. This method will generate any parent categories for this 
+	 * category that have not been generated yet.
 	 * @return The remaining category data with the generated entries removed.
 	 */
-	private CategoryData genCategories(PatchNoteGenerator gen, CategoryData cats, String id) {
-		String[] parts = id.split("\\.");
-		String temp = "";
-		int depth = 0;
+	private static CategoryData genCategories(List<PatchNoteGenerator> gens, CategoryData cats, CategoryPaths paths, int path) {
+		int[] prefixes = paths.getPrefixes(path);
 		
-		for(String part : parts) {
-			temp += part;
+		for(int depth = 0; depth < prefixes.length; depth++) {
+			String temp = paths.get(prefixes[depth]);
 			
 			// Contains check needed to avoid generating categories that already exist.
 			if(cats.contains(temp)) {
 				System.out.println(String.format("Generating category: %s", temp));
-				gen.addCategory(cats.getName(temp), depth);
+				
+				for(PatchNoteGenerator gen : gens)
+					gen.addCategory(cats.getName(temp), depth);
+				
 				cats.remove(temp); // Only need to generate each category once, so should be safe to remove.
 			}
-			
-			temp += ".";
-			depth++;
 		}
 		
 		return cats;
 	}
 	
-	/** Save all detected categories to file. Will ask the user to provide a name and priority for any categories that 
-	 * were not saved to file before.
+	/** Get the categories of all entries. Will ask the user to provide a name and priority for any categories that were
+	 * not saved to file before.
 	 * 
-	 * @param project The project to save the categories for.
-	 * @return The detected category data.
+	 * @param project The project to get the categories for.
+	 * @param paths The category ids of this run.
+	 * @param prompter The prompter to ask the user with.
+	 * @return The detected category data, or null if the file holding the categories can't be found.
+	 * @throws CoreException If a new category was not given a name and priority.
 	 */
 	@Nullable
-	private CategoryData saveCategories(IProject project) {
+	private CategoryData askCategories(IProject project, CategoryPaths paths, Prompter prompter) throws CoreException {
 		IFile ifile = Utils.requestFile(project, "data", "categories", ".json");
 		
 		if(ifile == null)
@@ -221,65 +339,68 @@ public class PatchNoteData {
 		CategoryData cats = new CategoryData(new JsonArray());
 		
 		if(ifile.exists()) {
-			try(Reader reader = new InputStreamReader(ifile.getContents());){
-				Gson gson = new Gson();
-				cats = gson.fromJson(reader, CategoryData.class);
+			try {
+				cats = ParsedDataCache.getInstance().getCategoryData(ifile);
 			} catch (IOException | CoreException e) {
 				e.printStackTrace();
 			}
 		}
 		
-		cats = saveCategoryHelper(cats, data);
-		
-		JsonObject data_object = new JsonObject();
-		data_object.add(DATA, cats.getData());
-		InputStream is = new ByteArrayInputStream(data_object.toString().getBytes());
+		return saveCategoryHelper(cats, paths, prompter);
+	}
+	
+	/** Save the detected categories to file.
+	 * 
+	 * @param project The project to save the categories for.
+	 * @param cats The detected category data.
+	 * @throws CoreException If the file can't be written.
+	 */
+	private static void saveCategories(IProject project, CategoryData cats) throws CoreException {
+		IFile ifile = Utils.requestFile(project, "data", "categories", ".json");
+		InputStream is = new ByteArrayInputStream(JsonAdapters.GSON.toJson(cats).getBytes());
 		
-		try {
-			if(ifile.exists())
-				ifile.setContents(is, false, true, null);
-			else
-				ifile.create(is, false, null);
-		} catch (CoreException e) {
-			e.printStackTrace();
-		}
+		if(ifile.exists())
+			ifile.setContents(is, false, true, null);
+		else
+			ifile.create(is, false, null);
 		
-		return cats;
+		ParsedDataCache.getInstance().put(ifile, cats);
 	}
 	
 	/** Helper method for saving category data. Method will ask user to provide name and priority for any categories for which
 	 * these are not known yet.
 	 * 
 	 * @param categories The known category data.
-	 * @param data_array The data array to process.
+	 * @param paths The category ids of this run.
+	 * @param prompter The prompter to ask the user with.
 	 * @return The updated category data.
+	 * @throws CoreException If a new category was not given a name and priority. Nothing is saved in that case.
 	 */
-	private CategoryData saveCategoryHelper(CategoryData categories, JsonArray data_array) {
+	private CategoryData saveCategoryHelper(CategoryData categories, CategoryPaths paths, Prompter prompter) 
+			throws CoreException {
 		CategoryData cats = categories;
 		
-		for(JsonElement element : data_array) {
-			if(element.isJsonObject()) {
-				JsonObject jo = element.getAsJsonObject();
+		// Every distinct category only has to be checked once, no matter how many entries it holds.
+		for(String cat : entries.getCategories()) {
+			for(int prefix : paths.getPrefixes(paths.intern(cat))) {
+				String temp = paths.get(prefix);
 				
-				if(jo.has(CATEGORY)) {
-					String cat = jo.get(CATEGORY).getAsString();
-					String temp = "";
+				if(!cats.contains(temp)) {
+					System.out.println(String.format("Asking for name for category '%s'", temp));
+					String name = prompter.displayNotBlankInput(Prompter.forCategory(Prompter.CATEGORY_NAME, temp), 
+							String.format("Please specify name for category '%s'", temp));
+					
+					if(name.equals("NOTHING"))
+						throw undefinedCategory(temp, prompter);
 					
-					for(String part : cat.split("\\.")) {
-						temp += part;
-						
-						if(!cats.contains(temp)) {
-							System.out.println(String.format("Asking for name for category '%s'", temp));
-							String name = Utils.displayNotBlankInput("Category definition", 
-									String.format("Please specify name for category '%s'", temp));
-							System.out.println(String.format("Asking for priority for category '%s'", temp));
-							int prio = Utils.displayPositiveIntInput("Category definition", 
-									String.format("Please specify priority for category '%s'", temp));
-							cats.addCategory(temp, name, prio);
-						}
-						
-						temp += ".";
-					}
+					System.out.println(String.format("Asking for priority for category '%s'", temp));
+					int prio = prompter.displayPositiveIntInput(Prompter.forCategory(Prompter.CATEGORY_PRIORITY, temp), 
+							String.format("Please specify priority for category '%s'", temp));
+					
+					if(prio < 0)
+						throw undefinedCategory(temp, prompter);
+					
+					cats.addCategory(temp, name, prio);
 				}
 			}
 		}
@@ -287,6 +408,29 @@ public class PatchNoteData {
 		return cats;
 	}
 	
+	/** Report a category that was left undefined. Patch notes can't be sorted without it, so generation stops.
+	 * 
+	 * @param id The id of the category.
+	 * @param prompter The prompter to inform the user with.
+	 * @return The exception to throw.
+	 */
+	private static CoreException undefinedCategory(String id, Prompter prompter) {
+		String message = String.format("No name or priority was given for category '%s'", id);
+		System.out.println(message);
+		prompter.displayError("PatchGen: Generate patch notes", message);
+		return new CoreException(new Status(IStatus.ERROR, ScanCache.PLUGIN_ID, message));
+	}
+	
+	/** Check if developers wrote any text for the next patch notes.
+	 * 
+	 * @param project The project to check.
+	 * @return True if text.json holds any entries, false otherwise.
+	 */
+	public static boolean hasText(IProject project) {
+		PatchNoteData text = retrieveText(project);
+		return text != null && text.size() > 0;
+	}
+	
 	// TODO: Add way to clear text
 	/** Retrieve text written by developers.
 	 * 
@@ -294,14 +438,12 @@ public class PatchNoteData {
 	 * @return The text data, or null if none is found.
 	 */
 	@Nullable
-	private JsonArray retrieveText(IProject project) {
+	private static PatchNoteData retrieveText(IProject project) {
 		IFile ifile = Utils.requestFile(project, "data", "text", "json");
 		
 		if(ifile.exists()) {
-			try(Reader reader = new InputStreamReader(ifile.getContents());){
-				Gson gson = new Gson();
-				PatchNoteData data = gson.fromJson(reader, PatchNoteData.class);
-				return data.getData();
+			try {
+				return ParsedDataCache.getInstance().getPatchNoteData(ifile);
 			} catch (IOException | CoreException e) {
 				e.printStackTrace();
 			}
@@ -310,44 +452,64 @@ public class PatchNoteData {
 		return null;
 	}
 	
-	// TODO: Change system.out to log file and patch note generation.
-	/** Compares values between two entries.
+	/** Compares the value of an entry with its old value. Has no side effects, so it is safe to call from multiple 
+	 * threads. If the old data is held in memory as well, numbers are compared straight from the columns of both sides.
 	 * 
-	 * @param entry The entry to compare with match.
-	 * @param match The old version of the entry.
+	 * @param old_data The old data to compare to. Must contain the id.
+	 * @param id The id of the entry.
+	 * @param row The position of the entry.
 	 * @return The generated String detailing the detected change, or an empty String if no change was detected.
 	 */
-	private String compareValues(JsonObject entry, JsonObject match) {
-		JsonElement old_value = match.get(VALUE);
-		JsonElement new_value = entry.get(VALUE);
+	private String compareValues(SnapshotLookup old_data, String id, int row) {
+		byte type = entries.getType(row);
 		
+		if(NumericValue.isPrimitive(type) && old_data instanceof PatchNoteData) {
+			EntryTable old_entries = ((PatchNoteData) old_data).entries;
+			int old_row = old_entries.find(id);
+			byte old_type = old_entries.getType(old_row);
+			
+			if(NumericValue.isPrimitive(old_type)) {
+				long bits = entries.getBits(row);
+				long old_bits = old_entries.getBits(old_row);
+				
+				if(NumericValue.equal(type, bits, old_type, old_bits))
+					return "";
+				
+				NumericValue old_number = NumericValue.of(old_type, old_bits);
+				NumericValue new_number = NumericValue.of(type, bits);
+				return describeChange(getNameOrId(row), old_number.toString(), old_number, new_number.toString(), new_number);
+			}
+		}
+		
+		return compareValues(getNameOrId(row), entries.getValue(row), old_data.getValue(id));
+	}
+	
+	// TODO: Change system.out to log file and patch note generation.
+	/** Compares values between two entries. Has no side effects, so it is safe to call from multiple threads.
+	 * 
+	 * @param name The name of the entry to use in the text.
+	 * @param new_value The value of the new version of the entry.
+	 * @param old_value The value of the old version of the entry.
+	 * @return The generated String detailing the detected change, or an empty String if no change was detected.
+	 */
+	private static String compareValues(String name, @Nullable JsonElement new_value, @Nullable JsonElement old_value) {
 		if(old_value != null && new_value != null) {
 			if(old_value.getAsJsonPrimitive().isBoolean() && new_value.getAsJsonPrimitive().isBoolean()) {
 				if(old_value.getAsBoolean() != new_value.getAsBoolean()) {
-					String name = getNameOrId(entry);
 					String text = String.format("%s changed from %s to %s", name, old_value.getAsBoolean(), new_value.getAsBoolean());
-					System.out.println(text);
 					return text;
 				}
 			}
-			else if(old_value.getAsJsonPrimitive().isNumber() && new_value.getAsJsonPrimitive().isNumber()) {
-				float old_number = old_value.getAsNumber().floatValue();
-				float new_number = new_value.getAsNumber().floatValue();
+			else if(isExactNumber(old_value) && isExactNumber(new_value)) {
+				NumericValue old_number = NumericValue.parse(old_value.getAsJsonPrimitive());
+				NumericValue new_number = NumericValue.parse(new_value.getAsJsonPrimitive());
 				
-				String change = old_number > new_number ? "decreased" : "increased";
-				
-				if(old_number != new_number) {
-					String name = getNameOrId(entry);
-					String text = String.format("%s %s from %s to %s", name, change, old_value.getAsNumber(), new_value.getAsNumber());
-					System.out.println(text);
-					return text;
-				}
+				if(old_number.compareTo(new_number) != 0)
+					return describeChange(name, old_value.getAsString(), old_number, new_value.getAsString(), new_number);
 			}
 			else {
 				if(!old_value.getAsString().equals(new_value.getAsString())) {
-					String name = getNameOrId(entry);
 					String text = String.format("%s changed from '%s' to '%s'", name, old_value.getAsString(), new_value.getAsString());
-					System.out.println(text);
 					return text;
 				}
 			}
@@ -356,16 +518,60 @@ public class PatchNoteData {
 		return "";
 	}
 	
+	/** Check if a value is a number with an exact value, so not NaN or infinity.
+	 * 
+	 * @param value The value.
+	 * @return True if the value is an exact number, false otherwise.
+	 */
+	private static boolean isExactNumber(JsonElement value) {
+		return value.getAsJsonPrimitive().isNumber() && NumericValue.parse(value.getAsJsonPrimitive()) != null;
+	}
+	
+	/** Describe a change of a number. Depending on the settings, the absolute and relative difference are added.
+	 * 
+	 * @param name The name of the entry to use in the text.
+	 * @param old_text The old value as it was written.
+	 * @param old_number The old value.
+	 * @param new_text The new value as it was written.
+	 * @param new_number The new value, which must differ from the old value.
+	 * @return The generated String detailing the change.
+	 */
+	private static String describeChange(String name, String old_text, NumericValue old_number, String new_text, 
+			NumericValue new_number) {
+		String change = old_number.compareTo(new_number) > 0 ? "decreased" : "increased";
+		String text = String.format("%s %s from %s to %s", name, change, old_text, new_text);
+		List<String> deltas = new ArrayList<>();
+		
+		if(Settings.isAbsoluteDelta())
+			deltas.add(signed(new_number.getDelta(old_number)));
+		
+		BigDecimal percentage = Settings.isPercentageDelta() ? new_number.getPercentage(old_number) : null;
+		
+		if(percentage != null)
+			deltas.add(signed(percentage) + "%");
+		
+		return deltas.isEmpty() ? text : String.format("%s (%s)", text, String.join(", ", deltas));
+	}
+	
+	/** Write a difference with its sign, so increases are easy to tell apart.
+	 * 
+	 * @param delta The difference.
+	 * @return The difference, with a plus sign if it is positive.
+	 */
+	private static String signed(BigDecimal delta) {
+		// Numbers too large for a double would be written out in full otherwise.
+		String text = delta.scale() < -20 ? delta.toString() : delta.toPlainString();
+		return (delta.signum() > 0 ? "+" : "") + text;
+	}
+	
 	/** Get the name of an entry, or the id if no name is present.
 	 * 
-	 * @param entry The entry to return the name for.
+	 * @param row The position of the entry to return the name for.
 	 * @return The name if present, the id otherwise.
 	 */
-	private String getNameOrId(JsonObject entry) {
-		if(entry.has(NAME))
-			return entry.get(NAME).getAsString();
-		
-		return entry.get(ID).getAsString();
+	private String getNameOrId(int row) {
+		String name = entries.getName(row);
+		return name != null ? name : entries.getId(row);
 	}
 	
 	/** Check if the data contains an entry with the specified id.
@@ -373,177 +579,315 @@ public class PatchNoteData {
 	 * @param id The id to check for.
 	 * @return True if id is contained in data, false otherwise.
 	 */
+	@Override
 	public boolean contains(String id) {
-		for(JsonElement element : data) {
-			if(element.isJsonObject()) {
-				JsonObject entry = element.getAsJsonObject();
-				
-				if(entry.has(ID) && entry.get(ID).getAsString().equals(id))
-					return true;
-			}
-		}
-		
-		return false;
+		return entries.find(id) >= 0;
 	}
 	
 	/** Get JsonObject by id.
 	 * 
 	 * @param id Id of the object.
-	 * @return The object with the given id, or null if no such object exists.
+	 * @return The object with the given id, or null if no such object exists. Changes to it are not reflected in 
+	 * this instance.
 	 */
 	@Nullable
 	public JsonObject get(String id) {
-		for(JsonElement element : data) {
-			if(element.isJsonObject()) {
-				JsonObject entry = element.getAsJsonObject();
-				
-				if(entry.has(ID) && entry.get(ID).getAsString().equals(id))
-					return entry;
-			}
+		int row = entries.find(id);
+		return row < 0 ? null : entries.getEntry(row);
+	}
+	
+	@Override
+	@Nullable
+	public JsonElement getValue(String id) {
+		int row = entries.find(id);
+		return row < 0 ? null : entries.getValue(row);
+	}
+	
+	/** Add a single entry to the data.
+	 * 
+	 * @param element The entry to add. Not kept, later changes to it are not reflected.
+	 */
+	public void add(JsonElement element) {
+		// Should only happen if users manually break the patch note data.
+		if(!element.isJsonObject()) {
+			System.out.println(String.format("Invalid entry: %s", element));
+			return;
 		}
 		
-		return null;
+		entries.add(element.getAsJsonObject());
 	}
-
+	
+	/** Add a single entry to the data straight from JSON.
+	 * 
+	 * @param in The reader, positioned at the entry, which must be an object.
+	 * @throws IOException If reading fails.
+	 */
+	void add(JsonReader in) throws IOException {
+		entries.add(in);
+	}
+	
+	/** Add all entries of other data to this data.
+	 * 
+	 * @param other The data to add the entries of.
+	 */
+	public void addAll(PatchNoteData other) {
+		entries.addAll(other.entries);
+	}
+	
+	/** Remove the entry with the specified id.
+	 * 
+	 * @param id The id of the entry to remove.
+	 * @return True if an entry was removed, false otherwise.
+	 */
+	public boolean remove(String id) {
+		int row = entries.find(id);
+		
+		if(row < 0)
+			return false;
+		
+		entries.remove(row);
+		return true;
+	}
+	
 	/** Sorts the data in this entry to enable easier handling of category generation.
+	 * Every entry gets a composite sort key up front (category rank, text rank, case-folded name), so the sort itself
+	 * never has to touch the JSON again. Entries are then reordered in place.
 	 * 
 	 * @param cats The category data to use for sorting.
 	 */
 	public void sortData(CategoryData cats) {
-		System.out.println("Sorting data: " + data);
-		List<JsonElement> list = data.asList();
-		Collections.sort(list, new CategoryComparator(cats));
-		Gson gson = new Gson();
-		data = gson.toJsonTree(list).getAsJsonArray();
+		sortData(cats, new CategoryPaths());
+	}
+	
+	/** Sorts the data in this entry to enable easier handling of category generation.
+	 * 
+	 * @param cats The category data to use for sorting.
+	 * @param paths The category ids of this run.
+	 */
+	private void sortData(CategoryData cats, CategoryPaths paths) {
+		System.out.println(String.format("Sorting %d entries", entries.size()));
+		int size = entries.size();
+		SortKey[] keys = new SortKey[size];
+		HashMap<String, Integer> ranks = rankCategories(cats, paths);
+		
+		for(int i = 0; i < size; i++)
+			keys[i] = new SortKey(entries, i, ranks);
+		
+		// Stable, so entries with equal keys keep their relative order just like with Collections.sort.
+		Arrays.parallelSort(keys);
+		int[] order = new int[size];
+		
+		for(int i = 0; i < size; i++)
+			order[i] = keys[i].index;
+		
+		entries.reorder(order);
+	}
+	
+	/** Rank all distinct categories used by the data. The rank of a category is its position in the patch notes.
+	 * 
+	 * @param cats The category data to use for ranking.
+	 * @param paths The category ids of this run.
+	 * @return Map from category id to rank.
+	 */
+	private HashMap<String, Integer> rankCategories(CategoryData cats, CategoryPaths paths) {
+		HashMap<String, Integer> ranks = new HashMap<>();
+		ranks.put("", 0);
+		
+		for(String cat : entries.getCategories())
+			ranks.put(cat, 0);
+		
+		List<CategoryPath> category_paths = new ArrayList<>();
+		
+		for(String cat : ranks.keySet())
+			category_paths.add(new CategoryPath(cat, cats, paths));
+		
+		Collections.sort(category_paths);
+		
+		for(int i = 0; i < category_paths.size(); i++)
+			ranks.put(category_paths.get(i).id, i);
+		
+		return ranks;
+	}
+	
+	/** Get category id of an entry.
+	 * 
+	 * @param entries The entries.
+	 * @param row The position of the entry to get the category id from.
+	 * @return The category id, or the empty String if no category id is present.
+	 */
+	private static String getCategory(EntryTable entries, int row) {
+		String category = entries.getCategory(row);
+		return category != null ? category : "";
+	}
+	
+	/** Fold the case of a String so that comparing folded Strings matches String.compareToIgnoreCase.
+	 * 
+	 * @param s The String to fold.
+	 * @return The folded String.
+	 */
+	private static String foldCase(String s) {
+		StringBuilder sb = new StringBuilder(s.length());
+		s.codePoints().forEach(cp -> sb.appendCodePoint(Character.toLowerCase(Character.toUpperCase(cp))));
+		return sb.toString();
 	}
 	
-	/** Comparator class for sorting with category data.
+	/** Precomputed sort key for a single entry.
 	 * 
 	 */
-	private class CategoryComparator implements Comparator<JsonElement>{
-		private CategoryData cats;
+	private static class SortKey implements Comparable<SortKey> {
+		// Text rank: regular text first, then developer comments, then everything else.
+		private static final int RANK_TEXT = 0;
+		private static final int RANK_DEVCOM = 1;
+		private static final int RANK_OTHER = 2;
+		
+		private final long rank;
+		private final String name;
+		private final int index;
 		
 		/** Constructor.
 		 * 
-		 * @param cats The category data to use.
+		 * @param entries The entries.
+		 * @param index The position of the entry before sorting.
+		 * @param ranks The category ranks.
 		 */
-		public CategoryComparator(CategoryData cats) {
-			this.cats = cats;
+		public SortKey(EntryTable entries, int index, HashMap<String, Integer> ranks) {
+			this.index = index;
+			int text_rank = entries.isText(index) ? (entries.isDeveloperComment(index) ? RANK_DEVCOM : RANK_TEXT) : RANK_OTHER;
+			String entry_name = entries.getName(index);
+			
+			rank = ((long) ranks.get(getCategory(entries, index)) << 2) | text_rank;
+			name = foldCase(entry_name != null ? entry_name : "");
+		}
+		
+		@Override
+		public int compareTo(SortKey other) {
+			int result = Long.compare(rank, other.rank);
+			return result != 0 ? result : name.compareTo(other.name);
 		}
+	}
+	
+	/** Category id split into its segments, with the priority and name of every segment prefix resolved up front.
+	 * Parent categories come before their sub-categories. Otherwise categories are ordered by the first segment prefix 
+	 * where they differ: first by priority, then by name. If those are equal too, the prefix ids themselves decide so 
+	 * that the order is always total.
+	 * 
+	 */
+	private static class CategoryPath implements Comparable<CategoryPath> {
+		private final String id;
+		private final String[] prefixes;
+		private final int[] prios;
+		private final String[] names;
 		
-		/** Get the priority of a given category id.
+		/** Constructor.
 		 * 
-		 * @param id The id of the category.
-		 * @return The priority of the category, or -1 of no such category exists.
+		 * @param id The category id.
+		 * @param cats The category data to resolve priorities and names with.
+		 * @param paths The category ids of this run, which already know the prefixes of the id.
 		 */
-		private int getPrio(String id) {
-			if (cats.contains(id)){
-				return cats.getPriority(id);
+		public CategoryPath(String id, CategoryData cats, CategoryPaths paths) {
+			this.id = id;
+			int[] indices = id.isEmpty() ? new int[0] : paths.getPrefixes(paths.intern(id));
+			prefixes = new String[indices.length];
+			prios = new int[indices.length];
+			names = new String[indices.length];
+			
+			for(int i = 0; i < indices.length; i++) {
+				prefixes[i] = paths.get(indices[i]);
+				prios[i] = cats.getPriority(prefixes[i]);
+				names[i] = foldCase(cats.getName(prefixes[i]));
 			}
+		}
+		
+		@Override
+		public int compareTo(CategoryPath other) {
+			int lowest = Math.min(prefixes.length, other.prefixes.length);
 			
-			return -1;
+			for(int i = 0; i < lowest; i++) {
+				if(!prefixes[i].equals(other.prefixes[i])) {
+					int result = Integer.compare(prios[i], other.prios[i]);
+					
+					if(result == 0)
+						result = names[i].compareTo(other.names[i]);
+					
+					return result != 0 ? result : prefixes[i].compareTo(other.prefixes[i]);
+				}
+			}
+			
+			// One is a parent category of the other, so the parent should come earlier.
+			return Integer.compare(prefixes.length, other.prefixes.length);
 		}
+	}
+	
+	/** Result of comparing a single entry, ready to be rendered.
+	 * 
+	 */
+	private static class ChangeRecord {
+		private final String text;
+		private final String category;
+		private final boolean is_text;
+		private final boolean is_developer_comment;
+		private final boolean bulleted;
 		
-		/** Get category id from a JsonObject.
+		/** Constructor.
 		 * 
-		 * @param jo The object to get the category id from.
-		 * @return The category id, or the empty String if no category id is present.
+		 * @param text The text to add to the patch notes.
+		 * @param category The category id, or null if the entry has no category.
+		 * @param is_text Whether this is text written by developers rather than a detected change.
+		 * @param is_developer_comment Whether the text is a developer comment.
+		 * @param bulleted Whether the change should be bulleted.
 		 */
-		private String getCat(JsonObject jo) {
-			if (jo.has(CATEGORY))
-				return jo.get(CATEGORY).getAsString();
-			
-			return "";
+		public ChangeRecord(String text, @Nullable String category, boolean is_text, boolean is_developer_comment, 
+				boolean bulleted) {
+			this.text = text;
+			this.category = category;
+			this.is_text = is_text;
+			this.is_developer_comment = is_developer_comment;
+			this.bulleted = bulleted;
 		}
+	}
+	
+	/** Fork-join task comparing a range of entries. Ranges are split until they are small enough, and every result is
+	 * written to the slot matching its entry, so the records stay in the same order as the entries.
+	 * 
+	 */
+	private static class CompareTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private static final int THRESHOLD = 1024;
+		
+		private final SnapshotLookup old_data;
+		private final PatchNoteData data;
+		private final ChangeRecord[] records;
+		private final int from;
+		private final int to;
 		
-		/** Get display name from a JsonObject.
+		/** Constructor.
 		 * 
-		 * @param jo The object to get the display name from.
-		 * @return The display name, or the empty String if no category id is present.
+		 * @param old_data The old data to compare to.
+		 * @param data The data holding the entries to compare.
+		 * @param records The array to write the results to.
+		 * @param from The start of the range, inclusive.
+		 * @param to The end of the range, exclusive.
 		 */
-		private String getName(JsonObject jo) {
-			if (jo.has(NAME)){
-				return jo.get(NAME).getAsString();
-			}
-			
-			return "";
+		public CompareTask(SnapshotLookup old_data, PatchNoteData data, ChangeRecord[] records, int from, int to) {
+			this.old_data = old_data;
+			this.data = data;
+			this.records = records;
+			this.from = from;
+			this.to = to;
 		}
 		
 		@Override
-		public int compare(JsonElement o1, JsonElement o2) {
-			if(o1.isJsonObject() && o2.isJsonObject()) {
-				JsonObject jo1 = o1.getAsJsonObject();
-				JsonObject jo2 = o2.getAsJsonObject();
-				String cat1 = getCat(jo1);
-				String cat2 = getCat(jo2);
-				
-				// If categories are equal, than do lexicographically
-				if(cat1.equals(cat2)) {
-					// Text is more important.
-					boolean is_jo1_text = jo1.has(IS_TEXT) ? jo1.get(IS_TEXT).getAsBoolean() : false;
-					boolean is_jo2_text = jo2.has(IS_TEXT) ? jo2.get(IS_TEXT).getAsBoolean() : false;
-					
-					if(is_jo1_text && !is_jo2_text)
-						return -1;
-					
-					if(!is_jo1_text && is_jo2_text)
-						return 1;
-					
-					// If both text, developer comments are lower priority than regular text.
-					if(is_jo1_text && is_jo2_text) {
-						boolean is_jo1_devcom = jo1.has(DEVELOPER_COMMENT) ? jo1.get(DEVELOPER_COMMENT).getAsBoolean() : false;
-						boolean is_jo2_devcom = jo2.has(DEVELOPER_COMMENT) ? jo2.get(DEVELOPER_COMMENT).getAsBoolean() : false;
-						
-						if(is_jo1_devcom && !is_jo2_devcom)
-							return 1;
-						
-						if(!is_jo1_devcom && is_jo2_devcom)
-							return -1;
-					}
-					
-					return getName(jo1).compareToIgnoreCase(getName(jo2));
-				}
+		protected void compute() {
+			if(to - from <= THRESHOLD) {
+				for(int i = from; i < to; i++)
+					records[i] = data.compareEntry(old_data, i);
 				
-				// Cat1 is sub-category of cat2, so it should come later
-				if(cat1.startsWith(cat2))
-					return 1;
-				
-				// Cat 1 is parent category of cat2, so it should come earlier
-				if(cat2.startsWith(cat1))
-					return -1;
-				
-				// Objects belong to different categories, so find out where they differ
-				String[] parts1 = cat1.split("\\.");
-				String[] parts2 = cat2.split("\\.");
-				String temp1 = "";
-				String temp2 = "";
-				
-				int lowest = parts1.length > parts2.length ? parts2.length : parts1.length;
-				
-				for(int i = 0; i < lowest; i++) {
-					temp1 += parts1[i];
-					temp2 += parts2[i];
-					
-					// If id mismatches at this point, then compare priority
-					if(!temp1.equals(temp2)) {
-						int prio1 = getPrio(temp1);
-						int prio2 = getPrio(temp2);
-						int result = Integer.compare(prio1, prio2);
-						
-						if(result != 0)
-							return result;
-						
-						return cats.getName(temp1).compareToIgnoreCase(cats.getName(temp2));
-					}
-					
-					temp1 += ".";
-					temp2 += ".";
-				}
+				return;
 			}
 			
-			// Should only happen if users manually break the patch note data, in which case all bets are off.
-			// If nothing messed with category data, this statement should never be reached as all cases are covered above.
-			return -1; 
+			int mid = (from + to) >>> 1;
+			invokeAll(new CompareTask(old_data, data, records, from, mid), 
+					new CompareTask(old_data, data, records, mid, to));
 		}
 	}
 }
@@ -0,0 +1,85 @@
+package slimeattack07.patchgen;
+
+/** Asks the user for input and informs them of the progress while generating patch notes. The dialogs in the view 
+ * screen are one way of doing so, see {@link DialogPrompter}. Batch generation answers from its arguments instead, see
+ * {@link HeadlessPrompter}. The titles below identify the questions a batch run may have to answer.
+ * 
+ */
+public interface Prompter {
+	public static final String NEW_VERSION = "PatchGen: Version input";
+	public static final String OVERWRITE_VERSION = "PatchGen: Version overwrite";
+	public static final String OLD_VERSION = "Version input";
+	public static final String OUTPUT_FORMAT = "PatchGen: Specify output format";
+	public static final String AUTHOR = "PatchGen: Author input";
+	public static final String STYLE = "PatchGen: Style input";
+	public static final String SCRIPT_INCLUSION = "PatchGen: Script inclusion";
+	public static final String SCRIPTS = "PatchGen: Script input";
+	public static final String RESET_TEXT = "PatchGen: Reset text file";
+	public static final String OVERWRITE_FILE = "PatchGen: File Request";
+	public static final String CATEGORY_NAME = "PatchGen: Category name";
+	public static final String CATEGORY_PRIORITY = "PatchGen: Category priority";
+	
+	/** Get the title of a question about a single category, so a batch run can answer it per category.
+	 * 
+	 * @param title {@link #CATEGORY_NAME} or {@link #CATEGORY_PRIORITY}.
+	 * @param id The id of the category.
+	 * @return The title.
+	 */
+	public static String forCategory(String title, String id) {
+		return String.format("%s '%s'", title, id);
+	}
+	
+	/** Display error to user.
+	 * 
+	 * @param title Title of the message.
+	 * @param message The message.
+	 */
+	public void displayError(String title, String message);
+	
+	/** Display warning to user.
+	 * 
+	 * @param title Title of the message.
+	 * @param message The message.
+	 */
+	public void displayWarning(String title, String message);
+	
+	/** Display information to user.
+	 * 
+	 * @param title Title of the message.
+	 * @param message The message.
+	 */
+	public void displayInfo(String title, String message);
+	
+	/** Ask user a yes/no question.
+	 * 
+	 * @param title Title of the question.
+	 * @param message The question.
+	 * @return True if user answered yes, false otherwise.
+	 */
+	public boolean displayYesNo(String title, String message);
+	
+	/** Request user for a positive integer.
+	 * 
+	 * @param title Title of the question.
+	 * @param message The question.
+	 * @return The input positive integer, or -1 if user canceled.
+	 */
+	public int displayPositiveIntInput(String title, String message);
+	
+	/** Request user for non-empty input.
+	 * 
+	 * @param title Title of the question.
+	 * @param message The question.
+	 * @param banned The Strings that are not allowed as input.
+	 * @return The input text, or "NOTHING" if user canceled.
+	 */
+	public String displayNotBlankInput(String title, String message, String... banned);
+	
+	/** Request user for output formats.
+	 * 
+	 * @param title Title of the question.
+	 * @param message The question.
+	 * @return The input formats, separated by commas, or "NOTHING" if user canceled.
+	 */
+	public String displayOutputVersionInput(String title, String message);
+}
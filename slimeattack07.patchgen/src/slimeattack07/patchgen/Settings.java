@@ -0,0 +1,96 @@
+package slimeattack07.patchgen;
+
+/** Utility class for settings that can be tuned per installation. Settings are read from system properties, so they
+ * can be passed with -D in eclipse.ini or on the command line.
+ * 
+ */
+public class Settings {
+	public static final String DIFF_MEMORY_BUDGET = "patchgen.diff.budget";
+	public static final String STORAGE_MODE = "patchgen.storage";
+	public static final String KEYFRAME_INTERVAL = "patchgen.storage.keyframe";
+	public static final String SCAN_THREADS = "patchgen.scan.threads";
+	public static final String EXTRACTOR = "patchgen.extractor";
+	public static final String BUILDER_DELAY = "patchgen.builder.delay";
+	public static final String PARSED_CACHE_SIZE = "patchgen.cache.size";
+	public static final String NUMERIC_DELTA = "patchgen.notes.delta";
+	
+	/** Get the maximum amount of entries the diff engine may keep in memory per snapshot. Larger snapshots are sorted
+	 * with spill files instead.
+	 * 
+	 * @return The memory budget in entries.
+	 */
+	public static int getDiffMemoryBudget() {
+		return Math.max(1, Integer.getInteger(DIFF_MEMORY_BUDGET, 250000));
+	}
+	
+	/** Check if new versions should be stored as delta against their predecessor. Set the storage mode to "delta" to
+	 * enable this, any other value stores every version in full.
+	 * 
+	 * @return True if deltas should be stored, false otherwise.
+	 */
+	public static boolean isDeltaStorage() {
+		return "delta".equalsIgnoreCase(System.getProperty(STORAGE_MODE, "full"));
+	}
+	
+	/** Get how often a version is stored in full when storing deltas. A keyframe interval of 10 means that at most 9
+	 * deltas have to be applied to reconstruct a version.
+	 * 
+	 * @return The keyframe interval in versions.
+	 */
+	public static int getKeyframeInterval() {
+		return Math.max(1, Integer.getInteger(KEYFRAME_INTERVAL, 10));
+	}
+	
+	/** Get the maximum amount of package fragments that are scanned at the same time.
+	 * 
+	 * @return The amount of scan workers.
+	 */
+	public static int getScanThreads() {
+		return Math.max(1, Integer.getInteger(SCAN_THREADS, Math.min(4, Runtime.getRuntime().availableProcessors())));
+	}
+	
+	/** Get the name of the extractor used to find watched constants, "model", "ast", "bytecode" or "current".
+	 * 
+	 * @return The name of the extractor.
+	 */
+	public static String getExtractor() {
+		return System.getProperty(EXTRACTOR, "model").strip().toLowerCase();
+	}
+	
+	/** Get the time the snapshot builder waits after a build before scanning. Builds within that time restart the wait,
+	 * so a burst of saves results in a single scan.
+	 * 
+	 * @return The delay in milliseconds.
+	 */
+	public static long getBuilderDelay() {
+		return Math.max(0, Long.getLong(BUILDER_DELAY, 1000));
+	}
+	
+	/** Get the maximum amount of parsed data files that are kept in memory, see {@link ParsedDataCache}.
+	 * 
+	 * @return The amount of files.
+	 */
+	public static int getParsedCacheSize() {
+		return Math.max(1, Integer.getInteger(PARSED_CACHE_SIZE, 32));
+	}
+	
+	/** Check if changed numbers should mention by how much they changed. Set the numeric delta to "absolute" or "both"
+	 * to enable this.
+	 * 
+	 * @return True if the absolute difference should be added, false otherwise.
+	 */
+	public static boolean isAbsoluteDelta() {
+		String delta = System.getProperty(NUMERIC_DELTA, "none").strip().toLowerCase();
+		return delta.equals("absolute") || delta.equals("both");
+	}
+	
+	/** Check if changed numbers should mention by what percentage they changed. Set the numeric delta to "percentage"
+	 * or "both" to enable this.
+	 * 
+	 * @return True if the percentage should be added, false otherwise.
+	 */
+	public static boolean isPercentageDelta() {
+		String delta = System.getProperty(NUMERIC_DELTA, "none").strip().toLowerCase();
+		return delta.equals("percentage") || delta.equals("both");
+	}
+}
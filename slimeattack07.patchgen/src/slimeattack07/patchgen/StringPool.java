@@ -0,0 +1,125 @@
+package slimeattack07.patchgen;
+
+import java.util.Arrays;
+
+/** Table of interned Strings. Every distinct String gets a small index, handed out in the order the Strings were first
+ * added, so that data can refer to a String by index instead of holding a copy of its own. Lookups use open addressing
+ * on an int array, so an interned String costs a few bytes on top of the String itself instead of a map entry.
+ * Not thread-safe while Strings are being added, but lookups alone may come from several threads at once.
+ * 
+ */
+class StringPool {
+	private String[] strings;
+	// Index + 1 of the String in every slot, 0 for an empty slot.
+	private int[] slots;
+	private int size = 0;
+	
+	/** Constructor.
+	 * 
+	 */
+	public StringPool() {
+		strings = new String[16];
+		slots = new int[32];
+	}
+	
+	/** Constructor. Copies another pool, the copy can be changed without affecting the original.
+	 * 
+	 * @param other The pool to copy.
+	 */
+	public StringPool(StringPool other) {
+		strings = Arrays.copyOf(other.strings, other.strings.length);
+		slots = Arrays.copyOf(other.slots, other.slots.length);
+		size = other.size;
+	}
+	
+	/** Get the index of a String, adding it if it isn't in the pool yet.
+	 * 
+	 * @param s The String.
+	 * @return The index.
+	 */
+	public int intern(String s) {
+		int slot = findSlot(s);
+		
+		if(slots[slot] != 0)
+			return slots[slot] - 1;
+		
+		if(size == strings.length)
+			strings = Arrays.copyOf(strings, size * 2);
+		
+		strings[size] = s;
+		slots[slot] = ++size;
+		
+		// Keep at least half of the slots empty so probe sequences stay short.
+		if(size * 2 > slots.length)
+			rehash();
+		
+		return size - 1;
+	}
+	
+	/** Get the index of a String without adding it.
+	 * 
+	 * @param s The String.
+	 * @return The index, or -1 if the String is not in the pool.
+	 */
+	public int find(String s) {
+		return slots[findSlot(s)] - 1;
+	}
+	
+	/** Get the String with an index.
+	 * 
+	 * @param index The index.
+	 * @return The String.
+	 */
+	public String get(int index) {
+		return strings[index];
+	}
+	
+	/** Get the amount of Strings in the pool. Indices run from 0 up to this amount.
+	 * 
+	 * @return The amount of Strings.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/** Find the slot of a String.
+	 * 
+	 * @param s The String.
+	 * @return The slot holding the String, or the empty slot where it would be added.
+	 */
+	private int findSlot(String s) {
+		int mask = slots.length - 1;
+		int slot = spread(s.hashCode()) & mask;
+		
+		while(slots[slot] != 0 && !strings[slots[slot] - 1].equals(s))
+			slot = (slot + 1) & mask;
+		
+		return slot;
+	}
+	
+	/** Double the amount of slots and place all Strings again.
+	 * 
+	 */
+	private void rehash() {
+		slots = new int[slots.length * 2];
+		int mask = slots.length - 1;
+		
+		for(int i = 0; i < size; i++) {
+			int slot = spread(strings[i].hashCode()) & mask;
+			
+			while(slots[slot] != 0)
+				slot = (slot + 1) & mask;
+			
+			slots[slot] = i + 1;
+		}
+	}
+	
+	/** Mix the high bits of a hash code into the low bits, which are the only ones used to pick a slot.
+	 * 
+	 * @param hash The hash code.
+	 * @return The mixed hash code.
+	 */
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,66 @@
+package slimeattack07.patchgen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.core.commands.AbstractHandler;
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.resources.ICommand;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.runtime.CoreException;
+
+import slimeattack07.patchgen.scanning.Extractors;
+import slimeattack07.patchgen.scanning.SnapshotBuilder;
+
+/** Handler for the 'snapshot builder' button in the view screen. Adds the snapshot builder to the active project, or
+ * removes it if the project already has it.
+ * 
+ */
+public class ToggleSnapshotBuilderHandler extends AbstractHandler {
+	
+	@Override
+	public Object execute(ExecutionEvent event) throws ExecutionException {
+		IProject project = Utils.getProject();
+		
+		if(project == null) {
+			System.out.println("Failed to load active project");
+			Utils.displayError("PatchGen: Snapshot builder", "Failed to load active project.");
+			return null;
+		}
+		
+		boolean enabled;
+		
+		try {
+			IProjectDescription description = project.getDescription();
+			List<ICommand> commands = new ArrayList<>(Arrays.asList(description.getBuildSpec()));
+			enabled = !commands.removeIf(command -> SnapshotBuilder.ID.equals(command.getBuilderName()));
+			
+			if(enabled) {
+				ICommand command = description.newCommand();
+				command.setBuilderName(SnapshotBuilder.ID);
+				commands.add(command);
+			}
+			
+			description.setBuildSpec(commands.toArray(new ICommand[0]));
+			project.setDescription(description, null);
+		} catch (CoreException e) {
+			e.printStackTrace();
+			Utils.displayError("PatchGen: Snapshot builder", "Failed to change the builders of the project.");
+			return null;
+		}
+		
+		if(enabled) {
+			// The builder only reacts to changes, so the snapshot is created right away.
+			SnapshotBuilder.schedule(project);
+			Utils.displayInfo("PatchGen: Snapshot builder", String.format("Enabled the snapshot builder. Set '%s' to '%s' to "
+					+ "generate patch notes from src/patchgen/data/current.json.", Settings.EXTRACTOR, Extractors.CURRENT));
+		}
+		else
+			Utils.displayInfo("PatchGen: Snapshot builder", "Disabled the snapshot builder.");
+		
+		return null;
+	}
+}
@@ -1,6 +1,5 @@
 package slimeattack07.patchgen;
 
-import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 
@@ -61,28 +60,19 @@ public class Utils {
 	 * @param dir The patchgen subdirectory to put the file in.
 	 * @param name The name of the file.
 	 * @param extension The extension of the file.
+	 * @param prompter The prompter to ask the user with.
 	 * @return The file to dump data in, or null if an error occurred or user refuses to overwrite.
 	 */
 	@Nullable
-	public static IFile requestUniqueFile(IProject project, String dir, String name, String extension) {
+	public static IFile requestUniqueFile(IProject project, String dir, String name, String extension, Prompter prompter) {
 		IFile ifile = requestFile(project, dir, name, extension);
 		
 		if(ifile.exists()) {
-			boolean overwrite = Utils.displayYesNo("PatchGen: File Request", 
+			boolean overwrite = prompter.displayYesNo(Prompter.OVERWRITE_FILE, 
 					String.format("File 'patchgen/%s/%s.%s' already exists. Would you like to overwrite it?", dir, name, extension));
 			
-			// Clear contents if overwrite is allowed.
-			if(overwrite) {
-				try {
-					ifile.setContents(new ByteArrayInputStream("".getBytes()), false, true, null);
-				} catch (CoreException e) {
-					e.printStackTrace();
-				}
-				
-				return ifile;
-			}
-			
-			return null;
+			// The contents are replaced once the file is written, see AbstractPatchNoteGenerator.
+			return overwrite ? ifile : null;
 		}
 		
 		return ifile;
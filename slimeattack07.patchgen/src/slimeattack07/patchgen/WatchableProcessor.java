@@ -0,0 +1,297 @@
+package slimeattack07.patchgen;
+
+/** Class holding the annotation processor code for the CodeGen handler. The processor writes the snapshot while the
+ * project compiles, see {@link slimeattack07.patchgen.scanning.Extractors#CURRENT}.
+ * 
+ */
+public class WatchableProcessor{
+	/** Returns the code.
+	 * 
+	 * @return The code.
+	 */
+	public static String getCode() {
+		return """
+package patchgen.processor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+
+/** Collects the constants annotated with @Watchable while the project compiles, and writes them as PatchGen snapshot.
+ * PatchGen reads this snapshot instead of scanning the project when its extractor is set to "current".
+ * 
+ * To use it, compile this package into its own jar together with META-INF/services/javax.annotation.processing.Processor
+ * and put that jar on the annotation processor path. The snapshot is written to the file given by the option
+ * -Apatchgen.output, or to src/patchgen/data/current.json relative to the working directory.
+ * 
+ * Incremental builds only pass the changed types to the processor. Entries of types that were not compiled again are
+ * kept, as long as the types still exist.
+ */
+@SupportedAnnotationTypes({"patchgen.annotations.Watchable", "patchgen.annotations.CategoryInfo"})
+@SupportedOptions(WatchableProcessor.OUTPUT)
+public class WatchableProcessor extends AbstractProcessor {
+	public static final String OUTPUT = "patchgen.output";
+	public static final String DEFAULT_OUTPUT = "src/patchgen/data/current.json";
+	
+	private final Map<String, String> entries = new TreeMap<>();
+	private final Map<String, String> owners = new TreeMap<>();
+	private final Set<String> compiled = new HashSet<>();
+	
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+	
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+		for (Element root : round.getRootElements())
+			collectTypes(root);
+		
+		for (TypeElement annotation : annotations) {
+			if (!annotation.getSimpleName().contentEquals("Watchable"))
+				continue;
+			
+			for (Element element : round.getElementsAnnotatedWith(annotation))
+				if (element.getKind() == ElementKind.FIELD)
+					processField((VariableElement) element, annotation);
+		}
+		
+		if (round.processingOver())
+			write();
+		
+		return false;
+	}
+	
+	/** Remember all types compiled in this build, so their previous entries can be replaced. */
+	private void collectTypes(Element element) {
+		if (element instanceof TypeElement) {
+			compiled.add(((TypeElement) element).getQualifiedName().toString());
+			
+			for (Element enclosed : element.getEnclosedElements())
+				collectTypes(enclosed);
+		}
+	}
+	
+	/** Turn a watched constant into an entry. */
+	private void processField(VariableElement field, TypeElement watchable) {
+		Object constant = getConstant(field);
+		
+		if (constant == null)
+			return;
+		
+		TypeElement type = (TypeElement) field.getEnclosingElement();
+		String category = getClassCategory(type);
+		StringBuilder json = new StringBuilder("{\\"value\\":").append(toJson(constant));
+		String id = null;
+		
+		for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+			if (!mirror.getAnnotationType().asElement().equals(watchable))
+				continue;
+			
+			// Only explicitly set members are stored, defaults are up to PatchGen.
+			for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> pair : mirror.getElementValues().entrySet()) {
+				String member = pair.getKey().getSimpleName().toString();
+				Object value = pair.getValue().getValue();
+				
+				switch (member) {
+				case "id":
+					id = value.toString();
+					json.append(",\\"id\\":").append(toJson(id));
+					break;
+				case "category":
+					if (category.isBlank())
+						json.append(",\\"category\\":").append(toJson(value.toString()));
+					
+					break;
+				case "name":
+					json.append(",\\"name\\":").append(toJson(value.toString()));
+					break;
+				case "bulleted":
+					json.append(",\\"bulleted\\":").append(value);
+					break;
+				default:
+					break;
+				}
+			}
+		}
+		
+		if (!category.isBlank())
+			json.append(",\\"category\\":").append(toJson(category));
+		
+		if (id == null) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Watched constant without id", field);
+			return;
+		}
+		
+		// The first entry for an id is kept, like PatchGen does when reading a snapshot.
+		if (!entries.containsKey(id)) {
+			entries.put(id, json.append('}').toString());
+			owners.put(id, type.getQualifiedName().toString());
+		}
+	}
+	
+	/** Get the category id of a class from its @CategoryInfo annotation, or the empty String if it has none. */
+	private String getClassCategory(TypeElement type) {
+		for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+			if (!mirror.getAnnotationType().asElement().getSimpleName().contentEquals("CategoryInfo"))
+				continue;
+			
+			for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> pair : mirror.getElementValues().entrySet())
+				if (pair.getKey().getSimpleName().contentEquals("id"))
+					return pair.getValue().getValue().toString();
+		}
+		
+		return "";
+	}
+	
+	/** Get the constant value of a field in the form PatchGen stores it, or null if the field is not a constant. */
+	private static Object getConstant(VariableElement field) {
+		Set<Modifier> modifiers = field.getModifiers();
+		Object value = field.getConstantValue();
+		
+		if (value == null || !modifiers.contains(Modifier.STATIC) || !modifiers.contains(Modifier.FINAL))
+			return null;
+		
+		// Strings are stored as they are written in the source, quotes included.
+		if (value instanceof String)
+			return quote((String) value);
+		
+		// Only characters that are written as is are stored, not escape sequences.
+		if (value instanceof Character) {
+			char c = (Character) value;
+			return Character.isISOControl(c) || c == '\\\\' || c == '\\'' ? null : c;
+		}
+		
+		return value;
+	}
+	
+	/** Read the entries of types that were not compiled in this build from the previous snapshot. */
+	private void readPrevious(Path owners_file) throws IOException {
+		if (!Files.isRegularFile(owners_file))
+			return;
+		
+		for (String line : Files.readAllLines(owners_file, StandardCharsets.UTF_8)) {
+			String[] parts = line.split("\\t", 3);
+			
+			if (parts.length != 3 || entries.containsKey(parts[0]) || compiled.contains(parts[1]))
+				continue;
+			
+			// Types that were deleted since the previous build no longer contribute entries.
+			if (processingEnv.getElementUtils().getTypeElement(parts[1]) != null) {
+				entries.put(parts[0], parts[2]);
+				owners.put(parts[0], parts[1]);
+			}
+		}
+	}
+	
+	/** Write the snapshot, sorted by id, and the owning types of all entries next to it. */
+	private void write() {
+		Path output = Paths.get(processingEnv.getOptions().getOrDefault(OUTPUT, DEFAULT_OUTPUT));
+		Path owners_file = output.resolveSibling(output.getFileName() + ".owners");
+		
+		try {
+			readPrevious(owners_file);
+			
+			if (output.getParent() != null)
+				Files.createDirectories(output.getParent());
+			
+			List<String> lines = new ArrayList<>();
+			StringBuilder json = new StringBuilder("{\\"meta\\":{\\"sorted_by_id\\":true},\\"data\\":[");
+			boolean first = true;
+			
+			for (Map.Entry<String, String> entry : entries.entrySet()) {
+				json.append(first ? "" : ",").append(System.lineSeparator()).append(entry.getValue());
+				lines.add(entry.getKey() + "\\t" + owners.get(entry.getKey()) + "\\t" + entry.getValue());
+				first = false;
+			}
+			
+			json.append("]}");
+			Files.write(output, json.toString().getBytes(StandardCharsets.UTF_8));
+			Files.write(owners_file, lines, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write snapshot: " + e.getMessage());
+		}
+	}
+	
+	/** Write a value as JSON. */
+	private static String toJson(Object value) {
+		if (value instanceof Number || value instanceof Boolean)
+			return value.toString();
+		
+		String text = value.toString();
+		StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+		
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			
+			if (c == '"' || c == '\\\\')
+				sb.append('\\\\').append(c);
+			else if (c < 0x20)
+				sb.append(String.format("\\\\u%04x", (int) c));
+			else
+				sb.append(c);
+		}
+		
+		return sb.append('"').toString();
+	}
+	
+	/** Quote a String the way it is written as literal in the source. */
+	private static String quote(String value) {
+		StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+		
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			
+			switch (c) {
+			case '"': sb.append("\\\\\\""); break;
+			case '\\\\': sb.append("\\\\\\\\"); break;
+			case '\\n': sb.append("\\\\n"); break;
+			case '\\r': sb.append("\\\\r"); break;
+			case '\\t': sb.append("\\\\t"); break;
+			case '\\b': sb.append("\\\\b"); break;
+			case '\\f': sb.append("\\\\f"); break;
+			default:
+				if (Character.isISOControl(c))
+					sb.append(String.format("\\\\u%04x", (int) c));
+				else
+					sb.append(c);
+			}
+		}
+		
+		return sb.append('"').toString();
+	}
+}
+		""";
+	}
+	
+	/** Returns the service entry that registers the processor with javac.
+	 * 
+	 * @return The service entry.
+	 */
+	public static String getService() {
+		return "patchgen.processor.WatchableProcessor\n";
+	}
+}
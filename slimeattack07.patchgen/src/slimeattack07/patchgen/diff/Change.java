@@ -0,0 +1,76 @@
+package slimeattack07.patchgen.diff;
+
+import com.google.gson.JsonObject;
+
+import slimeattack07.patchgen.Nullable;
+
+/** A single difference between two snapshots.
+ * 
+ */
+public class Change {
+	private final String id;
+	private final JsonObject old_entry;
+	private final JsonObject new_entry;
+	
+	/** Constructor.
+	 * 
+	 * @param id The id of the entry.
+	 * @param old_entry The entry in the old snapshot, or null if it was added.
+	 * @param new_entry The entry in the new snapshot, or null if it was removed.
+	 */
+	public Change(String id, @Nullable JsonObject old_entry, @Nullable JsonObject new_entry) {
+		this.id = id;
+		this.old_entry = old_entry;
+		this.new_entry = new_entry;
+	}
+	
+	/** Get the id of the entry.
+	 * 
+	 * @return The id.
+	 */
+	public String getId() {
+		return id;
+	}
+	
+	/** Get the entry in the old snapshot.
+	 * 
+	 * @return The old entry, or null if the entry was added.
+	 */
+	@Nullable
+	public JsonObject getOldEntry() {
+		return old_entry;
+	}
+	
+	/** Get the entry in the new snapshot.
+	 * 
+	 * @return The new entry, or null if the entry was removed.
+	 */
+	@Nullable
+	public JsonObject getNewEntry() {
+		return new_entry;
+	}
+	
+	/** Whether the entry only exists in the new snapshot.
+	 * 
+	 * @return True if the entry was added.
+	 */
+	public boolean isAdded() {
+		return old_entry == null;
+	}
+	
+	/** Whether the entry only exists in the old snapshot.
+	 * 
+	 * @return True if the entry was removed.
+	 */
+	public boolean isRemoved() {
+		return new_entry == null;
+	}
+	
+	/** Whether the entry exists in both snapshots, but differs.
+	 * 
+	 * @return True if the entry was changed.
+	 */
+	public boolean isChanged() {
+		return old_entry != null && new_entry != null;
+	}
+}
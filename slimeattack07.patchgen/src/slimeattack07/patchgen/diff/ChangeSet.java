@@ -0,0 +1,148 @@
+package slimeattack07.patchgen.diff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import com.google.gson.JsonObject;
+
+import slimeattack07.patchgen.PatchNoteData;
+
+/** All differences between two snapshots, in id order.
+ * 
+ */
+public class ChangeSet {
+	private final List<Change> changes;
+	
+	/** Constructor.
+	 * 
+	 * @param changes The changes, in id order.
+	 */
+	public ChangeSet(List<Change> changes) {
+		this.changes = changes;
+	}
+	
+	/** Get all changes.
+	 * 
+	 * @return The changes, in id order.
+	 */
+	public List<Change> getChanges() {
+		return Collections.unmodifiableList(changes);
+	}
+	
+	/** Get the entries that exist in both snapshots, but differ.
+	 * 
+	 * @return The changed entries, in id order.
+	 */
+	public List<Change> getChanged() {
+		return filter(Change::isChanged);
+	}
+	
+	/** Get the entries that only exist in the new snapshot.
+	 * 
+	 * @return The added entries, in id order.
+	 */
+	public List<Change> getAdded() {
+		return filter(Change::isAdded);
+	}
+	
+	/** Get the entries that only exist in the old snapshot.
+	 * 
+	 * @return The removed entries, in id order.
+	 */
+	public List<Change> getRemoved() {
+		return filter(Change::isRemoved);
+	}
+	
+	/** Whether the snapshots are equal.
+	 * 
+	 * @return True if there are no changes.
+	 */
+	public boolean isEmpty() {
+		return changes.isEmpty();
+	}
+	
+	/** Get the new side of the changed entries, in the form the patch note generation expects.
+	 * 
+	 * @return The new data of all changed entries.
+	 */
+	public PatchNoteData getNewData() {
+		PatchNoteData data = new PatchNoteData();
+		
+		for(Change change : changes)
+			if(change.isChanged())
+				data.add(change.getNewEntry());
+		
+		return data;
+	}
+	
+	/** Get the old side of the changed entries, in the form the patch note generation expects.
+	 * 
+	 * @return The old data of all changed entries.
+	 */
+	public PatchNoteData getOldData() {
+		PatchNoteData data = new PatchNoteData();
+		
+		for(Change change : changes)
+			if(change.isChanged())
+				data.add(change.getOldEntry());
+		
+		return data;
+	}
+	
+	/** Combine this change set with the change set that follows it. The result holds the net change from the old side
+	 * of this change set to the new side of the later one. Changes that cancel each other out, such as an entry that 
+	 * was added and then removed again, or changed and then changed back, are dropped.
+	 * 
+	 * @param later The change set from the new side of this change set to a later snapshot.
+	 * @return The combined changes.
+	 */
+	public ChangeSet then(ChangeSet later) {
+		List<Change> result = new ArrayList<>(changes.size() + later.changes.size());
+		int i = 0;
+		int j = 0;
+		
+		while(i < changes.size() || j < later.changes.size()) {
+			int compare;
+			
+			if(i == changes.size())
+				compare = 1;
+			else if(j == later.changes.size())
+				compare = -1;
+			else
+				compare = changes.get(i).getId().compareTo(later.changes.get(j).getId());
+			
+			if(compare < 0)
+				result.add(changes.get(i++));
+			else if(compare > 0)
+				result.add(later.changes.get(j++));
+			else {
+				Change first = changes.get(i++);
+				Change second = later.changes.get(j++);
+				JsonObject old_entry = first.getOldEntry();
+				JsonObject new_entry = second.getNewEntry();
+				
+				if(old_entry == null ? new_entry != null : (new_entry == null || !DiffEngine.isSame(old_entry, new_entry)))
+					result.add(new Change(first.getId(), old_entry, new_entry));
+			}
+		}
+		
+		return new ChangeSet(result);
+	}
+	
+	/** Get the changes matching a condition.
+	 * 
+	 * @param condition The condition.
+	 * @return The matching changes, in id order.
+	 */
+	private List<Change> filter(Predicate<Change> condition) {
+		List<Change> result = new ArrayList<>();
+		
+		for(Change change : changes)
+			if(condition.test(change))
+				result.add(change);
+		
+		return result;
+	}
+}
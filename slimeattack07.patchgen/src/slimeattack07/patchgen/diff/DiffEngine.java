@@ -0,0 +1,210 @@
+package slimeattack07.patchgen.diff;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import slimeattack07.patchgen.PatchNoteData;
+import slimeattack07.patchgen.snapshots.SnapshotException;
+import slimeattack07.patchgen.snapshots.SnapshotHash;
+import slimeattack07.patchgen.snapshots.SnapshotSource;
+
+/** Computes the differences between two snapshots in a single merge-join pass over both snapshots in id order.
+ * Snapshots that aren't stored in id order are sorted first, see {@link IdSorter}.
+ * 
+ */
+public class DiffEngine {
+	
+	/** Compute the differences between two snapshots. An entry counts as changed if any of its fields differ, so 
+	 * callers decide themselves which changes are worth mentioning. If an id occurs more than once in a snapshot, only
+	 * its first entry is used.
+	 * 
+	 * @param old_source The entries of the old snapshot. Will be closed by this method.
+	 * @param new_source The entries of the new snapshot. Will be closed by this method.
+	 * @param budget The maximum amount of entries to keep in memory per snapshot while sorting.
+	 * @return The differences.
+	 * @throws IOException If reading fails.
+	 */
+	public static ChangeSet diff(SnapshotSource old_source, SnapshotSource new_source, int budget) throws IOException {
+		return diff(old_source, new_source, budget, Collections.emptySet());
+	}
+	
+	/** Compute the differences between two snapshots, skipping the comparison of entries in categories that are known
+	 * to be unchanged, see {@link SnapshotHash#getUnchangedCategories(SnapshotHash)}.
+	 * 
+	 * @param old_source The entries of the old snapshot. Will be closed by this method.
+	 * @param new_source The entries of the new snapshot. Will be closed by this method.
+	 * @param budget The maximum amount of entries to keep in memory per snapshot while sorting.
+	 * @param unchanged The ids of the categories that hold the same entries in both snapshots.
+	 * @return The differences.
+	 * @throws IOException If reading fails.
+	 */
+	public static ChangeSet diff(SnapshotSource old_source, SnapshotSource new_source, int budget, Set<String> unchanged) 
+			throws IOException {
+		try(SnapshotSource old_raw = old_source;
+				SnapshotSource new_raw = new_source;
+				SnapshotSource old_sorted = IdSorter.sort(old_raw, budget);
+				SnapshotSource new_sorted = IdSorter.sort(new_raw, budget)){
+			List<Change> changes = new ArrayList<>();
+			Cursor old_cursor = new Cursor(old_sorted);
+			Cursor new_cursor = new Cursor(new_sorted);
+			
+			while(old_cursor.entry != null || new_cursor.entry != null) {
+				int result;
+				
+				if(old_cursor.entry == null)
+					result = 1;
+				else if(new_cursor.entry == null)
+					result = -1;
+				else
+					result = old_cursor.id.compareTo(new_cursor.id);
+				
+				if(result < 0) {
+					changes.add(new Change(old_cursor.id, old_cursor.entry, null));
+					old_cursor.advance();
+				}
+				else if(result > 0) {
+					changes.add(new Change(new_cursor.id, null, new_cursor.entry));
+					new_cursor.advance();
+				}
+				else {
+					if(!isUnchanged(old_cursor.entry, new_cursor.entry, unchanged) && !isSame(old_cursor.entry, new_cursor.entry))
+						changes.add(new Change(new_cursor.id, old_cursor.entry, new_cursor.entry));
+					
+					old_cursor.advance();
+					new_cursor.advance();
+				}
+			}
+			
+			return new ChangeSet(changes);
+		} catch(SnapshotException e) {
+			throw e.getCause();
+		}
+	}
+	
+	/** Check if two JSON values are exactly the same. Unlike {@link JsonElement#equals(Object)}, which compares numbers
+	 * as doubles, numbers are compared by the text they were written with, so that no change to a number is lost.
+	 * 
+	 * @param a The first value.
+	 * @param b The second value.
+	 * @return True if both values are the same, false otherwise.
+	 */
+	public static boolean isSame(JsonElement a, JsonElement b) {
+		if(a.isJsonPrimitive() && b.isJsonPrimitive()) {
+			JsonPrimitive pa = a.getAsJsonPrimitive();
+			JsonPrimitive pb = b.getAsJsonPrimitive();
+			return pa.isNumber() == pb.isNumber() && pa.isBoolean() == pb.isBoolean() 
+					&& pa.getAsString().equals(pb.getAsString());
+		}
+		
+		if(a.isJsonObject() && b.isJsonObject()) {
+			JsonObject oa = a.getAsJsonObject();
+			JsonObject ob = b.getAsJsonObject();
+			
+			if(oa.size() != ob.size())
+				return false;
+			
+			for(Map.Entry<String, JsonElement> field : oa.entrySet()) {
+				JsonElement other = ob.get(field.getKey());
+				
+				if(other == null || !isSame(field.getValue(), other))
+					return false;
+			}
+			
+			return true;
+		}
+		
+		if(a.isJsonArray() && b.isJsonArray()) {
+			JsonArray aa = a.getAsJsonArray();
+			JsonArray ab = b.getAsJsonArray();
+			
+			if(aa.size() != ab.size())
+				return false;
+			
+			for(int i = 0; i < aa.size(); i++)
+				if(!isSame(aa.get(i), ab.get(i)))
+					return false;
+			
+			return true;
+		}
+		
+		return a.isJsonNull() && b.isJsonNull();
+	}
+	
+	/** Check if two entries with the same id are known to be the same without comparing them.
+	 * 
+	 * @param old_entry The old entry.
+	 * @param new_entry The new entry.
+	 * @param unchanged The ids of the categories that hold the same entries in both snapshots.
+	 * @return True if both entries are in the same unchanged category, false if they need to be compared.
+	 */
+	private static boolean isUnchanged(JsonObject old_entry, JsonObject new_entry, Set<String> unchanged) {
+		if(unchanged.isEmpty() || !old_entry.has(PatchNoteData.CATEGORY) || !new_entry.has(PatchNoteData.CATEGORY))
+			return false;
+		
+		String category = new_entry.get(PatchNoteData.CATEGORY).getAsString();
+		return unchanged.contains(category) && category.equals(old_entry.get(PatchNoteData.CATEGORY).getAsString());
+	}
+	
+	/** Position in a sorted snapshot. Skips entries without id, which are logged, and repeated ids, and verifies the
+	 * order.
+	 * 
+	 */
+	private static class Cursor {
+		private final SnapshotSource source;
+		private JsonObject entry;
+		private String id;
+		
+		/** Constructor. Moves to the first entry immediately.
+		 * 
+		 * @param source The sorted source.
+		 * @throws IOException If the source turns out not to be sorted.
+		 */
+		public Cursor(SnapshotSource source) throws IOException {
+			this.source = source;
+			advance();
+		}
+		
+		/** Move to the next entry.
+		 * 
+		 * @throws IOException If the source turns out not to be sorted.
+		 */
+		public void advance() throws IOException {
+			String last = id;
+			entry = null;
+			
+			while(source.hasNext()) {
+				JsonObject next = source.next();
+				
+				if(!next.has(PatchNoteData.ID)) {
+					System.out.println(String.format("Invalid entry: %s", next));
+					continue;
+				}
+				
+				String next_id = next.get(PatchNoteData.ID).getAsString();
+				
+				if(last != null) {
+					int result = next_id.compareTo(last);
+					
+					if(result < 0)
+						throw new IOException(String.format("Snapshot is not sorted by id: '%s' follows '%s'", next_id, last));
+					
+					if(result == 0)
+						continue;
+				}
+				
+				entry = next;
+				id = next_id;
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,258 @@
+package slimeattack07.patchgen.diff;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import com.google.gson.JsonObject;
+
+import slimeattack07.patchgen.PatchNoteData;
+import slimeattack07.patchgen.snapshots.SnapshotException;
+import slimeattack07.patchgen.snapshots.SnapshotReader;
+import slimeattack07.patchgen.snapshots.SnapshotSource;
+import slimeattack07.patchgen.snapshots.SnapshotWriter;
+
+/** Sorts snapshot entries by id. Sources up to the memory budget are sorted in memory. Larger sources are cut into 
+ * sorted runs that are spilled to temporary files and merged back together while reading (external merge sort).
+ * Sorting is stable, so entries sharing an id keep their original order. Entries without id are logged and dropped.
+ * 
+ */
+public class IdSorter {
+	public static final Comparator<JsonObject> BY_ID = Comparator.comparing(IdSorter::getId);
+	
+	/** Sort the entries of a source by id. Sources that are already sorted are returned as is.
+	 * 
+	 * @param source The source to sort. Will be read completely, but not closed.
+	 * @param budget The maximum amount of entries to keep in memory.
+	 * @return The sorted entries. Must be closed by the caller to clean up spill files.
+	 * @throws IOException If reading or spilling fails.
+	 */
+	public static SnapshotSource sort(SnapshotSource source, int budget) throws IOException {
+		if(source.isSortedById())
+			return source;
+		
+		List<JsonObject> buffer = new ArrayList<>();
+		List<File> runs = new ArrayList<>();
+		
+		try {
+			while(source.hasNext()) {
+				JsonObject entry = source.next();
+				
+				if(!entry.has(PatchNoteData.ID)) {
+					System.out.println(String.format("Invalid entry: %s", entry));
+					continue;
+				}
+				
+				buffer.add(entry);
+				
+				if(buffer.size() >= budget) {
+					runs.add(spill(buffer));
+					buffer.clear();
+				}
+			}
+			
+			if(runs.isEmpty()) {
+				buffer.sort(BY_ID);
+				return new ListSource(buffer);
+			}
+			
+			if(!buffer.isEmpty())
+				runs.add(spill(buffer));
+			
+			return new MergeSource(runs);
+		} catch(SnapshotException e) {
+			deleteAll(runs);
+			throw e.getCause();
+		} catch(IOException e) {
+			deleteAll(runs);
+			throw e;
+		}
+	}
+	
+	/** Sort a snapshot file by id into another file, marking it as sorted.
+	 * 
+	 * @param in The snapshot file to sort.
+	 * @param out The file to write the sorted snapshot to.
+	 * @param budget The maximum amount of entries to keep in memory.
+	 * @return The amount of entries written.
+	 * @throws IOException If reading or writing fails.
+	 */
+	public static int sortFile(File in, File out, int budget) throws IOException {
+		try(SnapshotReader reader = new SnapshotReader(new FileInputStream(in));
+				SnapshotSource sorted = sort(reader, budget);
+				SnapshotWriter writer = new SnapshotWriter(new FileOutputStream(out), true)){
+			while(sorted.hasNext())
+				writer.write(sorted.next());
+			
+			return writer.getCount();
+		} catch(SnapshotException e) {
+			throw e.getCause();
+		}
+	}
+	
+	/** Get the id of an entry.
+	 * 
+	 * @param entry The entry.
+	 * @return The id.
+	 */
+	public static String getId(JsonObject entry) {
+		return entry.get(PatchNoteData.ID).getAsString();
+	}
+	
+	/** Sort a run of entries and write it to a temporary file.
+	 * 
+	 * @param buffer The entries to write.
+	 * @return The file holding the sorted run.
+	 * @throws IOException If writing fails.
+	 */
+	private static File spill(List<JsonObject> buffer) throws IOException {
+		buffer.sort(BY_ID);
+		// Deleted once the merge is closed, see MergeSource#close().
+		File run = File.createTempFile("patchgen-run", ".json");
+		System.out.println(String.format("Spilling %d entries to %s", buffer.size(), run));
+		
+		try(SnapshotWriter writer = new SnapshotWriter(new FileOutputStream(run), true)){
+			for(JsonObject entry : buffer)
+				writer.write(entry);
+		}
+		
+		return run;
+	}
+	
+	/** Delete files, ignoring failures.
+	 * 
+	 * @param files The files to delete.
+	 */
+	private static void deleteAll(List<File> files) {
+		for(File file : files)
+			file.delete();
+	}
+	
+	/** Source of entries that were sorted in memory.
+	 * 
+	 */
+	private static class ListSource implements SnapshotSource {
+		private final Iterator<JsonObject> iterator;
+		
+		/** Constructor.
+		 * 
+		 * @param entries The sorted entries.
+		 */
+		public ListSource(List<JsonObject> entries) {
+			this.iterator = entries.iterator();
+		}
+		
+		@Override
+		public boolean isSortedById() {
+			return true;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return iterator.hasNext();
+		}
+		
+		@Override
+		public JsonObject next() {
+			return iterator.next();
+		}
+		
+		@Override
+		public void close() {}
+	}
+	
+	/** Source that merges sorted runs from spill files. Only the current entry of every run is kept in memory.
+	 * 
+	 */
+	private static class MergeSource implements SnapshotSource {
+		private final List<File> runs;
+		private final List<SnapshotReader> readers = new ArrayList<>();
+		// Ties are broken on run number, so entries sharing an id come out in their original order.
+		private final PriorityQueue<Head> heads = new PriorityQueue<>(
+				Comparator.comparing((Head head) -> head.id).thenComparingInt(head -> head.run));
+		
+		/** Constructor.
+		 * 
+		 * @param runs The files holding the sorted runs, in the order they were written.
+		 * @throws IOException If a run can't be opened.
+		 */
+		public MergeSource(List<File> runs) throws IOException {
+			this.runs = runs;
+			
+			try {
+				for(int i = 0; i < runs.size(); i++) {
+					SnapshotReader reader = new SnapshotReader(new FileInputStream(runs.get(i)));
+					readers.add(reader);
+					
+					if(reader.hasNext())
+						heads.add(new Head(reader.next(), i));
+				}
+			} catch(IOException e) {
+				close();
+				throw e;
+			}
+		}
+		
+		@Override
+		public boolean isSortedById() {
+			return true;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return !heads.isEmpty();
+		}
+		
+		@Override
+		public JsonObject next() {
+			Head head = heads.poll();
+			
+			if(head == null)
+				throw new NoSuchElementException();
+			
+			SnapshotReader reader = readers.get(head.run);
+			
+			if(reader.hasNext())
+				heads.add(new Head(reader.next(), head.run));
+			
+			return head.entry;
+		}
+		
+		@Override
+		public void close() throws IOException {
+			try {
+				for(SnapshotReader reader : readers)
+					reader.close();
+			} finally {
+				deleteAll(runs);
+			}
+		}
+	}
+	
+	/** Current entry of a run.
+	 * 
+	 */
+	private static class Head {
+		private final JsonObject entry;
+		private final String id;
+		private final int run;
+		
+		/** Constructor.
+		 * 
+		 * @param entry The entry.
+		 * @param run The number of the run the entry came from.
+		 */
+		public Head(JsonObject entry, int run) {
+			this.entry = entry;
+			this.id = getId(entry);
+			this.run = run;
+		}
+	}
+}
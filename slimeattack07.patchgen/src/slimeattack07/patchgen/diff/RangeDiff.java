@@ -0,0 +1,286 @@
+package slimeattack07.patchgen.diff;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import slimeattack07.patchgen.Nullable;
+import slimeattack07.patchgen.PatchNoteData;
+import slimeattack07.patchgen.Settings;
+import slimeattack07.patchgen.Utils;
+import slimeattack07.patchgen.snapshots.SnapshotHash;
+import slimeattack07.patchgen.snapshots.SnapshotReader;
+import slimeattack07.patchgen.snapshots.SnapshotSource;
+import slimeattack07.patchgen.snapshots.SnapshotStore;
+import slimeattack07.patchgen.snapshots.SnapshotWriter;
+import slimeattack07.patchgen.snapshots.VersionHistory;
+import slimeattack07.patchgen.snapshots.VersionHistory.Record;
+
+/** Utility class for diffing two arbitrary versions. If both versions are in the version history and every step in 
+ * between is cached in src/patchgen/data/cache, the net change is computed by folding the change sets of those steps.
+ * Cached steps are named after the content hashes of both versions, so they stay valid exactly as long as the contents
+ * do. This avoids reading both snapshots in full, and every step that patch notes were generated for is cached.
+ * 
+ */
+public class RangeDiff {
+	public static final String CACHE_DIR = "data/cache";
+	public static final String OLD = "old";
+	public static final String NEW = "new";
+	
+	/** Diff two versions.
+	 * 
+	 * @param project The project the versions belong to.
+	 * @param old_version The old version.
+	 * @param new_version The new version.
+	 * @return The changes from the old to the new version.
+	 * @throws IOException If reading fails.
+	 * @throws CoreException If a file can't be opened or written.
+	 */
+	public static ChangeSet diff(IProject project, String old_version, String new_version) throws IOException, CoreException {
+		SnapshotHash old_hash = SnapshotStore.getHash(project, old_version);
+		SnapshotHash new_hash = SnapshotStore.getHash(project, new_version);
+		
+		// Snapshots with the same content have nothing to diff.
+		if(old_hash != null && new_hash != null && old_hash.matches(new_hash)) {
+			System.out.println("Range diff: versions have the same content");
+			return new ChangeSet(new ArrayList<>());
+		}
+		
+		List<String> steps = getSteps(project, old_version, new_version);
+		
+		if(steps == null)
+			return diffDirect(project, old_version, new_version);
+		
+		int uncached = 0;
+		
+		for(int i = 1; i < steps.size(); i++)
+			if(!isCached(project, steps.get(i - 1), steps.get(i)))
+				uncached++;
+		
+		// An uncached step reads two snapshots in full, which costs as much as diffing the versions directly.
+		if(uncached > 0) {
+			System.out.println(String.format("Range diff: %d of %d steps are not cached, diffing directly", uncached, steps.size() - 1));
+			return diffDirect(project, old_version, new_version);
+		}
+		
+		ChangeSet result = getStep(project, steps.get(0), steps.get(1));
+		
+		for(int i = 2; i < steps.size(); i++)
+			result = result.then(getStep(project, steps.get(i - 1), steps.get(i)));
+		
+		System.out.println(String.format("Range diff: folded %d steps", steps.size() - 1));
+		return result;
+	}
+	
+	/** Diff a version against a snapshot that is about to be stored as new version. If the new version is already 
+	 * stored with the same contents, as when generating notes for another range of the same version, the stored versions
+	 * are diffed so cached steps can be folded. Otherwise the snapshot is read directly, as no steps can be cached for it.
+	 * 
+	 * @param project The project the versions belong to.
+	 * @param old_version The old version.
+	 * @param new_version The version the snapshot will be stored as.
+	 * @param snapshot The file holding the new snapshot.
+	 * @return The changes from the old version to the snapshot.
+	 * @throws IOException If reading fails.
+	 * @throws CoreException If a file can't be opened.
+	 */
+	public static ChangeSet diff(IProject project, String old_version, String new_version, File snapshot) 
+			throws IOException, CoreException {
+		SnapshotHash old_hash = SnapshotStore.getHash(project, old_version);
+		SnapshotHash new_hash = SnapshotHash.compute(new SnapshotReader(new FileInputStream(snapshot)));
+		
+		if(old_hash != null && old_hash.matches(new_hash)) {
+			System.out.println("Range diff: snapshot has the same content as the old version");
+			return new ChangeSet(new ArrayList<>());
+		}
+		
+		SnapshotHash stored_hash = SnapshotStore.getHash(project, new_version);
+		
+		if(stored_hash != null && stored_hash.matches(new_hash))
+			return diff(project, old_version, new_version);
+		
+		Set<String> unchanged = old_hash == null ? Collections.emptySet() : old_hash.getUnchangedCategories(new_hash);
+		
+		try(SnapshotSource old_entries = SnapshotStore.openEntries(project, old_version);
+				SnapshotSource new_entries = new SnapshotReader(new FileInputStream(snapshot))){
+			return DiffEngine.diff(old_entries, new_entries, Settings.getDiffMemoryBudget(), unchanged);
+		}
+	}
+	
+	/** Cache the changes of a step, so later range diffs can fold it. Only steps between versions that follow each other
+	 * in the history are folded, so other steps are not cached.
+	 * 
+	 * @param project The project the versions belong to.
+	 * @param old_version The old version of the step.
+	 * @param new_version The new version of the step.
+	 * @param changes The changes from the old to the new version.
+	 * @throws IOException If reading the history or writing fails.
+	 * @throws CoreException If a file can't be opened or written.
+	 */
+	public static void cache(IProject project, String old_version, String new_version, ChangeSet changes) 
+			throws IOException, CoreException {
+		List<String> steps = getSteps(project, old_version, new_version);
+		IFile cache = getCacheFile(project, old_version, new_version);
+		
+		if(steps == null || steps.size() != 2 || cache == null)
+			return;
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		
+		try(SnapshotWriter writer = new SnapshotWriter(bytes, true)){
+			for(Change change : changes.getChanges()) {
+				JsonObject jo = new JsonObject();
+				jo.addProperty(PatchNoteData.ID, change.getId());
+				
+				if(change.getOldEntry() != null)
+					jo.add(OLD, change.getOldEntry());
+				
+				if(change.getNewEntry() != null)
+					jo.add(NEW, change.getNewEntry());
+				
+				writer.write(jo);
+			}
+		}
+		
+		InputStream is = new ByteArrayInputStream(bytes.toByteArray());
+		
+		if(cache.exists())
+			cache.setContents(is, false, true, null);
+		else
+			cache.create(is, false, null);
+	}
+	
+	/** Get the versions from the old to the new version in the order they were stored.
+	 * 
+	 * @param project The project the versions belong to.
+	 * @param old_version The old version.
+	 * @param new_version The new version.
+	 * @return The versions, starting with the old and ending with the new version, or null if the versions are not 
+	 * both in the history or the old version was stored after the new version.
+	 * @throws IOException If reading the history fails.
+	 * @throws CoreException If the history can't be opened.
+	 */
+	private static List<String> getSteps(IProject project, String old_version, String new_version) throws IOException, CoreException {
+		List<String> steps = null;
+		
+		for(Record record : VersionHistory.load(project).getRecords()) {
+			String version = record.getVersion();
+			
+			if(version.equals(old_version))
+				steps = new ArrayList<>();
+			
+			// Versions that were deleted by hand are left out.
+			if(steps != null && SnapshotStore.exists(project, version))
+				steps.add(version);
+			
+			if(version.equals(new_version))
+				return steps != null && steps.size() > 1 ? steps : null;
+		}
+		
+		return null;
+	}
+	
+	/** Diff two versions by reading both snapshots.
+	 * 
+	 * @param project The project the versions belong to.
+	 * @param old_version The old version.
+	 * @param new_version The new version.
+	 * @return The changes from the old to the new version.
+	 * @throws IOException If reading fails.
+	 * @throws CoreException If a file can't be opened.
+	 */
+	private static ChangeSet diffDirect(IProject project, String old_version, String new_version) throws IOException, CoreException {
+		SnapshotHash old_hash = SnapshotStore.getHash(project, old_version);
+		SnapshotHash new_hash = SnapshotStore.getHash(project, new_version);
+		Set<String> unchanged = old_hash == null || new_hash == null ? Collections.emptySet() 
+				: old_hash.getUnchangedCategories(new_hash);
+		
+		try(SnapshotSource old_entries = SnapshotStore.openEntries(project, old_version);
+				SnapshotSource new_entries = SnapshotStore.openEntries(project, new_version)){
+			return DiffEngine.diff(old_entries, new_entries, Settings.getDiffMemoryBudget(), unchanged);
+		}
+	}
+	
+	/** Get the cache file of a step. The file is named after the root hashes of both versions, which are hexadecimal,
+	 * so no two steps share a file unless they have the same contents.
+	 * 
+	 * @param project The project the versions belong to.
+	 * @param old_version The old version of the step.
+	 * @param new_version The new version of the step.
+	 * @return The file, which may not exist, or null if the hash of either version is unknown.
+	 * @throws IOException If reading the history fails.
+	 * @throws CoreException If the history can't be opened.
+	 */
+	@Nullable
+	private static IFile getCacheFile(IProject project, String old_version, String new_version) throws IOException, CoreException {
+		SnapshotHash old_hash = SnapshotStore.getHash(project, old_version);
+		SnapshotHash new_hash = SnapshotStore.getHash(project, new_version);
+		
+		if(old_hash == null || new_hash == null)
+			return null;
+		
+		return Utils.requestFile(project, CACHE_DIR, String.format("%s_%s", old_hash.getRoot(), new_hash.getRoot()), "json");
+	}
+	
+	/** Check if the diff of a step is cached.
+	 * 
+	 * @param project The project the versions belong to.
+	 * @param old_version The old version of the step.
+	 * @param new_version The new version of the step.
+	 * @return True if the cached diff can be used, false otherwise.
+	 * @throws IOException If reading the history fails.
+	 * @throws CoreException If the history can't be opened.
+	 */
+	private static boolean isCached(IProject project, String old_version, String new_version) throws IOException, CoreException {
+		IFile cache = getCacheFile(project, old_version, new_version);
+		return cache != null && cache.exists();
+	}
+	
+	/** Get the cached changes of a single step.
+	 * 
+	 * @param project The project the versions belong to.
+	 * @param old_version The old version of the step.
+	 * @param new_version The new version of the step. The step must be cached, see {@link #isCached}.
+	 * @return The changes from the old to the new version.
+	 * @throws IOException If reading fails.
+	 * @throws CoreException If a file can't be opened.
+	 */
+	private static ChangeSet getStep(IProject project, String old_version, String new_version) throws IOException, CoreException {
+		List<Change> changes = new ArrayList<>();
+		
+		try(SnapshotReader reader = new SnapshotReader(getCacheFile(project, old_version, new_version).getContents())){
+			while(reader.hasNext()) {
+				JsonObject jo = reader.next();
+				changes.add(new Change(jo.get(PatchNoteData.ID).getAsString(), getEntry(jo, OLD), getEntry(jo, NEW)));
+			}
+		}
+		
+		return new ChangeSet(changes);
+	}
+	
+	/** Get one side of a cached change.
+	 * 
+	 * @param jo The cached change.
+	 * @param side The side, {@link #OLD} or {@link #NEW}.
+	 * @return The entry, or null if the entry does not exist on that side.
+	 */
+	@Nullable
+	private static JsonObject getEntry(JsonObject jo, String side) {
+		JsonElement entry = jo.get(side);
+		return entry != null && entry.isJsonObject() ? entry.getAsJsonObject() : null;
+	}
+}
@@ -7,28 +7,98 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
 
 /** Abstract patch note generator.
+ * Content is collected in a buffer and only written to the file once the buffer grows past {@link #FLUSH_THRESHOLD}
+ * characters and in {@link #flush(IFile)}, since every write to an IFile is a full workspace operation.
  * 
  */
 public abstract class AbstractPatchNoteGenerator {
+	/** Amount of buffered characters after which the buffer is written to the file. */
+	public static final int FLUSH_THRESHOLD = 1 << 20;
 	
-	/** Add content to file.
+	private final StringBuilder buffer = new StringBuilder();
+	// An existing file is only replaced on the first write, so nothing is written before the notes are generated.
+	private boolean written = false;
+	
+	/** Add content to file. The content is buffered, call {@link #flush(IFile)} once all content has been added.
 	 * 
 	 * @param ifile File to add content to.
 	 * @param content Content to add.
 	 */
 	protected void addToFile(IFile ifile, String content) {
-		InputStream is = toInputStream(content);
+		buffer.append(content);
+		flushIfFull(ifile);
+	}
+	
+	/** Add an indented line to file. The line is buffered, call {@link #flush(IFile)} once all content has been added.
+	 * 
+	 * @param ifile File to add the line to.
+	 * @param text The text of the line.
+	 * @param depth The amount of tabs to indent with.
+	 */
+	protected void addLine(IFile ifile, String text, int depth) {
+		appendIndent(buffer, depth);
+		buffer.append(text).append(System.lineSeparator());
+		flushIfFull(ifile);
+	}
+	
+	/** Write all buffered content to file.
+	 * 
+	 * @param ifile File to write to.
+	 */
+	protected void flush(IFile ifile) {
+		if(buffer.length() == 0 && written)
+			return;
+		
+		InputStream is = toInputStream(buffer.toString());
+		buffer.setLength(0);
+		
 		try {
 			if(ifile.exists()) {
-				ifile.appendContents(is, false, true, null);
+				if(written)
+					ifile.appendContents(is, false, true, null);
+				else
+					ifile.setContents(is, false, true, null);
 			}
 			else
 				ifile.create(is, false, null);
+			
+			written = true;
 		} catch (CoreException e) {
 			e.printStackTrace();
 		}
 	}
 	
+	/** Write the buffered content to file if the buffer is full.
+	 * 
+	 * @param ifile File to write to.
+	 */
+	private void flushIfFull(IFile ifile) {
+		if(buffer.length() >= FLUSH_THRESHOLD)
+			flush(ifile);
+	}
+	
+	/** Indent given text with tabs.
+	 * 
+	 * @param text The text to indent.
+	 * @param depth The amount of tabs to indent with.
+	 * @return The indented text.
+	 */
+	protected static String indentWithTabs(String text, int depth) {
+		StringBuilder sb = new StringBuilder(Math.max(0, depth) + text.length());
+		appendIndent(sb, depth);
+		return sb.append(text).toString();
+	}
+	
+	/** Append tabs to a builder.
+	 * 
+	 * @param sb The builder to append to.
+	 * @param depth The amount of tabs to append.
+	 */
+	protected static void appendIndent(StringBuilder sb, int depth) {
+		for(int i = 0; i < depth; i++)
+			sb.append('\t');
+	}
+	
 	/** Turn a String into an InputStream.
 	 * 
 	 * @param input The String to transform.
@@ -3,13 +3,16 @@ package slimeattack07.patchgen.generators;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 
+import slimeattack07.patchgen.Prompter;
 import slimeattack07.patchgen.Utils;
 
 public class HtmlGenerator extends AbstractPatchNoteGenerator implements PatchNoteGenerator {
 	private final IProject PROJECT;
+	private final Prompter PROMPTER;
 	private final IFile IFILE;
 	private final boolean IS_VALID;
 	private String author = "UNKNOWN";
+	private String scripts = "";
 	private boolean include_base = false;
 	private boolean in_list = false;
 	private int cat_depth = 0;
@@ -18,10 +21,12 @@ public class HtmlGenerator extends AbstractPatchNoteGenerator implements PatchNo
 	 * 
 	 * @param project The project to generate patch notes for.
 	 * @param version The version being generated. Just used as filename.
+	 * @param prompter The prompter to ask the user with.
 	 */
-	public HtmlGenerator(IProject project, String version) {
+	public HtmlGenerator(IProject project, String version, Prompter prompter) {
 		this.PROJECT = project;
-		this.IFILE = Utils.requestUniqueFile(PROJECT, "patchnotes", version, "html");
+		this.PROMPTER = prompter;
+		this.IFILE = Utils.requestUniqueFile(PROJECT, "patchnotes", version, "html", prompter);
 		this.IS_VALID = this.IFILE != null;
 		
 		if(IS_VALID)
@@ -30,10 +35,14 @@ public class HtmlGenerator extends AbstractPatchNoteGenerator implements PatchNo
 	
 	// TODO: Add support for project name?
 	private void init(String version) {
-		author = Utils.displayNotBlankInput("PatchGen: Author input", "Who's the author of these patch notes?");
-		String style = Utils.displayNotBlankInput("PatchGen: Style input", "What CSS should be used for these patch notes?");
+		author = PROMPTER.displayNotBlankInput(Prompter.AUTHOR, "Who's the author of these patch notes?");
+		String style = PROMPTER.displayNotBlankInput(Prompter.STYLE, "What CSS should be used for these patch notes?");
 		include_base = style.equals("basic");
 		
+		// Asked here rather than when finishing, so all questions are answered before anything is written.
+		if(PROMPTER.displayYesNo(Prompter.SCRIPT_INCLUSION, "Do you need this HTML file to contain scripts? If you chose the 'basic' CSS style, then it's associated script will automatically be added."))
+			scripts = PROMPTER.displayNotBlankInput(Prompter.SCRIPTS, "Please specify the script files to include, separated by commas.");
+		
 		addContent("<!DOCTYPE html>", 0, false);
 		addContent("<html>", 0, false);
 		addContent("<head> ", 1, false);
@@ -62,19 +71,18 @@ public class HtmlGenerator extends AbstractPatchNoteGenerator implements PatchNo
 	@Override
 	public void addContent(String content, int depth, boolean bulleted) {
 		if(bulleted && !in_list) {
-			addToFile(IFILE, indent("<div class=\"list\"><ul>" + System.lineSeparator(), depth));
+			addLine(IFILE, "<div class=\"list\"><ul>", depth);
 			in_list = true;
 		}
 		
 		if(!bulleted && in_list) {
-			addToFile(IFILE, indent("</ul></div>" + System.lineSeparator(), depth));
+			addLine(IFILE, "</ul></div>", depth);
 			in_list = false;
 		}
 		
 		int real_depth = bulleted ? depth + 1 : depth;
 		String real_text = bulleted ? "<li>" + content + "</li>": content;
-		String indented = indent(real_text, real_depth);
-		addToFile(IFILE, indented + System.lineSeparator());
+		addLine(IFILE, real_text, real_depth);
 	}
 
 	@Override
@@ -116,12 +124,7 @@ public class HtmlGenerator extends AbstractPatchNoteGenerator implements PatchNo
 	
 	@Override
 	public String indent(String text, int depth) {
-		String indented = "";
-		
-		for(int i = 0; i < depth; i++)
-			indented += "\t";
-		
-		return indented + text;
+		return indentWithTabs(text, depth);
 	}
 
 	@Override
@@ -131,11 +134,6 @@ public class HtmlGenerator extends AbstractPatchNoteGenerator implements PatchNo
 			cat_depth--;
 		}
 		
-		String scripts = "";
-		
-		if(Utils.displayYesNo("PatchGen: Script inclusion", "Do you need this HTML file to contain scripts? If you chose the 'basic' CSS style, then it's associated script will automatically be added."))
-			scripts = Utils.displayNotBlankInput("PatchGen: Script input", "Please specify the script files to include, separated by commas.");
-		
 		addContent("</main>", 2, false);
 		addContent("<footer id=\"footer\" style=\"text-align: center\">", 2, false);
 		addContent("<hr/>", 3, false);
@@ -151,5 +149,6 @@ public class HtmlGenerator extends AbstractPatchNoteGenerator implements PatchNo
 				addContent(String.format("<script src=\"%s.js\"></script>", script.strip()), 1, false);
 		
 		addContent("</html>", 0, false);
+		flush(IFILE);
 	}
 }
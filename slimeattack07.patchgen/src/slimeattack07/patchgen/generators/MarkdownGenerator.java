@@ -3,6 +3,7 @@ package slimeattack07.patchgen.generators;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 
+import slimeattack07.patchgen.Prompter;
 import slimeattack07.patchgen.Utils;
 
 public class MarkdownGenerator extends AbstractPatchNoteGenerator implements PatchNoteGenerator {
@@ -13,10 +14,11 @@ public class MarkdownGenerator extends AbstractPatchNoteGenerator implements Pat
 	/** Constructor.
 	 * 
 	 * @param project The project to generate patch notes for.
+	 * @param prompter The prompter to ask the user with.
 	 */
-	public MarkdownGenerator(IProject project, String version) {
+	public MarkdownGenerator(IProject project, String version, Prompter prompter) {
 		this.PROJECT = project;
-		this.IFILE = Utils.requestUniqueFile(PROJECT, "patchnotes", version, "md");
+		this.IFILE = Utils.requestUniqueFile(PROJECT, "patchnotes", version, "md", prompter);
 		this.IS_VALID = this.IFILE != null;
 	}
 	
@@ -28,7 +30,7 @@ public class MarkdownGenerator extends AbstractPatchNoteGenerator implements Pat
 	@Override
 	public void addContent(String content, int depth, boolean bulleted) {
 		String real_text = bulleted ? "* " + content : content;
-		addToFile(IFILE, real_text + System.lineSeparator());
+		addLine(IFILE, real_text, 0);
 	}
 
 	@Override
@@ -62,5 +64,7 @@ public class MarkdownGenerator extends AbstractPatchNoteGenerator implements Pat
 	}
 
 	@Override
-	public void finish() {}
+	public void finish() {
+		flush(IFILE);
+	}
 }
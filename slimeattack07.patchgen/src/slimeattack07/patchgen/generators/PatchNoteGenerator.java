@@ -44,6 +44,7 @@ public interface PatchNoteGenerator {
 	
 	/** Allow the generator to generate anything else needed after the last content was added.
 	 * Primarily needed for output formats like HTML, which need the right closing tags to be generated.
+	 * Content may be buffered until this method is called, so it must always be called last.
 	 * 
 	 */
 	public void finish();
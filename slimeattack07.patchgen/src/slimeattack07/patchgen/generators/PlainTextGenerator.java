@@ -3,6 +3,7 @@ package slimeattack07.patchgen.generators;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 
+import slimeattack07.patchgen.Prompter;
 import slimeattack07.patchgen.Utils;
 
 /** Patch note generator: .txt output.
@@ -16,18 +17,18 @@ public class PlainTextGenerator extends AbstractPatchNoteGenerator implements Pa
 	/** Constructor.
 	 * 
 	 * @param project The project to generate patch notes for.
+	 * @param prompter The prompter to ask the user with.
 	 */
-	public PlainTextGenerator(IProject project, String version) {
+	public PlainTextGenerator(IProject project, String version, Prompter prompter) {
 		this.PROJECT = project;
-		this.IFILE = Utils.requestUniqueFile(PROJECT, "patchnotes", version, "txt");
+		this.IFILE = Utils.requestUniqueFile(PROJECT, "patchnotes", version, "txt", prompter);
 		this.IS_VALID = this.IFILE != null;
 	}
 	
 	@Override
 	public void addContent(String content, int depth, boolean bulleted) {
 		String real_text = bulleted ? "* " + content : content;
-		String indented = indent(real_text, depth);
-		addToFile(IFILE, indented + System.lineSeparator());
+		addLine(IFILE, real_text, depth);
 	}
 
 	@Override
@@ -50,14 +51,11 @@ public class PlainTextGenerator extends AbstractPatchNoteGenerator implements Pa
 	
 	@Override
 	public String indent(String text, int depth) {
-		String indented = "";
-		
-		for(int i = 0; i < depth; i++)
-			indented += "\t";
-		
-		return indented + text;
+		return indentWithTabs(text, depth);
 	}
 
 	@Override
-	public void finish() {}
+	public void finish() {
+		flush(IFILE);
+	}
 }
@@ -0,0 +1,274 @@
+package slimeattack07.patchgen.scanning;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.Annotation;
+import org.eclipse.jdt.core.dom.AnnotationTypeDeclaration;
+import org.eclipse.jdt.core.dom.BooleanLiteral;
+import org.eclipse.jdt.core.dom.CharacterLiteral;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.MemberValuePair;
+import org.eclipse.jdt.core.dom.Modifier;
+import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.core.dom.NormalAnnotation;
+import org.eclipse.jdt.core.dom.NumberLiteral;
+import org.eclipse.jdt.core.dom.PrimitiveType;
+import org.eclipse.jdt.core.dom.SimpleType;
+import org.eclipse.jdt.core.dom.SingleMemberAnnotation;
+import org.eclipse.jdt.core.dom.StringLiteral;
+import org.eclipse.jdt.core.dom.Type;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+
+import com.google.gson.JsonObject;
+
+import slimeattack07.patchgen.Nullable;
+import slimeattack07.patchgen.PatchNoteData;
+
+/** Extracts the entries of watched constants by parsing compilation units in batches with ASTParser.createASTs. 
+ * Bindings are not resolved and method bodies are skipped, so each unit is parsed once and nothing else is looked up.
+ * Constant values follow the same rules as IField.getConstant, so both extractors produce the same snapshots.
+ * 
+ */
+public class AstExtractor implements EntryExtractor {
+	/** Maximum amount of units passed to the parser at once, which bounds the memory held by a single batch. */
+	public static final int BATCH_SIZE = 100;
+	
+	@Override
+	public List<List<JsonObject>> extract(List<ICompilationUnit> units) throws JavaModelException {
+		HashMap<String, List<JsonObject>> results = new HashMap<>();
+		
+		for(int start = 0; start < units.size(); start += BATCH_SIZE) {
+			List<ICompilationUnit> batch = units.subList(start, Math.min(units.size(), start + BATCH_SIZE));
+			ASTParser parser = ASTParser.newParser(AST.getJLSLatest());
+			parser.setKind(ASTParser.K_COMPILATION_UNIT);
+			parser.setProject(batch.get(0).getJavaProject());
+			parser.setResolveBindings(false);
+			parser.setIgnoreMethodBodies(true);
+			parser.createASTs(batch.toArray(new ICompilationUnit[0]), new String[0], new ASTRequestor() {
+				@Override
+				public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+					System.out.println(String.format("File: %s", source.getElementName()));
+					results.put(source.getHandleIdentifier(), extract(ast));
+				}
+			}, null);
+		}
+		
+		List<List<JsonObject>> entries = new ArrayList<>(units.size());
+		
+		for(ICompilationUnit unit : units) {
+			List<JsonObject> result = results.get(unit.getHandleIdentifier());
+			entries.add(result == null ? new ArrayList<>() : result);
+		}
+		
+		return entries;
+	}
+	
+	/** Extract the entries of all watched constants in a parsed compilation unit.
+	 * 
+	 * @param ast The parsed compilation unit.
+	 * @return The entries, in the order the fields are declared.
+	 */
+	private List<JsonObject> extract(CompilationUnit ast) {
+		List<JsonObject> entries = new ArrayList<>();
+		ArrayDeque<AbstractTypeDeclaration> types = new ArrayDeque<>();
+		
+		for(Object type : ast.types())
+			types.add((AbstractTypeDeclaration) type);
+		
+		// Same order as ICompilationUnit.getAllTypes: top level types first, then their member types level by level.
+		while(!types.isEmpty()) {
+			AbstractTypeDeclaration type = types.poll();
+			String category = getClassCategory(type);
+			// Fields of interfaces are implicitly static and final.
+			boolean is_interface = type instanceof AnnotationTypeDeclaration 
+					|| (type instanceof TypeDeclaration && ((TypeDeclaration) type).isInterface());
+			
+			for(Object declaration : type.bodyDeclarations()) {
+				if(declaration instanceof AbstractTypeDeclaration)
+					types.add((AbstractTypeDeclaration) declaration);
+				else if(declaration instanceof FieldDeclaration)
+					processFields((FieldDeclaration) declaration, is_interface, category, entries);
+			}
+		}
+		
+		return entries;
+	}
+	
+	/** Get the Category id for a class.
+	 * 
+	 * @param type The class.
+	 * @return The category id, or the empty String if not present.
+	 */
+	private String getClassCategory(AbstractTypeDeclaration type) {
+		Annotation ann = getAnnotation(type.modifiers(), WatchedEntries.CATEGORY_INFO);
+		
+		if(ann instanceof NormalAnnotation) {
+			for(Object value : ((NormalAnnotation) ann).values()) {
+				MemberValuePair pair = (MemberValuePair) value;
+				
+				if(pair.getName().getIdentifier().equals(PatchNoteData.ID))
+					return getMemberValue(pair.getValue()).toString();
+			}
+		}
+		
+		return "";
+	}
+	
+	/** Process the constants declared by a field declaration.
+	 * 
+	 * @param declaration The field declaration.
+	 * @param is_interface Whether the field is declared in an interface.
+	 * @param category The category id to overwrite the field's category with. Will not overwrite if the empty String is provided.
+	 * @param entries The list to add the data for all fields to.
+	 */
+	private void processFields(FieldDeclaration declaration, boolean is_interface, String category, List<JsonObject> entries) {
+		Annotation ann = getAnnotation(declaration.modifiers(), WatchedEntries.WATCHABLE);
+		int modifiers = declaration.getModifiers();
+		
+		if(ann == null || !(is_interface || (Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers))))
+			return;
+		
+		for(Object fragment : declaration.fragments()) {
+			VariableDeclarationFragment field = (VariableDeclarationFragment) fragment;
+			Object constant = field.getInitializer() == null || field.getExtraDimensions() > 0 ? null 
+					: getConstant(getTypeName(declaration.getType()), getSource(field.getInitializer()));
+			
+			if(constant == null)
+				continue;
+			
+			System.out.println(String.format("Field info: %s = %s", field.getName().getIdentifier(), constant));
+			JsonObject outer = WatchedEntries.create(constant);
+			
+			// Store info like category and name (if provided).
+			if(ann instanceof NormalAnnotation) {
+				for(Object value : ((NormalAnnotation) ann).values()) {
+					MemberValuePair pair = (MemberValuePair) value;
+					WatchedEntries.addPair(outer, pair.getName().getIdentifier(), getMemberValue(pair.getValue()), category);
+				}
+			}
+			else if(ann instanceof SingleMemberAnnotation)
+				WatchedEntries.addPair(outer, "value", getMemberValue(((SingleMemberAnnotation) ann).getValue()), category);
+			
+			outer = WatchedEntries.finish(outer, category);
+			
+			if(!outer.isEmpty())
+				entries.add(outer);
+		}
+	}
+	
+	/** Find an annotation by name.
+	 * 
+	 * @param modifiers The modifiers of a declaration.
+	 * @param name The name of the annotation, as written in the source.
+	 * @return The first matching annotation, or null if there is none.
+	 */
+	@Nullable
+	private static Annotation getAnnotation(List<?> modifiers, String name) {
+		for(Object modifier : modifiers)
+			if(modifier instanceof Annotation && ((Annotation) modifier).getTypeName().getFullyQualifiedName().equals(name))
+				return (Annotation) modifier;
+		
+		return null;
+	}
+	
+	/** Get the value of an annotation member, in the same form as IMemberValuePair.getValue.
+	 * 
+	 * @param value The expression of the member value.
+	 * @return The value.
+	 */
+	private static Object getMemberValue(Expression value) {
+		if(value instanceof StringLiteral)
+			return ((StringLiteral) value).getLiteralValue();
+		
+		if(value instanceof BooleanLiteral)
+			return ((BooleanLiteral) value).booleanValue();
+		
+		if(value instanceof CharacterLiteral)
+			return ((CharacterLiteral) value).charValue();
+		
+		if(value instanceof NumberLiteral)
+			return ((NumberLiteral) value).getToken();
+		
+		if(value instanceof Name)
+			return ((Name) value).getFullyQualifiedName();
+		
+		return value.toString();
+	}
+	
+	/** Get the name of a field type as written in the source.
+	 * 
+	 * @param type The type.
+	 * @return The name, or null if the type can't hold a constant.
+	 */
+	@Nullable
+	private static String getTypeName(Type type) {
+		if(type instanceof PrimitiveType)
+			return ((PrimitiveType) type).getPrimitiveTypeCode().toString();
+		
+		if(type instanceof SimpleType)
+			return ((SimpleType) type).getName().getFullyQualifiedName();
+		
+		return null;
+	}
+	
+	/** Get the source of an initializer. Literals keep their exact source form.
+	 * 
+	 * @param initializer The initializer.
+	 * @return The source.
+	 */
+	private static String getSource(Expression initializer) {
+		if(initializer instanceof StringLiteral)
+			return ((StringLiteral) initializer).getEscapedValue();
+		
+		if(initializer instanceof CharacterLiteral)
+			return ((CharacterLiteral) initializer).getEscapedValue();
+		
+		if(initializer instanceof NumberLiteral)
+			return ((NumberLiteral) initializer).getToken();
+		
+		return initializer.toString();
+	}
+	
+	/** Get the constant value of a field from the source of its initializer, following the rules of IField.getConstant.
+	 * 
+	 * @param type The name of the field type.
+	 * @param source The source of the initializer.
+	 * @return The constant, or null if the initializer is not a constant of the field type.
+	 */
+	@Nullable
+	static Object getConstant(@Nullable String type, String source) {
+		if(type == null)
+			return null;
+		
+		try {
+			switch(type) {
+			case "int": return Integer.valueOf(source);
+			case "short": return Short.valueOf(source);
+			case "byte": return Byte.valueOf(source);
+			case "boolean": return Boolean.valueOf(source);
+			case "char": return source.length() == 3 ? Character.valueOf(source.charAt(1)) : null;
+			case "double": return Double.valueOf(source);
+			case "float": return Float.valueOf(source);
+			case "long": 
+				return Long.valueOf(source.endsWith("L") || source.endsWith("l") ? source.substring(0, source.length() - 1) : source);
+			case "String":
+			case "java.lang.String": return source;
+			default: return null;
+			}
+		} catch (NumberFormatException e) {
+			return null; // Not a parsable constant.
+		}
+	}
+}
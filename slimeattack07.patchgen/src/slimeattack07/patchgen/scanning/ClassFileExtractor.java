@@ -0,0 +1,529 @@
+package slimeattack07.patchgen.scanning;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.google.gson.JsonObject;
+
+import slimeattack07.patchgen.Nullable;
+import slimeattack07.patchgen.PatchNoteData;
+
+/** Extracts the entries of watched constants from compiled .class files, without depending on Eclipse. The constant
+ * pool, ConstantValue attributes and RuntimeVisibleAnnotations are read straight from memory-mapped class files, which 
+ * are processed in parallel. Watchable and CategoryInfo are generated with RUNTIME retention, so they are present in 
+ * the class files. Entries match the ones the Java model extractors produce for every constant those can read.
+ * Unlike those, this extractor also finds constants whose initializer is not a plain literal, such as hex literals
+ * and constant expressions, as the compiler has already evaluated them.
+ * 
+ */
+public class ClassFileExtractor {
+	public static final int MAGIC = 0xCAFEBABE;
+	
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_INTEGER = 3;
+	private static final int CONSTANT_FLOAT = 4;
+	private static final int CONSTANT_LONG = 5;
+	private static final int CONSTANT_DOUBLE = 6;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_STRING = 8;
+	private static final int CONSTANT_METHOD_HANDLE = 15;
+	
+	private static final int ACC_STATIC = 0x0008;
+	private static final int ACC_FINAL = 0x0010;
+	
+	/** Extract the entries of all watched constants in the class files below some folders.
+	 * 
+	 * @param folders The output folders to search for class files.
+	 * @return The entries, ordered by class file path and then by field declaration order.
+	 * @throws IOException If a folder or class file can't be read, or a class file is malformed.
+	 */
+	public List<JsonObject> extract(List<Path> folders) throws IOException {
+		List<Path> files = new ArrayList<>();
+		
+		for(Path folder : folders) {
+			if(!Files.isDirectory(folder))
+				continue;
+			
+			try(Stream<Path> walk = Files.walk(folder)){
+				walk.filter(path -> path.toString().endsWith(".class") && Files.isRegularFile(path)).forEach(files::add);
+			}
+		}
+		
+		// Sorted up front, the parallel stream keeps this order in the result regardless of scheduling.
+		files.sort(null);
+		System.out.println(String.format("Reading %d class file(s)", files.size()));
+		
+		try {
+			List<List<JsonObject>> results = files.parallelStream().map(file -> {
+				try {
+					return extract(file);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}).collect(Collectors.toList());
+			
+			List<JsonObject> entries = new ArrayList<>();
+			
+			for(List<JsonObject> result : results)
+				entries.addAll(result);
+			
+			return entries;
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+	
+	/** Extract the entries of all watched constants in a single class file.
+	 * 
+	 * @param file The class file.
+	 * @return The entries, in field declaration order.
+	 * @throws IOException If the file can't be read or is malformed.
+	 */
+	public List<JsonObject> extract(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			return extract(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (RuntimeException e) {
+			// Buffer underflows and bad constant pool indices both mean the file is malformed.
+			throw new IOException(String.format("Malformed class file %s", file), e);
+		}
+	}
+	
+	/** Extract the entries of all watched constants from the contents of a class file.
+	 * 
+	 * @param buffer The contents of the class file.
+	 * @return The entries, in field declaration order.
+	 * @throws IOException If the contents are not a class file.
+	 */
+	static List<JsonObject> extract(ByteBuffer buffer) throws IOException {
+		if(buffer.getInt() != MAGIC)
+			throw new IOException("Not a class file");
+		
+		buffer.getShort(); // Minor version.
+		buffer.getShort(); // Major version.
+		Object[] pool = readConstantPool(buffer);
+		buffer.getShort(); // Access flags.
+		int this_class = u2(buffer);
+		buffer.getShort(); // Super class.
+		skip(buffer, 2 * u2(buffer)); // Interfaces.
+		
+		List<Field> fields = new ArrayList<>();
+		int field_count = u2(buffer);
+		
+		for(int i = 0; i < field_count; i++) {
+			Field field = new Field();
+			field.access = u2(buffer);
+			field.name = utf8(pool, u2(buffer));
+			field.descriptor = utf8(pool, u2(buffer));
+			int attribute_count = u2(buffer);
+			
+			for(int j = 0; j < attribute_count; j++) {
+				String attribute = utf8(pool, u2(buffer));
+				int length = buffer.getInt();
+				int end = buffer.position() + length;
+				
+				if(attribute.equals("ConstantValue"))
+					field.constant = pool[u2(buffer)];
+				else if(attribute.equals("RuntimeVisibleAnnotations"))
+					field.watchable = findAnnotation(buffer, pool, WatchedEntries.WATCHABLE);
+				
+				buffer.position(end);
+			}
+			
+			fields.add(field);
+		}
+		
+		int method_count = u2(buffer);
+		
+		for(int i = 0; i < method_count; i++) {
+			skip(buffer, 6); // Access flags, name and descriptor.
+			skipAttributes(buffer);
+		}
+		
+		String category = "";
+		boolean local = false;
+		int attribute_count = u2(buffer);
+		
+		for(int i = 0; i < attribute_count; i++) {
+			String attribute = utf8(pool, u2(buffer));
+			int length = buffer.getInt();
+			int end = buffer.position() + length;
+			
+			if(attribute.equals("RuntimeVisibleAnnotations")) {
+				Annotation info = findAnnotation(buffer, pool, WatchedEntries.CATEGORY_INFO);
+				
+				for(int j = 0; info != null && j < info.members.size(); j++)
+					if(info.members.get(j).equals(PatchNoteData.ID)) {
+						category = info.values.get(j).toString();
+						break;
+					}
+			}
+			else if(attribute.equals("InnerClasses"))
+				local = isLocal(buffer, this_class);
+			
+			buffer.position(end);
+		}
+		
+		// The Java model does not list local and anonymous classes as types of a compilation unit.
+		if(local)
+			return new ArrayList<>();
+		
+		List<JsonObject> entries = new ArrayList<>();
+		
+		for(Field field : fields) {
+			Object constant = field.getConstant();
+			
+			if(field.watchable == null || constant == null)
+				continue;
+			
+			System.out.println(String.format("Field info: %s = %s", field.name, constant));
+			JsonObject outer = WatchedEntries.create(constant);
+			
+			// Store info like category and name (if provided).
+			for(int i = 0; i < field.watchable.members.size(); i++)
+				WatchedEntries.addPair(outer, field.watchable.members.get(i), field.watchable.values.get(i), category);
+			
+			entries.add(WatchedEntries.finish(outer, category));
+		}
+		
+		return entries;
+	}
+	
+	/** Read the constant pool. Utf8, Integer, Float, Long, Double and String constants are resolved to their values,
+	 * Class constants to the index of their name. Other constants are not needed and left empty.
+	 * 
+	 * @param buffer The buffer, positioned at the constant pool count.
+	 * @return The constants by index.
+	 */
+	private static Object[] readConstantPool(ByteBuffer buffer) {
+		int count = u2(buffer);
+		Object[] pool = new Object[count];
+		int[] strings = new int[count];
+		
+		for(int i = 1; i < count; i++) {
+			int tag = buffer.get() & 0xFF;
+			
+			switch(tag) {
+			case CONSTANT_UTF8: 
+				pool[i] = readUtf8(buffer);
+				break;
+			case CONSTANT_INTEGER: 
+				pool[i] = buffer.getInt(); 
+				break;
+			case CONSTANT_FLOAT: 
+				pool[i] = buffer.getFloat(); 
+				break;
+			case CONSTANT_LONG: 
+				pool[i++] = buffer.getLong(); // Takes up two entries.
+				break;
+			case CONSTANT_DOUBLE: 
+				pool[i++] = buffer.getDouble(); // Takes up two entries.
+				break;
+			case CONSTANT_CLASS: 
+				pool[i] = u2(buffer); 
+				break;
+			case CONSTANT_STRING: 
+				strings[i] = u2(buffer);
+				break;
+			case CONSTANT_METHOD_HANDLE: 
+				skip(buffer, 3); 
+				break;
+			case 16: // MethodType
+			case 19: // Module
+			case 20: // Package
+				skip(buffer, 2);
+				break;
+			case 9: // Fieldref
+			case 10: // Methodref
+			case 11: // InterfaceMethodref
+			case 12: // NameAndType
+			case 17: // Dynamic
+			case 18: // InvokeDynamic
+				skip(buffer, 4);
+				break;
+			default: 
+				throw new IllegalStateException(String.format("Unknown constant pool tag %d", tag));
+			}
+		}
+		
+		// Strings refer to Utf8 constants that may come later in the pool.
+		for(int i = 1; i < count; i++)
+			if(strings[i] != 0)
+				pool[i] = pool[strings[i]];
+		
+		return pool;
+	}
+	
+	/** Read the annotations of a RuntimeVisibleAnnotations attribute and find one by simple name.
+	 * 
+	 * @param buffer The buffer, positioned at the start of the attribute contents.
+	 * @param pool The constant pool.
+	 * @param name The simple name of the annotation.
+	 * @return The first matching annotation, or null if there is none.
+	 */
+	@Nullable
+	private static Annotation findAnnotation(ByteBuffer buffer, Object[] pool, String name) {
+		int count = u2(buffer);
+		Annotation match = null;
+		
+		for(int i = 0; i < count; i++) {
+			Annotation annotation = readAnnotation(buffer, pool);
+			
+			if(match == null && annotation.getSimpleName().equals(name))
+				match = annotation;
+		}
+		
+		return match;
+	}
+	
+	/** Read a single annotation.
+	 * 
+	 * @param buffer The buffer, positioned at the start of the annotation.
+	 * @param pool The constant pool.
+	 * @return The annotation.
+	 */
+	private static Annotation readAnnotation(ByteBuffer buffer, Object[] pool) {
+		Annotation annotation = new Annotation(utf8(pool, u2(buffer)));
+		int pairs = u2(buffer);
+		
+		for(int i = 0; i < pairs; i++) {
+			annotation.members.add(utf8(pool, u2(buffer)));
+			annotation.values.add(readElementValue(buffer, pool));
+		}
+		
+		return annotation;
+	}
+	
+	/** Read an annotation element value, in the same form as IMemberValuePair.getValue.
+	 * 
+	 * @param buffer The buffer, positioned at the start of the element value.
+	 * @param pool The constant pool.
+	 * @return The value.
+	 */
+	private static Object readElementValue(ByteBuffer buffer, Object[] pool) {
+		char tag = (char) (buffer.get() & 0xFF);
+		
+		switch(tag) {
+		case 'Z': return ((Integer) pool[u2(buffer)]) != 0;
+		case 'C': return (char) (int) (Integer) pool[u2(buffer)];
+		case 'B': 
+		case 'S': 
+		case 'I': 
+		case 'J': 
+		case 'F': 
+		case 'D': 
+		case 's': return pool[u2(buffer)];
+		case 'e': 
+			String type = getSimpleName(utf8(pool, u2(buffer)));
+			return type + "." + utf8(pool, u2(buffer));
+		case 'c': return getSimpleName(utf8(pool, u2(buffer)));
+		case '@': return readAnnotation(buffer, pool).getSimpleName();
+		case '[':
+			int count = u2(buffer);
+			Object[] values = new Object[count];
+			
+			for(int i = 0; i < count; i++)
+				values[i] = readElementValue(buffer, pool);
+			
+			return values;
+		default: throw new IllegalStateException(String.format("Unknown element value tag %s", tag));
+		}
+	}
+	
+	/** Check if the InnerClasses attribute marks a class as a local or anonymous class.
+	 * 
+	 * @param buffer The buffer, positioned at the start of the attribute contents.
+	 * @param this_class The constant pool index of the class.
+	 * @return True if the class is local or anonymous, false otherwise.
+	 */
+	private static boolean isLocal(ByteBuffer buffer, int this_class) {
+		int count = u2(buffer);
+		
+		for(int i = 0; i < count; i++) {
+			int inner = u2(buffer);
+			int outer = u2(buffer);
+			skip(buffer, 4); // Inner name and access flags.
+			
+			if(inner == this_class)
+				return outer == 0;
+		}
+		
+		return false;
+	}
+	
+	/** Skip over an attribute table.
+	 * 
+	 * @param buffer The buffer, positioned at the attribute count.
+	 */
+	private static void skipAttributes(ByteBuffer buffer) {
+		int count = u2(buffer);
+		
+		for(int i = 0; i < count; i++) {
+			skip(buffer, 2);
+			skip(buffer, buffer.getInt());
+		}
+	}
+	
+	/** Read a modified UTF-8 string as stored in the constant pool.
+	 * 
+	 * @param buffer The buffer, positioned at the length of the string.
+	 * @return The string.
+	 */
+	private static String readUtf8(ByteBuffer buffer) {
+		int length = u2(buffer);
+		int end = buffer.position() + length;
+		StringBuilder sb = new StringBuilder(length);
+		
+		while(buffer.position() < end) {
+			int a = buffer.get() & 0xFF;
+			
+			if(a < 0x80)
+				sb.append((char) a);
+			else if((a & 0xE0) == 0xC0)
+				sb.append((char) (((a & 0x1F) << 6) | (buffer.get() & 0x3F)));
+			else
+				sb.append((char) (((a & 0x0F) << 12) | ((buffer.get() & 0x3F) << 6) | (buffer.get() & 0x3F)));
+		}
+		
+		return sb.toString();
+	}
+	
+	/** Get a Utf8 constant.
+	 * 
+	 * @param pool The constant pool.
+	 * @param index The index of the constant.
+	 * @return The string.
+	 */
+	private static String utf8(Object[] pool, int index) {
+		return (String) pool[index];
+	}
+	
+	/** Read an unsigned two byte value.
+	 * 
+	 * @param buffer The buffer.
+	 * @return The value.
+	 */
+	private static int u2(ByteBuffer buffer) {
+		return buffer.getShort() & 0xFFFF;
+	}
+	
+	/** Skip over bytes.
+	 * 
+	 * @param buffer The buffer.
+	 * @param count The amount of bytes to skip.
+	 */
+	private static void skip(ByteBuffer buffer, int count) {
+		buffer.position(buffer.position() + count);
+	}
+	
+	/** Get the simple name of a type from its descriptor.
+	 * 
+	 * @param descriptor The descriptor, such as "Lpatchgen/annotations/Watchable;".
+	 * @return The simple name, such as "Watchable".
+	 */
+	private static String getSimpleName(String descriptor) {
+		String name = descriptor.startsWith("L") && descriptor.endsWith(";") ? descriptor.substring(1, descriptor.length() - 1) : descriptor;
+		return name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('$')) + 1);
+	}
+	
+	/** Quote a String the way it is written as literal in the source. IField.getConstant returns String constants 
+	 * in their source form, so this keeps the values of both extractors the same.
+	 * 
+	 * @param value The String.
+	 * @return The String literal.
+	 */
+	static String quote(String value) {
+		StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+		
+		for(int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			
+			switch(c) {
+			case '"': sb.append("\\\""); break;
+			case '\\': sb.append("\\\\"); break;
+			case '\n': sb.append("\\n"); break;
+			case '\r': sb.append("\\r"); break;
+			case '\t': sb.append("\\t"); break;
+			case '\b': sb.append("\\b"); break;
+			case '\f': sb.append("\\f"); break;
+			default: 
+				if(Character.isISOControl(c))
+					sb.append(String.format("\\u%04x", (int) c));
+				else
+					sb.append(c);
+			}
+		}
+		
+		return sb.append('"').toString();
+	}
+	
+	/** A field of a class file.
+	 * 
+	 */
+	private static class Field {
+		private int access;
+		private String name;
+		private String descriptor;
+		private Object constant;
+		private Annotation watchable;
+		
+		/** Get the constant value of the field, in the same form as IField.getConstant.
+		 * 
+		 * @return The constant, or null if the field is not a constant.
+		 */
+		@Nullable
+		public Object getConstant() {
+			if(constant == null || (access & (ACC_STATIC | ACC_FINAL)) != (ACC_STATIC | ACC_FINAL))
+				return null;
+			
+			switch(descriptor) {
+			case "I": 
+			case "J": 
+			case "F": 
+			case "D": return constant;
+			case "S": return (short) (int) (Integer) constant;
+			case "B": return (byte) (int) (Integer) constant;
+			case "Z": return ((Integer) constant) != 0;
+			case "C": 
+				char c = (char) (int) (Integer) constant;
+				// The Java model only reads characters written as is, not escape sequences.
+				return Character.isISOControl(c) || c == '\\' || c == '\'' ? null : c;
+			case "Ljava/lang/String;": return quote((String) constant);
+			default: return null;
+			}
+		}
+	}
+	
+	/** An annotation of a class file.
+	 * 
+	 */
+	private static class Annotation {
+		private final String descriptor;
+		private final List<String> members = new ArrayList<>();
+		private final List<Object> values = new ArrayList<>();
+		
+		/** Constructor.
+		 * 
+		 * @param descriptor The type descriptor of the annotation.
+		 */
+		public Annotation(String descriptor) {
+			this.descriptor = descriptor;
+		}
+		
+		/** Get the simple name of the annotation type.
+		 * 
+		 * @return The simple name.
+		 */
+		public String getSimpleName() {
+			return ClassFileExtractor.getSimpleName(descriptor);
+		}
+	}
+}
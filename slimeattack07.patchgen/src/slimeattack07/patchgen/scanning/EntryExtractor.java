@@ -0,0 +1,23 @@
+package slimeattack07.patchgen.scanning;
+
+import java.util.List;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.JavaModelException;
+
+import com.google.gson.JsonObject;
+
+/** Interface for extracting the entries of watched constants from compilation units.
+ * 
+ */
+public interface EntryExtractor {
+	
+	/** Extract the entries of all watched constants in several compilation units at once.
+	 * 
+	 * @param units The compilation units, which all belong to the same project.
+	 * @return The entries per unit, in the same order as the units. Entries of a unit are in the order the fields are 
+	 * declared.
+	 * @throws JavaModelException If a unit can't be read.
+	 */
+	public List<List<JsonObject>> extract(List<ICompilationUnit> units) throws JavaModelException;
+}
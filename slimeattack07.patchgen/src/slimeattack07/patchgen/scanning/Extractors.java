@@ -0,0 +1,52 @@
+package slimeattack07.patchgen.scanning;
+
+import java.util.List;
+
+import slimeattack07.patchgen.Settings;
+
+/** Utility class for choosing an extractor by name.
+ * 
+ */
+public class Extractors {
+	/** Walk the Java model, see {@link JavaModelExtractor}. */
+	public static final String MODEL = "model";
+	/** Parse units in batches, see {@link AstExtractor}. */
+	public static final String AST = "ast";
+	/** Read compiled class files, see {@link ClassFileExtractor}. Not an {@link EntryExtractor}, as it does not work on
+	 * compilation units. */
+	public static final String BYTECODE = "bytecode";
+	/** Read the snapshot the annotation processor wrote during the last build, see 
+	 * {@link slimeattack07.patchgen.WatchableProcessor}. Not an extractor at all, nothing is scanned. */
+	public static final String CURRENT = "current";
+	
+	/** Get the names of all extractors that work on compilation units.
+	 * 
+	 * @return The names.
+	 */
+	public static List<String> getNames() {
+		return List.of(MODEL, AST);
+	}
+	
+	/** Create an extractor.
+	 * 
+	 * @param name The name of the extractor.
+	 * @return The extractor, or the Java model extractor if the name is unknown.
+	 */
+	public static EntryExtractor create(String name) {
+		switch(name) {
+		case AST: return new AstExtractor();
+		case MODEL: return new JavaModelExtractor();
+		default: 
+			System.out.println(String.format("Unknown extractor '%s', using '%s' instead", name, MODEL));
+			return new JavaModelExtractor();
+		}
+	}
+	
+	/** Create the extractor chosen in the settings.
+	 * 
+	 * @return The extractor.
+	 */
+	public static EntryExtractor create() {
+		return create(Settings.getExtractor());
+	}
+}
@@ -0,0 +1,130 @@
+package slimeattack07.patchgen.scanning;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.core.IAnnotation;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IMemberValuePair;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+
+import com.google.gson.JsonObject;
+
+import slimeattack07.patchgen.Nullable;
+import slimeattack07.patchgen.PatchNoteData;
+
+/** Extracts the entries of watched constants from compilation units through the Java model, one element at a time.
+ * 
+ */
+public class JavaModelExtractor implements EntryExtractor {
+	
+	@Override
+	public List<List<JsonObject>> extract(List<ICompilationUnit> units) throws JavaModelException {
+		List<List<JsonObject>> entries = new ArrayList<>(units.size());
+		
+		for (ICompilationUnit unit : units)
+			entries.add(extract(unit));
+		
+		return entries;
+	}
+	
+	/** Extract the entries of all watched constants in a compilation unit.
+	 * 
+	 * @param unit The compilation unit.
+	 * @return The entries, in the order the fields are declared.
+	 * @throws JavaModelException If the unit can't be read.
+	 */
+	public List<JsonObject> extract(ICompilationUnit unit) throws JavaModelException {
+		List<JsonObject> entries = new ArrayList<>();
+		System.out.println(String.format("File: %s", unit.getElementName()));
+		
+		for (IType type : unit.getAllTypes()) {
+			String category = getClassCategory(type);
+			processFields(type, category, entries);
+		}
+		
+		return entries;
+	}
+	
+	/** Get the Category id for a class.
+	 * 
+	 * @param type The class.
+	 * @return The category id, or the empty String if not present.
+	 */
+	private String getClassCategory(IType type) {
+		try {
+			for(IAnnotation ann : type.getAnnotations()) {
+				if(ann.getElementName().equals(WatchedEntries.CATEGORY_INFO)) {
+					for (IMemberValuePair pair : ann.getMemberValuePairs()) {
+						System.out.println(String.format("      Pair %s %s", pair.getMemberName(), pair.getValue()));
+						
+						switch(pair.getMemberName()) {
+						case PatchNoteData.ID: return pair.getValue().toString();
+						default: break;
+						}
+					}
+				}
+			}
+		} catch (JavaModelException e) {
+			// TODO Auto-generated catch block
+			e.printStackTrace();
+		}
+		
+		return "";
+	}
+	
+	/**
+	 * Process final fields in a class.
+	 * 
+	 * @param type The class to process.
+	 * @param category The category id to overwrite the field's category with. Will not overwrite if the empty String is provided.
+	 * @param entries The list to add the data for all fields to.
+	 */
+	private void processFields(IType type, String category, List<JsonObject> entries) {
+		try {
+			for (IField field : type.getFields()) {
+				if(field.getConstant() == null)
+					continue;
+				
+				System.out.println(String.format("Field info: %s = %s", field.getElementName(), field.getConstant()));
+				JsonObject partial = processAnnotations(field, category);
+				
+				if (partial != null && !partial.isEmpty())
+					entries.add(partial);
+			}
+		} catch (JavaModelException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Process annotations on a field.
+	 * 
+	 * @param field The field to process.
+	 * @param category The category id to overwrite the field's category with. Will not overwrite if the empty String is provided.
+	 * @return A JsonObject holding the data related to the field.
+	 */
+	@Nullable
+	private JsonObject processAnnotations(IField field, String category) {
+		try {
+			for (IAnnotation ann : field.getAnnotations()) {
+				if (ann.getElementName().equals(WatchedEntries.WATCHABLE)) {
+					System.out.println(String.format("   Annotation info: %s", ann.getElementName()));
+					JsonObject outer = WatchedEntries.create(field.getConstant());
+					
+					// Store info like category and name (if provided).
+					for (IMemberValuePair pair : ann.getMemberValuePairs())
+						WatchedEntries.addPair(outer, pair.getMemberName(), pair.getValue(), category);
+					
+					return WatchedEntries.finish(outer, category);
+				}
+			}
+		} catch (JavaModelException e) {
+			e.printStackTrace();
+		}
+		
+		return null;
+	}
+}
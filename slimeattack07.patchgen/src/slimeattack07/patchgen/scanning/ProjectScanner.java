@@ -0,0 +1,236 @@
+package slimeattack07.patchgen.scanning;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchParticipant;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.SearchRequestor;
+
+import com.google.gson.JsonObject;
+
+import slimeattack07.patchgen.Nullable;
+import slimeattack07.patchgen.Settings;
+import slimeattack07.patchgen.snapshots.SnapshotWriter;
+
+/** Scans all source package fragments of a project for watched constants. Fragments are scanned concurrently by a 
+ * bounded pool of workers, while their results are written in fragment order so the output does not depend on 
+ * scheduling. Only compilation units that the JDT search index reports as referencing the Watchable annotation are 
+ * visited, since units without a watched constant don't contribute any entries.
+ * 
+ */
+public class ProjectScanner {
+	/** How long to wait for a fragment before checking for cancellation again, in milliseconds. */
+	private static final long POLL_INTERVAL = 100;
+	
+	private final ScanCache cache;
+	private final EntryExtractor extractor;
+	
+	/** Constructor.
+	 * 
+	 * @param cache The cache to take unchanged units from.
+	 * @param extractor The extractor to use for changed units.
+	 */
+	public ProjectScanner(ScanCache cache, EntryExtractor extractor) {
+		this.cache = cache;
+		this.extractor = extractor;
+	}
+	
+	/** Scan a project.
+	 * 
+	 * @param project The project to scan.
+	 * @param writer The writer to write the entries of all watched constants to.
+	 * @param monitor The monitor to report progress per package to, and to check for cancellation.
+	 * @throws JavaModelException If a fragment or unit can't be read.
+	 * @throws IOException If writing fails.
+	 * @throws OperationCanceledException If the scan was canceled.
+	 */
+	public void scan(IJavaProject project, SnapshotWriter writer, IProgressMonitor monitor) throws JavaModelException, IOException {
+		List<IPackageFragment> fragments = getSourceFragments(project);
+		SubMonitor sub = SubMonitor.convert(monitor, "Scanning packages", fragments.size() + 1);
+		Set<String> candidates = findCandidates(project, sub.split(1));
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(Settings.getScanThreads(), Math.max(1, fragments.size())));
+		
+		try {
+			List<Future<List<JsonObject>>> results = new ArrayList<>(fragments.size());
+			
+			for (IPackageFragment frag : fragments)
+				results.add(pool.submit(() -> scanFragment(frag, candidates)));
+			
+			for (int i = 0; i < fragments.size(); i++) {
+				String name = fragments.get(i).getElementName();
+				sub.subTask(name.isEmpty() ? "(default package)" : name);
+				
+				for (JsonObject entry : await(results.get(i), sub))
+					writer.write(entry);
+				
+				sub.worked(1);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+	
+	/** Get the package fragments holding source files.
+	 * 
+	 * @param project The project.
+	 * @return The fragments.
+	 * @throws JavaModelException If the project can't be read.
+	 */
+	public static List<IPackageFragment> getSourceFragments(IJavaProject project) throws JavaModelException {
+		List<IPackageFragment> fragments = new ArrayList<>();
+		
+		for (IPackageFragment frag : project.getPackageFragments())
+			// Only process source files, ignore things like libraries.
+			if (frag.getKind() == IPackageFragmentRoot.K_SOURCE)
+				fragments.add(frag);
+		
+		return fragments;
+	}
+	
+	/** Get the folders the compiled class files of a project are written to.
+	 * 
+	 * @param project The project.
+	 * @return The folders in the file system.
+	 * @throws JavaModelException If the classpath can't be read.
+	 */
+	public static List<Path> getOutputFolders(IJavaProject project) throws JavaModelException {
+		LinkedHashSet<IPath> outputs = new LinkedHashSet<>();
+		outputs.add(project.getOutputLocation());
+		
+		for (IClasspathEntry entry : project.getResolvedClasspath(true))
+			if (entry.getEntryKind() == IClasspathEntry.CPE_SOURCE && entry.getOutputLocation() != null)
+				outputs.add(entry.getOutputLocation());
+		
+		IWorkspaceRoot root = project.getProject().getWorkspace().getRoot();
+		List<Path> folders = new ArrayList<>();
+		
+		for (IPath output : outputs) {
+			// A project can use its own root as output folder.
+			IResource resource = output.segmentCount() == 1 ? root.getProject(output.lastSegment()) : root.getFolder(output);
+			
+			if (resource.getLocation() != null)
+				folders.add(resource.getLocation().toFile().toPath());
+		}
+		
+		return folders;
+	}
+	
+	/** Find the compilation units that reference the Watchable annotation, using the JDT search index.
+	 * 
+	 * @param project The project to search.
+	 * @param monitor The monitor to report progress to.
+	 * @return The handles of the matching units, or null if the index could not be searched.
+	 */
+	@Nullable
+	private static Set<String> findCandidates(IJavaProject project, IProgressMonitor monitor) {
+		Set<String> candidates = new HashSet<>();
+		SearchPattern pattern = SearchPattern.createPattern(WatchedEntries.WATCHABLE, IJavaSearchConstants.ANNOTATION_TYPE, 
+				IJavaSearchConstants.ANNOTATION_TYPE_REFERENCE, SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
+		IJavaSearchScope scope = SearchEngine.createJavaSearchScope(new IJavaElement[] {project}, IJavaSearchScope.SOURCES);
+		SearchRequestor requestor = new SearchRequestor() {
+			@Override
+			public void acceptSearchMatch(SearchMatch match) {
+				if (match.getElement() instanceof IJavaElement) {
+					IJavaElement unit = ((IJavaElement) match.getElement()).getAncestor(IJavaElement.COMPILATION_UNIT);
+					
+					if (unit != null)
+						candidates.add(unit.getHandleIdentifier());
+				}
+			}
+		};
+		
+		try {
+			new SearchEngine().search(pattern, new SearchParticipant[] {SearchEngine.getDefaultSearchParticipant()}, scope, 
+					requestor, monitor);
+		} catch (CoreException e) {
+			System.out.println("Search index unavailable, scanning all compilation units");
+			e.printStackTrace();
+			return null;
+		}
+		
+		System.out.println(String.format("Found %d compilation unit(s) with watched constants", candidates.size()));
+		return candidates;
+	}
+	
+	/** Extract the entries of all units in a package fragment.
+	 * 
+	 * @param frag The package fragment.
+	 * @param candidates The handles of the units to extract, or null to extract all units.
+	 * @return The entries, in unit order.
+	 * @throws JavaModelException If the fragment or a unit can't be read.
+	 */
+	private List<JsonObject> scanFragment(IPackageFragment frag, @Nullable Set<String> candidates) throws JavaModelException {
+		List<ICompilationUnit> units = new ArrayList<>();
+		
+		for (ICompilationUnit unit : frag.getCompilationUnits())
+			if (candidates == null || candidates.contains(unit.getHandleIdentifier()))
+				units.add(unit);
+		
+		if (Thread.currentThread().isInterrupted())
+			throw new OperationCanceledException();
+		
+		return cache.getEntries(units, extractor);
+	}
+	
+	/** Wait for the result of a fragment, checking for cancellation in the meantime.
+	 * 
+	 * @param result The pending result.
+	 * @param monitor The monitor to check for cancellation.
+	 * @return The entries of the fragment.
+	 * @throws JavaModelException If the fragment or a unit can't be read.
+	 * @throws OperationCanceledException If the scan was canceled.
+	 */
+	private static List<JsonObject> await(Future<List<JsonObject>> result, IProgressMonitor monitor) throws JavaModelException {
+		while (true) {
+			if (monitor.isCanceled())
+				throw new OperationCanceledException();
+			
+			try {
+				return result.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// Still running, check for cancellation again.
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof JavaModelException)
+					throw (JavaModelException) e.getCause();
+				
+				if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+	}
+}
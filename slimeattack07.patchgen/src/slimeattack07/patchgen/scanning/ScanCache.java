@@ -0,0 +1,255 @@
+package slimeattack07.patchgen.scanning;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.JavaModelException;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/** Cache of the entries extracted per compilation unit, so that a scan only has to extract the units that changed 
+ * since the previous scan. Units are identified by their handle and considered unchanged as long as the modification
+ * stamp of their file is the same. The cache is stored in the working location of the project, outside of the 
+ * workspace, so writing it does not trigger any builds. Entries may be requested from several threads at once.
+ * 
+ */
+public class ScanCache {
+	public static final String PLUGIN_ID = "slimeattack07.patchgen";
+	public static final String FILE_NAME = "scan-cache.json";
+	public static final String FORMAT = "format";
+	public static final String UNITS = "units";
+	public static final String HANDLE = "handle";
+	public static final String STAMP = "stamp";
+	public static final String ENTRIES = "entries";
+	
+	/** Bumped whenever the extracted data changes, so caches written by older versions are discarded. */
+	public static final int FORMAT_VERSION = 1;
+	
+	private final File file;
+	private final Map<String, CachedUnit> units;
+	private final Set<String> seen = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger scanned = new AtomicInteger();
+	private final AtomicInteger cached = new AtomicInteger();
+	
+	/** Constructor.
+	 * 
+	 * @param file The file the cache is stored in, or null if it can't be stored.
+	 * @param units The cached units by handle.
+	 */
+	private ScanCache(File file, HashMap<String, CachedUnit> units) {
+		this.file = file;
+		this.units = new ConcurrentHashMap<>(units);
+	}
+	
+	/** Load the scan cache of a project. A missing or unreadable cache results in an empty cache.
+	 * 
+	 * @param project The project.
+	 * @return The cache.
+	 */
+	public static ScanCache load(IProject project) {
+		IPath location = project.getWorkingLocation(PLUGIN_ID);
+		File file = location == null ? null : location.append(FILE_NAME).toFile();
+		HashMap<String, CachedUnit> units = new HashMap<>();
+		
+		if(file != null && file.isFile()) {
+			try(Reader reader = new FileReader(file)){
+				JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
+				
+				if(root.has(FORMAT) && root.get(FORMAT).getAsInt() == FORMAT_VERSION) {
+					for(JsonElement element : root.getAsJsonArray(UNITS)) {
+						JsonObject jo = element.getAsJsonObject();
+						units.put(jo.get(HANDLE).getAsString(), new CachedUnit(jo.get(STAMP).getAsLong(), jo.getAsJsonArray(ENTRIES)));
+					}
+				}
+			} catch (IOException | JsonParseException | IllegalStateException e) {
+				System.out.println("Discarding unreadable scan cache");
+				e.printStackTrace();
+				units.clear();
+			}
+		}
+		
+		return new ScanCache(file, units);
+	}
+	
+	/** Get the entries of several compilation units, extracting only the units that changed since they were cached.
+	 * The changed units are passed to the extractor together, so it can process them as a batch.
+	 * 
+	 * @param units The compilation units.
+	 * @param extractor The extractor to use for changed units.
+	 * @return The entries of all units, in unit order. Callers must not modify them.
+	 * @throws JavaModelException If a unit can't be read.
+	 */
+	public List<JsonObject> getEntries(List<ICompilationUnit> units, EntryExtractor extractor) throws JavaModelException {
+		List<List<JsonObject>> results = new ArrayList<>(units.size());
+		List<ICompilationUnit> stale = new ArrayList<>();
+		List<Integer> positions = new ArrayList<>();
+		
+		for (ICompilationUnit unit : units) {
+			String handle = unit.getHandleIdentifier();
+			seen.add(handle);
+			CachedUnit entry = this.units.get(handle);
+			
+			if(entry != null && entry.stamp != IResource.NULL_STAMP && entry.stamp == getStamp(unit)) {
+				cached.incrementAndGet();
+				results.add(entry.getEntries());
+			}
+			else {
+				positions.add(results.size());
+				stale.add(unit);
+				results.add(null);
+			}
+		}
+		
+		if(!stale.isEmpty()) {
+			List<List<JsonObject>> extracted = extractor.extract(stale);
+			scanned.addAndGet(stale.size());
+			
+			for(int i = 0; i < stale.size(); i++) {
+				put(stale.get(i), extracted.get(i));
+				results.set(positions.get(i), extracted.get(i));
+			}
+		}
+		
+		List<JsonObject> entries = new ArrayList<>();
+		
+		for(List<JsonObject> result : results)
+			entries.addAll(result);
+		
+		return entries;
+	}
+	
+	/** Get the modification stamp of a compilation unit.
+	 * 
+	 * @param unit The compilation unit.
+	 * @return The modification stamp of its file, or {@link IResource#NULL_STAMP} if it can't be cached.
+	 * @throws JavaModelException If the unit can't be read.
+	 */
+	private static long getStamp(ICompilationUnit unit) throws JavaModelException {
+		IResource resource = unit.getResource();
+		
+		// Units open in an editor with unsaved changes are read from the editor, which the stamp doesn't cover.
+		if(resource == null || (unit.isWorkingCopy() && unit.hasUnsavedChanges()))
+			return IResource.NULL_STAMP;
+		
+		return resource.getModificationStamp();
+	}
+	
+	/** Cache the entries of a compilation unit.
+	 * 
+	 * @param unit The compilation unit.
+	 * @param entries The entries extracted from the unit.
+	 * @throws JavaModelException If the unit can't be read.
+	 */
+	private void put(ICompilationUnit unit, List<JsonObject> entries) throws JavaModelException {
+		long stamp = getStamp(unit);
+		
+		if(stamp == IResource.NULL_STAMP) {
+			units.remove(unit.getHandleIdentifier());
+			return;
+		}
+		
+		JsonArray array = new JsonArray(entries.size());
+		
+		for(JsonObject jo : entries)
+			array.add(jo);
+		
+		units.put(unit.getHandleIdentifier(), new CachedUnit(stamp, array));
+	}
+	
+	/** Store the cache. Units that were not requested since the cache was loaded no longer exist, and are dropped.
+	 * 
+	 */
+	public void save() {
+		if(file == null)
+			return;
+		
+		units.keySet().retainAll(seen);
+		JsonArray array = new JsonArray(units.size());
+		
+		for(String handle : units.keySet()) {
+			CachedUnit unit = units.get(handle);
+			JsonObject jo = new JsonObject();
+			jo.addProperty(HANDLE, handle);
+			jo.addProperty(STAMP, unit.stamp);
+			jo.add(ENTRIES, unit.entries);
+			array.add(jo);
+		}
+		
+		JsonObject root = new JsonObject();
+		root.addProperty(FORMAT, FORMAT_VERSION);
+		root.add(UNITS, array);
+		
+		try(Writer writer = new FileWriter(file)){
+			writer.write(root.toString());
+		} catch (IOException e) {
+			System.out.println("Failed to store scan cache");
+			e.printStackTrace();
+		}
+	}
+	
+	/** Get the amount of units that had to be extracted.
+	 * 
+	 * @return The amount of extracted units.
+	 */
+	public int getScanned() {
+		return scanned.get();
+	}
+	
+	/** Get the amount of units that were taken from the cache.
+	 * 
+	 * @return The amount of cached units.
+	 */
+	public int getCached() {
+		return cached.get();
+	}
+	
+	/** The entries cached for a single compilation unit.
+	 * 
+	 */
+	private static class CachedUnit {
+		private final long stamp;
+		private final JsonArray entries;
+		
+		/** Constructor.
+		 * 
+		 * @param stamp The modification stamp of the unit when it was extracted.
+		 * @param entries The extracted entries.
+		 */
+		public CachedUnit(long stamp, JsonArray entries) {
+			this.stamp = stamp;
+			this.entries = entries;
+		}
+		
+		/** Get the cached entries.
+		 * 
+		 * @return The entries.
+		 */
+		public List<JsonObject> getEntries() {
+			List<JsonObject> result = new ArrayList<>(entries.size());
+			
+			for(JsonElement element : entries)
+				result.add(element.getAsJsonObject());
+			
+			return result;
+		}
+	}
+}
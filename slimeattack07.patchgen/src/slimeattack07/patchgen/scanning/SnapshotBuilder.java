@@ -0,0 +1,171 @@
+package slimeattack07.patchgen.scanning;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+
+import slimeattack07.patchgen.Settings;
+import slimeattack07.patchgen.Utils;
+import slimeattack07.patchgen.diff.IdSorter;
+import slimeattack07.patchgen.snapshots.SnapshotStore;
+import slimeattack07.patchgen.snapshots.SnapshotWriter;
+
+/** Project builder that keeps src/patchgen/data/current.json up to date, so Generate can read it with the "current"
+ * extractor instead of scanning. Builds that don't touch any Java file are ignored. Otherwise a scan is scheduled after
+ * a short delay, which is restarted by every build in the meantime. The scan goes through the {@link ScanCache}, so
+ * only the units that changed since the previous scan are extracted again.
+ * 
+ */
+public class SnapshotBuilder extends IncrementalProjectBuilder {
+	public static final String ID = ScanCache.PLUGIN_ID + ".snapshotbuilder";
+	
+	private static final Map<IProject, Job> JOBS = new ConcurrentHashMap<>();
+	
+	@Override
+	protected IProject[] build(int kind, Map<String, String> args, IProgressMonitor monitor) throws CoreException {
+		IResourceDelta delta = kind == FULL_BUILD ? null : getDelta(getProject());
+		
+		if(delta == null || hasJavaChanges(delta))
+			schedule(getProject());
+		
+		return null;
+	}
+	
+	/** Schedule a scan of a project. A scan that is already waiting is postponed, a running scan is canceled.
+	 * 
+	 * @param project The project.
+	 */
+	public static void schedule(IProject project) {
+		Job job = JOBS.computeIfAbsent(project, SnapshotBuilder::createJob);
+		job.cancel();
+		job.schedule(Settings.getBuilderDelay());
+	}
+	
+	/** Wait until the pending scan of a project is done, if there is one.
+	 * 
+	 * @param project The project.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public static void join(IProject project) throws InterruptedException {
+		Job job = JOBS.get(project);
+		
+		if(job != null && job.getState() != Job.NONE)
+			job.join();
+	}
+	
+	/** Check if a delta touches any Java file.
+	 * 
+	 * @param delta The delta.
+	 * @return True if a Java file was added, removed or its content changed, false otherwise.
+	 * @throws CoreException If the delta can't be visited.
+	 */
+	private static boolean hasJavaChanges(IResourceDelta delta) throws CoreException {
+		boolean[] found = {false};
+		
+		delta.accept(child -> {
+			IResource resource = child.getResource();
+			
+			if(resource.getType() == IResource.FILE && "java".equals(resource.getFileExtension())
+					&& (child.getKind() != IResourceDelta.CHANGED || (child.getFlags() & IResourceDelta.CONTENT) != 0))
+				found[0] = true;
+			
+			return !found[0];
+		});
+		
+		return found[0];
+	}
+	
+	/** Create the scan job of a project.
+	 * 
+	 * @param project The project.
+	 * @return The job.
+	 */
+	private static Job createJob(IProject project) {
+		Job job = new Job(String.format("PatchGen: Updating snapshot of '%s'", project.getName())) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				return update(project, monitor);
+			}
+		};
+		
+		job.setRule(project);
+		job.setSystem(true);
+		return job;
+	}
+	
+	/** Scan a project and store the result as its current snapshot.
+	 * 
+	 * @param project The project.
+	 * @param monitor The monitor of the scan job.
+	 * @return The result of the scan.
+	 */
+	private static IStatus update(IProject project, IProgressMonitor monitor) {
+		if(!project.isOpen())
+			return Status.OK_STATUS;
+		
+		IJavaProject javaproject = JavaCore.create(project);
+		File temp = null;
+		File sorted = null;
+		
+		try {
+			temp = File.createTempFile("patchgen", ".json");
+			
+			// The other modes don't work on compilation units, so those fall back to the Java model.
+			EntryExtractor extractor = Extractors.getNames().contains(Settings.getExtractor()) ? Extractors.create()
+					: Extractors.create(Extractors.MODEL);
+			ScanCache cache = ScanCache.load(project);
+			
+			try(SnapshotWriter writer = new SnapshotWriter(new FileOutputStream(temp))){
+				new ProjectScanner(cache, extractor).scan(javaproject, writer, monitor);
+			}
+			
+			cache.save();
+			sorted = File.createTempFile("patchgen", ".json");
+			IdSorter.sortFile(temp, sorted, Settings.getDiffMemoryBudget());
+			IFile ifile = Utils.requestFile(project, "data", SnapshotStore.CURRENT, "json");
+			
+			if(ifile == null)
+				return new Status(IStatus.ERROR, ScanCache.PLUGIN_ID, "Failed to create snapshot file");
+			
+			try(InputStream is = new FileInputStream(sorted)){
+				if(ifile.exists())
+					ifile.setContents(is, false, true, null);
+				else
+					ifile.create(is, false, null);
+			}
+			
+			System.out.println(String.format("Updated snapshot of '%s', %d unchanged unit(s) were taken from the cache",
+					project.getName(), cache.getCached()));
+			return Status.OK_STATUS;
+		} catch (OperationCanceledException e) {
+			return Status.CANCEL_STATUS;
+		} catch (CoreException | IOException e) {
+			e.printStackTrace();
+			return new Status(IStatus.ERROR, ScanCache.PLUGIN_ID, "Failed to update snapshot", e);
+		} finally {
+			if(temp != null)
+				temp.delete();
+			
+			if(sorted != null)
+				sorted.delete();
+		}
+	}
+}
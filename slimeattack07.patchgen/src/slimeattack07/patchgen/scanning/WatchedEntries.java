@@ -0,0 +1,80 @@
+package slimeattack07.patchgen.scanning;
+
+import com.google.gson.JsonObject;
+
+import slimeattack07.patchgen.PatchNoteData;
+
+/** Utility class for building entries of watched constants, shared by all extractors so they produce the same data.
+ * 
+ */
+class WatchedEntries {
+	public static final String WATCHABLE = "Watchable";
+	public static final String CATEGORY_INFO = "CategoryInfo";
+	
+	/** Create an entry holding the value of a watched constant.
+	 * 
+	 * @param value The constant value of the field.
+	 * @return The entry.
+	 */
+	public static JsonObject create(Object value) {
+		JsonObject outer = new JsonObject();
+		
+		// Store value of field.
+		if (value instanceof Number)
+			outer.addProperty(PatchNoteData.VALUE, (Number) value);
+		else if (value instanceof Boolean)
+			outer.addProperty(PatchNoteData.VALUE, (Boolean) value);
+		else
+			outer.addProperty(PatchNoteData.VALUE, value.toString());
+		
+		return outer;
+	}
+	
+	/** Store a member value pair of the Watchable annotation in an entry.
+	 * 
+	 * @param outer The entry.
+	 * @param member The name of the member.
+	 * @param value The value of the member.
+	 * @param category The category id of the class. The category member is ignored unless this is the empty String.
+	 */
+	public static void addPair(JsonObject outer, String member, Object value, String category) {
+		System.out.println(String.format("      Pair %s %s", member, value));
+		
+		switch (member) {
+		case PatchNoteData.ID:
+			outer.addProperty(PatchNoteData.ID, value.toString());
+			break;
+		case PatchNoteData.CATEGORY:
+			if(category.isBlank())
+				outer.addProperty(PatchNoteData.CATEGORY, value.toString());
+			
+			break;
+		
+		case PatchNoteData.NAME:
+			outer.addProperty(PatchNoteData.NAME, value.toString());
+			break;
+		case PatchNoteData.BULLETED:
+			outer.addProperty(PatchNoteData.BULLETED, (boolean) value);
+			break;
+		default:
+			System.out.println(String.format("Unknown memberpair: %s = %s", member, value));
+			break;
+		}
+	}
+	
+	/** Finish an entry once all member value pairs have been stored.
+	 * 
+	 * @param outer The entry.
+	 * @param category The category id of the class, which overwrites the category of the field unless it is the empty
+	 * String.
+	 * @return The entry.
+	 */
+	public static JsonObject finish(JsonObject outer, String category) {
+		if(!category.isBlank())
+			outer.addProperty(PatchNoteData.CATEGORY, category);
+		
+		System.out.println("Generated following JSON:");
+		System.out.println(outer);
+		return outer;
+	}
+}
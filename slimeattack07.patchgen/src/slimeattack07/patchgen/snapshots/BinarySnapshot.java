@@ -0,0 +1,355 @@
+package slimeattack07.patchgen.snapshots;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import slimeattack07.patchgen.Nullable;
+import slimeattack07.patchgen.PatchNoteData;
+
+/** Compact binary version snapshot, read through a memory-mapped file. The records are stored in id order, so entries 
+ * can be looked up by id without turning them into JsonObjects first, and streamed straight into a diff without 
+ * sorting them. Snapshots have to be closed, so the file is unmapped before it is deleted or overwritten.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * int     magic, int format version
+ * int     string count n, int[n + 1] string offsets into the blob, byte[] UTF-8 string blob
+ * int     entry count m, followed by m fixed-size records sorted by id:
+ *         int id, int name, int category (string indices, -1 if absent),
+ *         byte flags, byte value type, short padding, long value
+ * </pre>
+ * The flags hold bulleted, is_text and developer_comment, each with a bit telling whether the field is present. Booleans are stored as 0/1, longs as is, doubles as their raw bits and Strings as string index. Numbers that
+ * can't be stored as long or double without changing their text are stored as string index with their own type.
+ */
+public class BinarySnapshot implements SnapshotLookup, Closeable {
+	public static final String EXTENSION = "pgsnap";
+	
+	static final int MAGIC = 0x50475342; // "PGSB"
+	static final int FORMAT_VERSION = 2;
+	static final int RECORD_SIZE = 24;
+	
+	static final int FLAG_HAS_BULLETED = 1;
+	static final int FLAG_BULLETED = 2;
+	static final int FLAG_HAS_IS_TEXT = 4;
+	static final int FLAG_IS_TEXT = 8;
+	static final int FLAG_HAS_DEVELOPER_COMMENT = 16;
+	static final int FLAG_DEVELOPER_COMMENT = 32;
+	
+	static final byte TYPE_NONE = 0;
+	static final byte TYPE_BOOLEAN = 1;
+	static final byte TYPE_LONG = 2;
+	static final byte TYPE_DOUBLE = 3;
+	static final byte TYPE_STRING = 4;
+	static final byte TYPE_NUMBER = 5;
+	
+	/** Null if mappings can't be released, in which case snapshots are read into memory. */
+	private static final Unmapper UNMAPPER = Unmapper.create();
+	
+	private final ByteBuffer buffer;
+	private final int string_offsets;
+	private final int string_blob;
+	private final String[] strings;
+	private final int records;
+	private final int size;
+	private boolean closed = false;
+	
+	/** Constructor.
+	 * 
+	 * @param buffer The buffer holding the snapshot.
+	 * @throws IOException If the buffer doesn't hold a supported snapshot.
+	 */
+	public BinarySnapshot(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		
+		if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION)
+			throw new IOException("Not a supported binary snapshot");
+		
+		int string_count = buffer.getInt(8);
+		string_offsets = 12;
+		string_blob = string_offsets + (string_count + 1) * 4;
+		strings = new String[string_count];
+		int entries = string_blob + buffer.getInt(string_offsets + string_count * 4);
+		size = buffer.getInt(entries);
+		records = entries + 4;
+	}
+	
+	/** Open a binary snapshot file. Local files are memory-mapped, anything else is read into memory. If mappings can't
+	 * be released on close, local files are read into memory as well, as a file can't be deleted or overwritten while 
+	 * it is mapped on some platforms.
+	 * 
+	 * @param ifile The file to open.
+	 * @return The snapshot. Must be closed by the caller.
+	 * @throws IOException If reading fails.
+	 * @throws CoreException If the file can't be opened.
+	 */
+	public static BinarySnapshot open(IFile ifile) throws IOException, CoreException {
+		if(ifile.getLocation() != null && UNMAPPER != null) {
+			File file = ifile.getLocation().toFile();
+			
+			// The mapping stays valid after the channel is closed.
+			try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				
+				try {
+					return new BinarySnapshot(buffer);
+				} catch(IOException e) {
+					UNMAPPER.unmap(buffer);
+					throw e;
+				}
+			}
+		}
+		
+		try(InputStream is = ifile.getContents()){
+			return new BinarySnapshot(ByteBuffer.wrap(is.readAllBytes()));
+		}
+	}
+	
+	/** Get the amount of entries in this snapshot.
+	 * 
+	 * @return The amount of entries.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/** Release the snapshot. Nothing may be read from it afterwards. Closing it again has no effect.
+	 * 
+	 */
+	@Override
+	public synchronized void close() {
+		if(!closed && buffer instanceof MappedByteBuffer)
+			UNMAPPER.unmap(buffer);
+		
+		closed = true;
+	}
+	
+	/** Find the position of an entry by id.
+	 * 
+	 * @param id The id of the entry.
+	 * @return The position of the entry, or -1 if no such entry exists.
+	 */
+	public int find(String id) {
+		int low = 0;
+		int high = size - 1;
+		
+		while(low <= high) {
+			int mid = (low + high) >>> 1;
+			int result = getId(mid).compareTo(id);
+			
+			if(result < 0)
+				low = mid + 1;
+			else if(result > 0)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		
+		return -1;
+	}
+	
+	@Override
+	public boolean contains(String id) {
+		return find(id) >= 0;
+	}
+	
+	@Override
+	@Nullable
+	public JsonElement getValue(String id) {
+		int pos = find(id);
+		return pos < 0 ? null : getValue(pos);
+	}
+	
+	/** Get the id of the entry at a position.
+	 * 
+	 * @param pos The position of the entry.
+	 * @return The id.
+	 */
+	private String getId(int pos) {
+		return getString(buffer.getInt(record(pos)));
+	}
+	
+	/** Get the value of the entry at a position.
+	 * 
+	 * @param pos The position of the entry.
+	 * @return The value, or null if the entry has no value.
+	 */
+	@Nullable
+	private JsonElement getValue(int pos) {
+		int record = record(pos);
+		long value = buffer.getLong(record + 16);
+		
+		switch(buffer.get(record + 13)) {
+		case TYPE_BOOLEAN: return new JsonPrimitive(value != 0);
+		case TYPE_LONG: return new JsonPrimitive(value);
+		case TYPE_DOUBLE: return new JsonPrimitive(Double.longBitsToDouble(value));
+		case TYPE_STRING: return new JsonPrimitive(getString((int) value));
+		case TYPE_NUMBER: return JsonParser.parseString(getString((int) value));
+		default: return null;
+		}
+	}
+	
+	/** Get the entry at a position as JsonObject, in the same form it has in a JSON snapshot.
+	 * 
+	 * @param pos The position of the entry.
+	 * @return The entry.
+	 */
+	public JsonObject getEntry(int pos) {
+		int record = record(pos);
+		JsonObject entry = new JsonObject();
+		JsonElement value = getValue(pos);
+		
+		if(value != null)
+			entry.add(PatchNoteData.VALUE, value);
+		
+		entry.addProperty(PatchNoteData.ID, getId(pos));
+		
+		int category = buffer.getInt(record + 8);
+		int name = buffer.getInt(record + 4);
+		byte flags = buffer.get(record + 12);
+		
+		if(category >= 0)
+			entry.addProperty(PatchNoteData.CATEGORY, getString(category));
+		
+		if(name >= 0)
+			entry.addProperty(PatchNoteData.NAME, getString(name));
+		
+		if((flags & FLAG_HAS_BULLETED) != 0)
+			entry.addProperty(PatchNoteData.BULLETED, (flags & FLAG_BULLETED) != 0);
+		
+		if((flags & FLAG_HAS_IS_TEXT) != 0)
+			entry.addProperty(PatchNoteData.IS_TEXT, (flags & FLAG_IS_TEXT) != 0);
+		
+		if((flags & FLAG_HAS_DEVELOPER_COMMENT) != 0)
+			entry.addProperty(PatchNoteData.DEVELOPER_COMMENT, (flags & FLAG_DEVELOPER_COMMENT) != 0);
+		
+		return entry;
+	}
+	
+	/** Iterate over all entries, in id order. Closing the iterator closes this snapshot.
+	 * 
+	 * @return The iterator.
+	 */
+	public SnapshotSource entries() {
+		return new SnapshotSource() {
+			private int pos = 0;
+			
+			@Override
+			public boolean isSortedById() {
+				return true;
+			}
+			
+			@Override
+			public void close() {
+				BinarySnapshot.this.close();
+			}
+			
+			@Override
+			public boolean hasNext() {
+				return pos < size;
+			}
+			
+			@Override
+			public JsonObject next() {
+				if(pos >= size)
+					throw new NoSuchElementException();
+				
+				return getEntry(pos++);
+			}
+		};
+	}
+	
+	/** Get the start of a record.
+	 * 
+	 * @param pos The position of the record.
+	 * @return The offset of the record in the buffer.
+	 */
+	private int record(int pos) {
+		return records + pos * RECORD_SIZE;
+	}
+	
+	/** Get a String from the string table. Strings are decoded on first use.
+	 * 
+	 * @param index The index of the String.
+	 * @return The String.
+	 */
+	private String getString(int index) {
+		String s = strings[index];
+		
+		if(s == null) {
+			int start = buffer.getInt(string_offsets + index * 4);
+			int end = buffer.getInt(string_offsets + (index + 1) * 4);
+			byte[] bytes = new byte[end - start];
+			buffer.get(string_blob + start, bytes);
+			s = new String(bytes, StandardCharsets.UTF_8);
+			strings[index] = s;
+		}
+		
+		return s;
+	}
+	
+	/** Releases memory mappings right away instead of waiting for them to be garbage collected. Relies on 
+	 * sun.misc.Unsafe, so it may not be available.
+	 * 
+	 */
+	private static class Unmapper {
+		private final Object unsafe;
+		private final Method invoke_cleaner;
+		
+		/** Constructor.
+		 * 
+		 * @param unsafe The Unsafe instance.
+		 * @param invoke_cleaner The method releasing a mapping.
+		 */
+		private Unmapper(Object unsafe, Method invoke_cleaner) {
+			this.unsafe = unsafe;
+			this.invoke_cleaner = invoke_cleaner;
+		}
+		
+		/** Create the unmapper.
+		 * 
+		 * @return The unmapper, or null if mappings can't be released.
+		 */
+		@Nullable
+		private static Unmapper create() {
+			try {
+				Class<?> clazz = Class.forName("sun.misc.Unsafe");
+				Field field = clazz.getDeclaredField("theUnsafe");
+				field.setAccessible(true);
+				return new Unmapper(field.get(null), clazz.getMethod("invokeCleaner", ByteBuffer.class));
+			} catch(ReflectiveOperationException | RuntimeException e) {
+				System.out.println("Unable to release memory mappings, binary snapshots will be read into memory instead");
+				return null;
+			}
+		}
+		
+		/** Release a mapping.
+		 * 
+		 * @param buffer The mapped buffer. Must not be used afterwards.
+		 */
+		private void unmap(ByteBuffer buffer) {
+			try {
+				invoke_cleaner.invoke(unsafe, buffer);
+			} catch(ReflectiveOperationException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+}
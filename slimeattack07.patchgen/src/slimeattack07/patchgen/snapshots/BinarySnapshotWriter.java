@@ -0,0 +1,217 @@
+package slimeattack07.patchgen.snapshots;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import slimeattack07.patchgen.PatchNoteData;
+
+/** Writer for binary version snapshots. See {@link BinarySnapshot} for the layout.
+ * Entries are kept in compact form until the snapshot is written, as the string table and id order are only known
+ * once all entries have been added.
+ * 
+ */
+public class BinarySnapshotWriter {
+	private final HashMap<String, Integer> string_ids = new HashMap<>();
+	private final List<String> strings = new ArrayList<>();
+	private final List<Record> records = new ArrayList<>();
+	private final HashSet<String> ids = new HashSet<>();
+	
+	/** Add an entry. Only entries that read back exactly as they are can be added: entries with a String id that wasn't
+	 * added before, a String name and category, a primitive value, boolean flags and no other fields.
+	 * 
+	 * @param entry The entry to add.
+	 * @return True if the entry was added, false if it can't be stored in a binary snapshot.
+	 */
+	public boolean add(JsonObject entry) {
+		for(String key : entry.keySet()) {
+			JsonElement element = entry.get(key);
+			
+			switch(key) {
+			case PatchNoteData.ID:
+			case PatchNoteData.NAME:
+			case PatchNoteData.CATEGORY:
+				if(!isString(element))
+					return false;
+				
+				break;
+			case PatchNoteData.BULLETED:
+			case PatchNoteData.IS_TEXT:
+			case PatchNoteData.DEVELOPER_COMMENT:
+				if(!element.isJsonPrimitive() || !element.getAsJsonPrimitive().isBoolean())
+					return false;
+				
+				break;
+			case PatchNoteData.VALUE:
+				if(!element.isJsonPrimitive())
+					return false;
+				
+				break;
+			default:
+				return false;
+			}
+		}
+		
+		if(!entry.has(PatchNoteData.ID) || !ids.add(entry.get(PatchNoteData.ID).getAsString()))
+			return false;
+		
+		Record record = new Record();
+		record.id = intern(entry.get(PatchNoteData.ID).getAsString());
+		record.name = entry.has(PatchNoteData.NAME) ? intern(entry.get(PatchNoteData.NAME).getAsString()) : -1;
+		record.category = entry.has(PatchNoteData.CATEGORY) ? intern(entry.get(PatchNoteData.CATEGORY).getAsString()) : -1;
+		record.flags = getFlag(entry, PatchNoteData.BULLETED, BinarySnapshot.FLAG_HAS_BULLETED, BinarySnapshot.FLAG_BULLETED)
+				| getFlag(entry, PatchNoteData.IS_TEXT, BinarySnapshot.FLAG_HAS_IS_TEXT, BinarySnapshot.FLAG_IS_TEXT)
+				| getFlag(entry, PatchNoteData.DEVELOPER_COMMENT, BinarySnapshot.FLAG_HAS_DEVELOPER_COMMENT, 
+						BinarySnapshot.FLAG_DEVELOPER_COMMENT);
+		
+		setValue(record, entry.get(PatchNoteData.VALUE));
+		records.add(record);
+		return true;
+	}
+	
+	/** Write the snapshot.
+	 * 
+	 * @param os The stream to write to. Will be closed afterwards.
+	 * @throws IOException If writing fails.
+	 */
+	public void write(OutputStream os) throws IOException {
+		records.sort((r1, r2) -> strings.get(r1.id).compareTo(strings.get(r2.id)));
+		
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))){
+			out.writeInt(BinarySnapshot.MAGIC);
+			out.writeInt(BinarySnapshot.FORMAT_VERSION);
+			out.writeInt(strings.size());
+			
+			List<byte[]> encoded = new ArrayList<>(strings.size());
+			int offset = 0;
+			
+			for(String s : strings) {
+				byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+				encoded.add(bytes);
+				out.writeInt(offset);
+				offset += bytes.length;
+			}
+			
+			out.writeInt(offset);
+			
+			for(byte[] bytes : encoded)
+				out.write(bytes);
+			
+			out.writeInt(records.size());
+			
+			for(Record record : records) {
+				out.writeInt(record.id);
+				out.writeInt(record.name);
+				out.writeInt(record.category);
+				out.writeByte(record.flags);
+				out.writeByte(record.type);
+				out.writeShort(0);
+				out.writeLong(record.value);
+			}
+		}
+	}
+	
+	/** Check if an element is a JSON String.
+	 * 
+	 * @param element The element.
+	 * @return True if the element is a String primitive, false otherwise.
+	 */
+	private static boolean isString(JsonElement element) {
+		return element.isJsonPrimitive() && element.getAsJsonPrimitive().isString();
+	}
+	
+	/** Get the flags of a boolean field.
+	 * 
+	 * @param entry The entry holding the field.
+	 * @param key The key of the field.
+	 * @param has The flag telling whether the field is present.
+	 * @param value The flag holding the value of the field.
+	 * @return The flags to set.
+	 */
+	private static int getFlag(JsonObject entry, String key, int has, int value) {
+		if(!entry.has(key))
+			return 0;
+		
+		return entry.get(key).getAsBoolean() ? has | value : has;
+	}
+	
+	/** Store a value in a record, picking the most compact type that keeps the value exactly as it is.
+	 * 
+	 * @param record The record to store the value in.
+	 * @param value The value.
+	 */
+	private void setValue(Record record, JsonElement value) {
+		if(value == null) {
+			record.type = BinarySnapshot.TYPE_NONE;
+			return;
+		}
+		
+		JsonPrimitive primitive = value.getAsJsonPrimitive();
+		
+		if(primitive.isBoolean()) {
+			record.type = BinarySnapshot.TYPE_BOOLEAN;
+			record.value = primitive.getAsBoolean() ? 1 : 0;
+		}
+		else if(primitive.isNumber()) {
+			String text = primitive.getAsString();
+			
+			try {
+				record.value = Long.parseLong(text);
+				record.type = BinarySnapshot.TYPE_LONG;
+				return;
+			} catch(NumberFormatException e) {}
+			
+			try {
+				double d = Double.parseDouble(text);
+				
+				// Only store as double if that doesn't change how the number is displayed in the patch notes.
+				if(Double.toString(d).equals(text)) {
+					record.value = Double.doubleToRawLongBits(d);
+					record.type = BinarySnapshot.TYPE_DOUBLE;
+					return;
+				}
+			} catch(NumberFormatException e) {}
+			
+			record.value = intern(text);
+			record.type = BinarySnapshot.TYPE_NUMBER;
+		}
+		else {
+			record.value = intern(primitive.getAsString());
+			record.type = BinarySnapshot.TYPE_STRING;
+		}
+	}
+	
+	/** Get the index of a String in the string table, adding it if needed.
+	 * 
+	 * @param s The String.
+	 * @return The index.
+	 */
+	private int intern(String s) {
+		return string_ids.computeIfAbsent(s, key -> {
+			strings.add(key);
+			return strings.size() - 1;
+		});
+	}
+	
+	/** Compact form of a single entry.
+	 * 
+	 */
+	private static class Record {
+		private int id;
+		private int name;
+		private int category;
+		private int flags;
+		private byte type;
+		private long value;
+	}
+}
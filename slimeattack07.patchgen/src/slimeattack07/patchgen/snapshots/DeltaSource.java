@@ -0,0 +1,143 @@
+package slimeattack07.patchgen.snapshots;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+import com.google.gson.JsonObject;
+
+import slimeattack07.patchgen.PatchNoteData;
+
+/** Reconstructs a version by applying a delta to the entries of its base version. Both must be in id order, and the
+ * result is in id order as well. Delta entries replace the base entry with the same id, or add a new entry if there is
+ * none. Delta entries marked as removed drop the base entry instead.
+ * 
+ */
+public class DeltaSource implements SnapshotSource {
+	public static final String REMOVED = "removed";
+	
+	private final SnapshotSource base;
+	private final SnapshotSource delta;
+	private JsonObject base_head;
+	private JsonObject delta_head;
+	private JsonObject next;
+	
+	/** Constructor.
+	 * 
+	 * @param base The entries of the base version, in id order. Will be closed when this source is closed.
+	 * @param delta The delta entries, in id order. Will be closed when this source is closed.
+	 */
+	public DeltaSource(SnapshotSource base, SnapshotSource delta) {
+		this.base = base;
+		this.delta = delta;
+		base_head = poll(base);
+		delta_head = poll(delta);
+		advance();
+	}
+	
+	/** Create an entry marking an id as removed.
+	 * 
+	 * @param id The removed id.
+	 * @return The marker entry.
+	 */
+	public static JsonObject removal(String id) {
+		JsonObject marker = new JsonObject();
+		marker.addProperty(PatchNoteData.ID, id);
+		marker.addProperty(REMOVED, true);
+		return marker;
+	}
+	
+	@Override
+	public boolean isSortedById() {
+		return true;
+	}
+	
+	@Override
+	public boolean hasNext() {
+		return next != null;
+	}
+	
+	@Override
+	public JsonObject next() {
+		if(next == null)
+			throw new NoSuchElementException();
+		
+		JsonObject current = next;
+		advance();
+		return current;
+	}
+	
+	/** Move to the next entry of the reconstructed version.
+	 * 
+	 */
+	private void advance() {
+		next = null;
+		
+		while(next == null && (base_head != null || delta_head != null)) {
+			int result;
+			
+			if(base_head == null)
+				result = 1;
+			else if(delta_head == null)
+				result = -1;
+			else
+				result = getId(base_head).compareTo(getId(delta_head));
+			
+			if(result < 0) {
+				next = base_head;
+				base_head = poll(base);
+			}
+			else {
+				if(result == 0)
+					base_head = poll(base);
+				
+				if(!isRemoval(delta_head))
+					next = delta_head;
+				
+				delta_head = poll(delta);
+			}
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		try {
+			base.close();
+		} finally {
+			delta.close();
+		}
+	}
+	
+	/** Get the next entry with an id from a source.
+	 * 
+	 * @param source The source.
+	 * @return The entry, or null if the source is exhausted.
+	 */
+	private static JsonObject poll(SnapshotSource source) {
+		while(source.hasNext()) {
+			JsonObject entry = source.next();
+			
+			if(entry.has(PatchNoteData.ID))
+				return entry;
+		}
+		
+		return null;
+	}
+	
+	/** Get the id of an entry.
+	 * 
+	 * @param entry The entry.
+	 * @return The id.
+	 */
+	private static String getId(JsonObject entry) {
+		return entry.get(PatchNoteData.ID).getAsString();
+	}
+	
+	/** Check if a delta entry marks its id as removed.
+	 * 
+	 * @param entry The delta entry.
+	 * @return True if the entry is a removal marker.
+	 */
+	public static boolean isRemoval(JsonObject entry) {
+		return entry.has(REMOVED) && entry.get(REMOVED).getAsBoolean();
+	}
+}
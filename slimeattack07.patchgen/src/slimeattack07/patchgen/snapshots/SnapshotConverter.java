@@ -0,0 +1,69 @@
+package slimeattack07.patchgen.snapshots;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+
+import com.google.gson.JsonObject;
+
+/** Converts JSON version snapshots to binary version snapshots.
+ * 
+ */
+public class SnapshotConverter {
+	
+	/** Convert a JSON snapshot to a binary snapshot. Nothing is written if any entry can't be stored in a binary 
+	 * snapshot without changing it.
+	 * 
+	 * @param json The JSON snapshot to convert.
+	 * @param binary The file to write the binary snapshot to. Will be overwritten if it exists. Must not be open.
+	 * @return The amount of converted entries, or -1 if the snapshot can't be converted.
+	 * @throws IOException If reading or writing fails.
+	 * @throws CoreException If a file can't be opened or written.
+	 */
+	public static int convert(IFile json, IFile binary) throws IOException, CoreException {
+		BinarySnapshotWriter writer = new BinarySnapshotWriter();
+		int count = 0;
+		
+		try(SnapshotReader reader = new SnapshotReader(json.getContents())){
+			while(reader.hasNext()) {
+				JsonObject entry = reader.next();
+				
+				if(!writer.add(entry)) {
+					System.out.println(String.format("Entry can't be stored in a binary snapshot: %s", entry));
+					return -1;
+				}
+				
+				count++;
+			}
+		} catch(SnapshotException e) {
+			throw e.getCause();
+		}
+		
+		write(writer, binary);
+		return count;
+	}
+	
+	/** Write a binary snapshot to a file.
+	 * 
+	 * @param writer The writer holding the snapshot.
+	 * @param binary The file to write to. Will be overwritten if it exists.
+	 * @throws IOException If writing fails.
+	 * @throws CoreException If the file can't be written.
+	 */
+	public static void write(BinarySnapshotWriter writer, IFile binary) throws IOException, CoreException {
+		// Binary snapshots are much smaller than their JSON counterpart, so buffering them is fine.
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		writer.write(bos);
+		
+		try(InputStream is = new ByteArrayInputStream(bos.toByteArray())){
+			if(binary.exists())
+				binary.setContents(is, false, true, null);
+			else
+				binary.create(is, false, null);
+		}
+	}
+}
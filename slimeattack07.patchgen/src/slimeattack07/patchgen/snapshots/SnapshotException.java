@@ -0,0 +1,25 @@
+package slimeattack07.patchgen.snapshots;
+
+import java.io.IOException;
+
+/** Unchecked exception for failures while iterating over snapshot entries, where Iterator doesn't allow checked
+ * exceptions.
+ * 
+ */
+public class SnapshotException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+	
+	/** Constructor.
+	 * 
+	 * @param message The message.
+	 * @param cause The underlying cause.
+	 */
+	public SnapshotException(String message, IOException cause) {
+		super(message, cause);
+	}
+	
+	@Override
+	public synchronized IOException getCause() {
+		return (IOException) super.getCause();
+	}
+}
@@ -0,0 +1,240 @@
+package slimeattack07.patchgen.snapshots;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import slimeattack07.patchgen.CategoryData;
+import slimeattack07.patchgen.Nullable;
+import slimeattack07.patchgen.PatchNoteData;
+
+/** Content hash of a snapshot in a Merkle layout. Every category has a hash covering its own entries and the hashes of
+ * its sub-categories, and the root hash covers the entries without category and the top level categories. Two
+ * snapshots with the same root hash hold the same entries, and all entries of a category with the same hash in both
+ * snapshots are unchanged. Entries are hashed with their keys sorted, so the order of their fields doesn't matter.
+ * 
+ */
+public class SnapshotHash {
+	public static final String ROOT = "root";
+	public static final String CATEGORIES = "categories";
+	public static final String ALGORITHM = "SHA-256";
+	
+	private final String root;
+	private final Map<String, String> categories;
+	
+	/** Constructor.
+	 * 
+	 * @param root The root hash.
+	 * @param categories The hashes of the categories by id.
+	 */
+	private SnapshotHash(String root, Map<String, String> categories) {
+		this.root = root;
+		this.categories = categories;
+	}
+	
+	/** Hash the entries of a snapshot. The entries must be in id order, so the same entries always give the same hash.
+	 * 
+	 * @param source The entries, in id order. Will be closed by this method.
+	 * @return The hash.
+	 * @throws IOException If reading fails.
+	 */
+	public static SnapshotHash compute(SnapshotSource source) throws IOException {
+		Map<String, MessageDigest> leaves = new HashMap<>();
+		
+		try(SnapshotSource entries = source){
+			while(entries.hasNext()) {
+				JsonObject entry = entries.next();
+				String category = entry.has(PatchNoteData.CATEGORY) ? entry.get(PatchNoteData.CATEGORY).getAsString() : "";
+				StringBuilder sb = new StringBuilder();
+				appendCanonical(sb, entry);
+				sb.append('\n');
+				leaves.computeIfAbsent(category, c -> newDigest()).update(sb.toString().getBytes(StandardCharsets.UTF_8));
+			}
+		} catch(SnapshotException e) {
+			throw e.getCause();
+		}
+		
+		// Every prefix of a category is a node in the tree, even if it holds no entries itself.
+		Map<String, Set<String>> children = new HashMap<>();
+		Set<String> nodes = new HashSet<>(leaves.keySet());
+		nodes.add("");
+		
+		for(String category : leaves.keySet()) {
+			String child = category;
+			
+			while(!child.isEmpty()) {
+				String parent = CategoryData.getParent(child);
+				children.computeIfAbsent(parent, p -> new TreeSet<>()).add(child);
+				nodes.add(parent);
+				child = parent;
+			}
+		}
+		
+		// Deepest categories first, so the hashes of all children are known when a category is hashed.
+		List<String> order = new ArrayList<>(nodes);
+		order.sort((a, b) -> Long.compare(depth(b), depth(a)));
+		Map<String, String> hashes = new TreeMap<>();
+		
+		for(String node : order) {
+			MessageDigest digest = newDigest();
+			MessageDigest leaf = leaves.get(node);
+			digest.update(leaf == null ? new byte[0] : leaf.digest());
+			
+			for(String child : children.getOrDefault(node, Collections.emptySet()))
+				digest.update(String.format("\n%s=%s", child, hashes.get(child)).getBytes(StandardCharsets.UTF_8));
+			
+			hashes.put(node, toHex(digest.digest()));
+		}
+		
+		String root_hash = hashes.remove("");
+		return new SnapshotHash(root_hash, hashes);
+	}
+	
+	/** Read a hash written by {@link #toJson()}.
+	 * 
+	 * @param jo The JSON.
+	 * @return The hash, or null if the JSON is not a hash.
+	 */
+	@Nullable
+	public static SnapshotHash fromJson(JsonObject jo) {
+		if(!jo.has(ROOT) || !jo.has(CATEGORIES))
+			return null;
+		
+		Map<String, String> categories = new TreeMap<>();
+		
+		for(Map.Entry<String, JsonElement> entry : jo.getAsJsonObject(CATEGORIES).entrySet())
+			categories.put(entry.getKey(), entry.getValue().getAsString());
+		
+		return new SnapshotHash(jo.get(ROOT).getAsString(), categories);
+	}
+	
+	/** Write the hash as JSON.
+	 * 
+	 * @return The JSON.
+	 */
+	public JsonObject toJson() {
+		JsonObject cats = new JsonObject();
+		
+		for(Map.Entry<String, String> entry : categories.entrySet())
+			cats.addProperty(entry.getKey(), entry.getValue());
+		
+		JsonObject jo = new JsonObject();
+		jo.addProperty(ROOT, root);
+		jo.add(CATEGORIES, cats);
+		return jo;
+	}
+	
+	/** Get the root hash.
+	 * 
+	 * @return The root hash.
+	 */
+	public String getRoot() {
+		return root;
+	}
+	
+	/** Check if another snapshot holds the same entries.
+	 * 
+	 * @param other The hash of the other snapshot.
+	 * @return True if the root hashes are the same, false otherwise.
+	 */
+	public boolean matches(SnapshotHash other) {
+		return root.equals(other.root);
+	}
+	
+	/** Get the categories that are the same in another snapshot, including their sub-categories.
+	 * 
+	 * @param other The hash of the other snapshot.
+	 * @return The ids of the unchanged categories.
+	 */
+	public Set<String> getUnchangedCategories(SnapshotHash other) {
+		Set<String> unchanged = new HashSet<>();
+		
+		for(Map.Entry<String, String> entry : categories.entrySet())
+			if(entry.getValue().equals(other.categories.get(entry.getKey())))
+				unchanged.add(entry.getKey());
+		
+		return unchanged;
+	}
+	
+	/** Write an element as JSON with the keys of all objects sorted.
+	 * 
+	 * @param sb The builder to write to.
+	 * @param element The element.
+	 */
+	private static void appendCanonical(StringBuilder sb, JsonElement element) {
+		if(element.isJsonObject()) {
+			sb.append('{');
+			boolean first = true;
+			
+			for(Map.Entry<String, JsonElement> entry : new TreeMap<>(element.getAsJsonObject().asMap()).entrySet()) {
+				sb.append(first ? "" : ",").append(new JsonPrimitive(entry.getKey())).append(':');
+				appendCanonical(sb, entry.getValue());
+				first = false;
+			}
+			
+			sb.append('}');
+		}
+		else if(element.isJsonArray()) {
+			sb.append('[');
+			
+			for(int i = 0; i < element.getAsJsonArray().size(); i++) {
+				sb.append(i == 0 ? "" : ",");
+				appendCanonical(sb, element.getAsJsonArray().get(i));
+			}
+			
+			sb.append(']');
+		}
+		else
+			sb.append(element.toString());
+	}
+	
+	/** Get the depth of a category.
+	 * 
+	 * @param id The id of the category, or the empty String for the root.
+	 * @return The amount of segments in the id.
+	 */
+	private static long depth(String id) {
+		return id.isEmpty() ? 0 : id.chars().filter(ch -> ch == '.').count() + 1;
+	}
+	
+	/** Create a new digest.
+	 * 
+	 * @return The digest.
+	 */
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256.
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/** Convert bytes to a hexadecimal String.
+	 * 
+	 * @param bytes The bytes.
+	 * @return The hexadecimal String.
+	 */
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		
+		for(byte b : bytes)
+			sb.append(String.format("%02x", b));
+		
+		return sb.toString();
+	}
+}
@@ -0,0 +1,26 @@
+package slimeattack07.patchgen.snapshots;
+
+import com.google.gson.JsonElement;
+
+import slimeattack07.patchgen.Nullable;
+
+/** Read-only access to the entries of a snapshot by id. This is all the old side of a comparison needs.
+ * 
+ */
+public interface SnapshotLookup {
+	
+	/** Check if the snapshot contains an entry with the specified id.
+	 * 
+	 * @param id The id to check for.
+	 * @return True if id is contained in the snapshot, false otherwise.
+	 */
+	public boolean contains(String id);
+	
+	/** Get the value of the entry with the specified id.
+	 * 
+	 * @param id The id of the entry.
+	 * @return The value, or null if no such entry exists or it has no value.
+	 */
+	@Nullable
+	public JsonElement getValue(String id);
+}
@@ -0,0 +1,128 @@
+package slimeattack07.patchgen.snapshots;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.NoSuchElementException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import slimeattack07.patchgen.JsonAdapters;
+import slimeattack07.patchgen.PatchNoteData;
+
+/** Streaming reader for version snapshots. Entries are read back one at a time, so only the entry currently being 
+ * handled has to be kept in memory. Any top level field other than "data" and "meta" is skipped.
+ * 
+ */
+public class SnapshotReader implements SnapshotSource {
+	private static final TypeAdapter<JsonElement> ELEMENT_ADAPTER = JsonAdapters.ELEMENT;
+	
+	private final JsonReader reader;
+	private JsonObject next;
+	private boolean in_data = false;
+	private boolean done = false;
+	private boolean sorted = false;
+	
+	/** Constructor.
+	 * 
+	 * @param is The stream to read the snapshot from. Will be closed when this reader is closed.
+	 * @throws IOException If reading fails.
+	 */
+	public SnapshotReader(InputStream is) throws IOException {
+		reader = new JsonReader(new InputStreamReader(is));
+		
+		try {
+			// An empty file (like a reset text.json) simply contains no entries.
+			if(reader.peek() != JsonToken.BEGIN_OBJECT)
+				done = true;
+			else
+				reader.beginObject();
+		} catch(EOFException e) {
+			done = true;
+		}
+		
+		advance();
+	}
+	
+	/** Whether the snapshot is marked as being in id order. Only known once the "meta" object has been read, which 
+	 * precedes the data in snapshots written by {@link SnapshotWriter}.
+	 */
+	@Override
+	public boolean isSortedById() {
+		return sorted;
+	}
+	
+	@Override
+	public boolean hasNext() {
+		return next != null;
+	}
+	
+	@Override
+	public JsonObject next() {
+		if(next == null)
+			throw new NoSuchElementException();
+		
+		JsonObject current = next;
+		
+		try {
+			advance();
+		} catch (IOException e) {
+			throw new SnapshotException("Failed to read snapshot entry", e);
+		}
+		
+		return current;
+	}
+	
+	/** Move to the next entry, skipping anything that isn't one.
+	 * 
+	 * @throws IOException If reading fails.
+	 */
+	private void advance() throws IOException {
+		next = null;
+		
+		while(!done) {
+			if(in_data) {
+				if(!reader.hasNext()) {
+					reader.endArray();
+					in_data = false;
+					continue;
+				}
+				
+				JsonElement element = ELEMENT_ADAPTER.read(reader);
+				
+				if(element.isJsonObject()) {
+					next = element.getAsJsonObject();
+					return;
+				}
+			}
+			else if(reader.hasNext()) {
+				String name = reader.nextName();
+				
+				if(name.equals(PatchNoteData.DATA) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+					reader.beginArray();
+					in_data = true;
+				}
+				else if(name.equals(PatchNoteData.META) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+					JsonObject meta = ELEMENT_ADAPTER.read(reader).getAsJsonObject();
+					sorted = meta.has(SnapshotWriter.SORTED) && meta.get(SnapshotWriter.SORTED).getAsBoolean();
+				}
+				else
+					reader.skipValue();
+			}
+			else {
+				reader.endObject();
+				done = true;
+			}
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
@@ -0,0 +1,18 @@
+package slimeattack07.patchgen.snapshots;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+import com.google.gson.JsonObject;
+
+/** Source of snapshot entries that are read one at a time.
+ * 
+ */
+public interface SnapshotSource extends Iterator<JsonObject>, Closeable {
+	
+	/** Whether the entries are guaranteed to come in id order.
+	 * 
+	 * @return True if entries are sorted by id, false if the order is unknown.
+	 */
+	public boolean isSortedById();
+}
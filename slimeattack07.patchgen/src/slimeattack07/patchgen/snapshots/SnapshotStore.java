@@ -0,0 +1,481 @@
+package slimeattack07.patchgen.snapshots;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+
+import slimeattack07.patchgen.Nullable;
+import slimeattack07.patchgen.ParsedDataCache;
+import slimeattack07.patchgen.Settings;
+import slimeattack07.patchgen.Utils;
+import slimeattack07.patchgen.diff.Change;
+import slimeattack07.patchgen.diff.ChangeSet;
+import slimeattack07.patchgen.diff.DiffEngine;
+import slimeattack07.patchgen.diff.IdSorter;
+import slimeattack07.patchgen.snapshots.VersionHistory.Record;
+
+/** Utility class for locating and opening the stored snapshot of a version. A version is stored either in full as 
+ * JSON, optionally with a binary snapshot next to it, or as delta against an earlier version. The binary snapshot is 
+ * preferred as long as it is not older than the JSON. Deltas are reconstructed transparently when a version is opened.
+ * 
+ */
+public class SnapshotStore {
+	public static final String DELTA_EXTENSION = "pgdelta";
+	/** The snapshot written by the annotation processor during the last build. Not a version. */
+	public static final String CURRENT = "current";
+	
+	/** Get the JSON snapshot file of a version.
+	 * 
+	 * @param project The project the version belongs to.
+	 * @param version The version.
+	 * @return The file, which may not exist.
+	 */
+	public static IFile getJsonFile(IProject project, String version) {
+		return Utils.requestFile(project, "data", version, "json");
+	}
+	
+	/** Get the binary snapshot file of a version.
+	 * 
+	 * @param project The project the version belongs to.
+	 * @param version The version.
+	 * @return The file, which may not exist.
+	 */
+	public static IFile getBinaryFile(IProject project, String version) {
+		return Utils.requestFile(project, "data", version, BinarySnapshot.EXTENSION);
+	}
+	
+	/** Get the delta file of a version.
+	 * 
+	 * @param project The project the version belongs to.
+	 * @param version The version.
+	 * @return The file, which may not exist.
+	 */
+	public static IFile getDeltaFile(IProject project, String version) {
+		return Utils.requestFile(project, "data", version, DELTA_EXTENSION);
+	}
+	
+	/** Check if a version has been stored.
+	 * 
+	 * @param project The project the version belongs to.
+	 * @param version The version.
+	 * @return True if a snapshot exists for the version, false otherwise.
+	 */
+	public static boolean exists(IProject project, String version) {
+		return getJsonFile(project, version).exists() || getBinaryFile(project, version).exists() 
+				|| getDeltaFile(project, version).exists();
+	}
+	
+	/** Get the content hash of a version.
+	 * 
+	 * @param project The project the version belongs to.
+	 * @param version The version.
+	 * @return The hash, or null if it is unknown or the snapshot was written after the hash.
+	 * @throws IOException If reading the history fails.
+	 * @throws CoreException If the history can't be opened.
+	 */
+	@Nullable
+	public static SnapshotHash getHash(IProject project, String version) throws IOException, CoreException {
+		VersionHistory history = VersionHistory.load(project);
+		Record record = history.get(version);
+		
+		// A snapshot that was written after the history, for example by hand, may no longer match its hash.
+		if(record == null || record.getHash() == null || getTimeStamp(project, version) > history.getTimeStamp())
+			return null;
+		
+		return record.getHash();
+	}
+	
+	/** Get when the contents of a version were last written. Binary snapshots are left out, they are converted from 
+	 * the JSON snapshot afterwards and hold the same contents.
+	 * 
+	 * @param project The project the version belongs to.
+	 * @param version The version.
+	 * @return The latest local time stamp of the JSON snapshot and delta of the version.
+	 */
+	public static long getTimeStamp(IProject project, String version) {
+		return Math.max(getJsonFile(project, version).getLocalTimeStamp(), getDeltaFile(project, version).getLocalTimeStamp());
+	}
+	
+	/** Check if a version is stored as delta.
+	 * 
+	 * @param project The project the version belongs to.
+	 * @param history The version history of the project.
+	 * @param version The version.
+	 * @return True if the version has to be reconstructed from its base, false otherwise.
+	 */
+	private static boolean isDelta(IProject project, VersionHistory history, String version) {
+		Record record = history.get(version);
+		return record != null && record.isDelta() && getDeltaFile(project, version).exists();
+	}
+	
+	/** Check if a version has a binary snapshot that is up-to-date with its JSON snapshot.
+	 * 
+	 * @param project The project the version belongs to.
+	 * @param version The version.
+	 * @return True if the binary snapshot can be used, false otherwise.
+	 */
+	public static boolean hasBinary(IProject project, String version) {
+		IFile binary = getBinaryFile(project, version);
+		
+		if(!binary.exists())
+			return false;
+		
+		IFile json = getJsonFile(project, version);
+		return !json.exists() || json.getLocalTimeStamp() <= binary.getLocalTimeStamp();
+	}
+	
+	/** Open the binary snapshot of a version for lookups by id, so its entries don't have to be turned into JsonObjects.
+	 * 
+	 * @param project The project the version belongs to.
+	 * @param version The version.
+	 * @return The snapshot, or null if the version is not stored in full with an up-to-date binary snapshot. Must be 
+	 * closed by the caller.
+	 * @throws IOException If reading fails.
+	 * @throws CoreException If a file can't be opened.
+	 */
+	@Nullable
+	public static BinarySnapshot openBinary(IProject project, String version) throws IOException, CoreException {
+		if(isDelta(project, VersionHistory.load(project), version) || !hasBinary(project, version))
+			return null;
+		
+		return BinarySnapshot.open(getBinaryFile(project, version));
+	}
+	
+	/** Open a version for reading its entries one at a time.
+	 * 
+	 * @param project The project the version belongs to.
+	 * @param version The version.
+	 * @return The entries. Must be closed by the caller.
+	 * @throws IOException If reading fails.
+	 * @throws CoreException If a file can't be opened.
+	 */
+	public static SnapshotSource openEntries(IProject project, String version) throws IOException, CoreException {
+		return openEntries(project, VersionHistory.load(project), version, 0);
+	}
+	
+	/** Open a version for reading its entries one at a time, reconstructing it if it is stored as delta.
+	 * 
+	 * @param project The project the version belongs to.
+	 * @param history The version history of the project.
+	 * @param version The version.
+	 * @param depth The amount of deltas already being applied on top of this version.
+	 * @return The entries. Must be closed by the caller.
+	 * @throws IOException If reading fails, or if the delta chain loops.
+	 * @throws CoreException If a file can't be opened.
+	 */
+	private static SnapshotSource openEntries(IProject project, VersionHistory history, String version, int depth) 
+			throws IOException, CoreException {
+		if(!isDelta(project, history, version)) {
+			if(hasBinary(project, version))
+				return BinarySnapshot.open(getBinaryFile(project, version)).entries();
+			
+			// Parsed once and kept, since the same versions tend to be diffed over and over.
+			return ParsedDataCache.getInstance().getEntries(getJsonFile(project, version));
+		}
+		
+		if(depth > history.getRecords().size())
+			throw new IOException(String.format("Delta chain of version '%s' does not end in a full snapshot", version));
+		
+		SnapshotSource base = openSorted(project, history, history.get(version).getBase(), depth + 1);
+		
+		try {
+			return new DeltaSource(base, new SnapshotReader(getDeltaFile(project, version).getContents()));
+		} catch (CoreException | RuntimeException e) {
+			base.close();
+			throw e;
+		}
+	}
+	
+	/** Open a version for reading its entries in id order. Snapshots stored before entries were written in id order 
+	 * are sorted first.
+	 * 
+	 * @param project The project the version belongs to.
+	 * @param history The version history of the project.
+	 * @param version The version.
+	 * @param depth The amount of deltas already being applied on top of this version.
+	 * @return The entries in id order. Must be closed by the caller.
+	 * @throws IOException If reading fails.
+	 * @throws CoreException If a file can't be opened.
+	 */
+	private static SnapshotSource openSorted(IProject project, VersionHistory history, String version, int depth) 
+			throws IOException, CoreException {
+		SnapshotSource source = openEntries(project, history, version, depth);
+		
+		if(source.isSortedById())
+			return source;
+		
+		try {
+			return IdSorter.sort(source, Settings.getDiffMemoryBudget());
+		} finally {
+			source.close();
+		}
+	}
+	
+	/** Store a new snapshot of a version. If delta storage is enabled, the version is stored as delta against the 
+	 * latest version in the history, unless that would make the delta chain reach the keyframe interval. Otherwise
+	 * the version is stored in full. Versions stored as delta against the previous contents of this version are stored
+	 * in full first, so they can still be reconstructed.
+	 * 
+	 * @param project The project the version belongs to.
+	 * @param version The version.
+	 * @param snapshot The file holding the new snapshot, in id order.
+	 * @throws IOException If reading or writing fails.
+	 * @throws CoreException If a file can't be opened or written.
+	 */
+	public static void store(IProject project, String version, File snapshot) throws IOException, CoreException {
+		VersionHistory history = VersionHistory.load(project);
+		
+		for(Record dependent : history.getDependents(version))
+			materialize(project, history, dependent.getVersion());
+		
+		Record previous = history.getLatest(version);
+		boolean delta = Settings.isDeltaStorage() && previous != null && exists(project, previous.getVersion()) 
+				&& history.getDepth(previous.getVersion()) + 1 < Settings.getKeyframeInterval();
+		
+		SnapshotHash hash = SnapshotHash.compute(new SnapshotReader(new FileInputStream(snapshot)));
+		
+		if(delta) {
+			try(SnapshotSource base = openSorted(project, history, previous.getVersion(), 0)){
+				writeDelta(getDeltaFile(project, version), base, new SnapshotReader(new FileInputStream(snapshot)));
+			}
+			
+			// The delta replaces the only full copy of the version, so it has to give back exactly what was stored.
+			history.put(version, VersionHistory.DELTA, previous.getVersion(), true);
+			delta = SnapshotHash.compute(openEntries(project, history, version, 0)).matches(hash);
+			
+			if(delta) {
+				System.out.println(String.format("Stored version '%s' as delta against '%s'", version, previous.getVersion()));
+				delete(getJsonFile(project, version));
+			}
+			else
+				System.out.println(String.format("Delta of version '%s' does not match its snapshot, storing it in full", 
+						version));
+		}
+		
+		if(!delta) {
+			try(InputStream is = new FileInputStream(snapshot)){
+				write(getJsonFile(project, version), is);
+			}
+			
+			delete(getDeltaFile(project, version));
+		}
+		
+		// Any binary snapshot holds the previous contents of this version.
+		delete(getBinaryFile(project, version));
+		history.put(version, delta ? VersionHistory.DELTA : VersionHistory.FULL, delta ? previous.getVersion() : null, true);
+		history.setHash(version, hash);
+		history.save();
+	}
+	
+	/** Rewrite the stored versions so that every keyframe interval-th version in the history is stored in full and all 
+	 * versions in between are stored as delta against their predecessor. This rebases long delta chains, and turns 
+	 * versions that were stored in full into deltas. Every delta is rebuilt and checked against the version it replaces, 
+	 * versions whose delta doesn't give back exactly the same entries are kept in full. Versions that are missing are 
+	 * dropped from the history. Versions stored before the history existed are left as they are.
+	 * 
+	 * @param project The project.
+	 * @return The amount of versions stored as delta afterwards.
+	 * @throws IOException If reading or writing fails.
+	 * @throws CoreException If a file can't be opened or written.
+	 */
+	public static int compact(IProject project) throws IOException, CoreException {
+		VersionHistory history = VersionHistory.load(project);
+		List<Record> records = new ArrayList<>();
+		
+		for(Record record : history.getRecords())
+			if(exists(project, record.getVersion()))
+				records.add(record);
+		
+		// Reconstruct everything before rewriting anything, since rewriting changes what deltas are based on.
+		HashMap<String, File> snapshots = new HashMap<>();
+		int interval = Settings.getKeyframeInterval();
+		int deltas = 0;
+		
+		try {
+			for(Record record : records) {
+				File file = File.createTempFile("patchgen-compact", ".json");
+				snapshots.put(record.getVersion(), file);
+				
+				try(SnapshotSource source = openSorted(project, history, record.getVersion(), 0);
+						SnapshotWriter writer = new SnapshotWriter(new FileOutputStream(file), true)){
+					while(source.hasNext())
+						writer.write(source.next());
+				}
+			}
+			
+			for(int i = 0; i < records.size(); i++) {
+				String version = records.get(i).getVersion();
+				
+				if(i % interval == 0) {
+					// Full snapshots that stay full are left alone, so their binary snapshots remain valid.
+					if(records.get(i).isDelta()) {
+						try(InputStream is = new FileInputStream(snapshots.get(version))){
+							write(getJsonFile(project, version), is);
+						}
+						
+						delete(getDeltaFile(project, version));
+					}
+					
+					history.put(version, VersionHistory.FULL, null, false);
+				}
+				else {
+					String base = records.get(i - 1).getVersion();
+					writeDelta(getDeltaFile(project, version), new SnapshotReader(new FileInputStream(snapshots.get(base))), 
+							new SnapshotReader(new FileInputStream(snapshots.get(version))));
+					history.put(version, VersionHistory.DELTA, base, false);
+					
+					// The delta replaces the only full copy of the version, so it has to give back exactly what was stored.
+					// The base has already been rewritten, so this rebuilds the version the way it will be opened later.
+					SnapshotHash hash = SnapshotHash.compute(new SnapshotReader(new FileInputStream(snapshots.get(version))));
+					
+					if(SnapshotHash.compute(openEntries(project, history, version, 0)).matches(hash)) {
+						delete(getJsonFile(project, version));
+						delete(getBinaryFile(project, version));
+						deltas++;
+					}
+					else {
+						System.out.println(String.format("Delta of version '%s' does not match its snapshot, keeping it in "
+								+ "full", version));
+						
+						if(!getJsonFile(project, version).exists()) {
+							try(InputStream is = new FileInputStream(snapshots.get(version))){
+								write(getJsonFile(project, version), is);
+							}
+						}
+						
+						delete(getDeltaFile(project, version));
+						history.put(version, VersionHistory.FULL, null, false);
+					}
+				}
+			}
+			
+			for(Record record : history.getRecords().toArray(new Record[0]))
+				if(!snapshots.containsKey(record.getVersion()))
+					history.remove(record.getVersion());
+			
+			history.save();
+		} finally {
+			for(File file : snapshots.values())
+				file.delete();
+		}
+		
+		return deltas;
+	}
+	
+	/** Convert the JSON snapshot of a version to a binary snapshot. Versions holding entries that a binary snapshot can't
+	 * store exactly keep only their JSON snapshot.
+	 * 
+	 * @param project The project the version belongs to.
+	 * @param version The version.
+	 * @return The binary snapshot file, or null if the version has no JSON snapshot or can't be converted.
+	 * @throws IOException If reading or writing fails.
+	 * @throws CoreException If a file can't be opened or written.
+	 */
+	@Nullable
+	public static IFile convert(IProject project, String version) throws IOException, CoreException {
+		IFile json = getJsonFile(project, version);
+		
+		if(!json.exists())
+			return null;
+		
+		IFile binary = getBinaryFile(project, version);
+		
+		if(SnapshotConverter.convert(json, binary) < 0) {
+			System.out.println(String.format("Version '%s' can't be stored as binary snapshot without losing data", version));
+			delete(binary);
+			return null;
+		}
+		
+		return binary;
+	}
+	
+	/** Store a version that is stored as delta in full instead.
+	 * 
+	 * @param project The project the version belongs to.
+	 * @param history The version history of the project. Will be updated and saved.
+	 * @param version The version.
+	 * @throws IOException If reading or writing fails.
+	 * @throws CoreException If a file can't be opened or written.
+	 */
+	private static void materialize(IProject project, VersionHistory history, String version) throws IOException, CoreException {
+		if(isDelta(project, history, version)) {
+			File temp = File.createTempFile("patchgen-materialize", ".json");
+			
+			try {
+				try(SnapshotSource source = openEntries(project, history, version, 0);
+						SnapshotWriter writer = new SnapshotWriter(new FileOutputStream(temp), true)){
+					while(source.hasNext())
+						writer.write(source.next());
+				}
+				
+				try(InputStream is = new FileInputStream(temp)){
+					write(getJsonFile(project, version), is);
+				}
+			} finally {
+				temp.delete();
+			}
+			
+			delete(getDeltaFile(project, version));
+			System.out.println(String.format("Stored version '%s' in full", version));
+		}
+		
+		history.put(version, VersionHistory.FULL, null, false);
+		history.save();
+	}
+	
+	/** Write the delta between two versions. Changed and added entries are stored in full, removed entries as marker.
+	 * Entries are compared exactly, see {@link DiffEngine#isSame}, so a number that only changed in a way a double can't
+	 * hold is still stored.
+	 * 
+	 * @param ifile The file to write the delta to.
+	 * @param base The entries of the base version, in id order. Will be closed.
+	 * @param target The entries of the version to store, in id order. Will be closed.
+	 * @throws IOException If reading or writing fails.
+	 * @throws CoreException If the file can't be written.
+	 */
+	private static void writeDelta(IFile ifile, SnapshotSource base, SnapshotSource target) throws IOException, CoreException {
+		ChangeSet changes = DiffEngine.diff(base, target, Settings.getDiffMemoryBudget());
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		
+		try(SnapshotWriter writer = new SnapshotWriter(bytes, true)){
+			for(Change change : changes.getChanges())
+				writer.write(change.isRemoved() ? DeltaSource.removal(change.getId()) : change.getNewEntry());
+		}
+		
+		write(ifile, new ByteArrayInputStream(bytes.toByteArray()));
+	}
+	
+	/** Write the contents of a file, creating it if needed.
+	 * 
+	 * @param ifile The file.
+	 * @param is The new contents.
+	 * @throws CoreException If the file can't be written.
+	 */
+	private static void write(IFile ifile, InputStream is) throws CoreException {
+		if(ifile.exists())
+			ifile.setContents(is, false, true, null);
+		else
+			ifile.create(is, false, null);
+	}
+	
+	/** Delete a file if it exists.
+	 * 
+	 * @param ifile The file.
+	 * @throws CoreException If the file can't be deleted.
+	 */
+	private static void delete(IFile ifile) throws CoreException {
+		if(ifile.exists())
+			ifile.delete(false, null);
+	}
+}
@@ -0,0 +1,85 @@
+package slimeattack07.patchgen.snapshots;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+import slimeattack07.patchgen.JsonAdapters;
+import slimeattack07.patchgen.PatchNoteData;
+
+/** Streaming writer for version snapshots. Entries are written one at a time as they are discovered, so memory use
+ * does not depend on the size of the snapshot. Produces the same layout as always: {"data": [entry, entry, ...]}.
+ * Snapshots written in id order are marked as such in a "meta" object in front of the data.
+ * 
+ */
+public class SnapshotWriter implements Closeable {
+	private static final TypeAdapter<JsonElement> ELEMENT_ADAPTER = JsonAdapters.ELEMENT;
+	public static final String SORTED = "sorted_by_id";
+	
+	private final JsonWriter writer;
+	private int count = 0;
+	
+	/** Constructor. Writes the start of the snapshot immediately.
+	 * 
+	 * @param os The stream to write the snapshot to. Will be closed when this writer is closed.
+	 * @throws IOException If writing fails.
+	 */
+	public SnapshotWriter(OutputStream os) throws IOException {
+		this(os, false);
+	}
+	
+	/** Constructor. Writes the start of the snapshot immediately.
+	 * 
+	 * @param os The stream to write the snapshot to. Will be closed when this writer is closed.
+	 * @param sorted Whether the caller guarantees entries are written in id order.
+	 * @throws IOException If writing fails.
+	 */
+	public SnapshotWriter(OutputStream os, boolean sorted) throws IOException {
+		writer = new JsonWriter(new OutputStreamWriter(os));
+		writer.beginObject();
+		
+		if(sorted) {
+			writer.name(PatchNoteData.META);
+			writer.beginObject();
+			writer.name(SORTED).value(true);
+			writer.endObject();
+		}
+		
+		writer.name(PatchNoteData.DATA);
+		writer.beginArray();
+	}
+	
+	/** Write a single entry.
+	 * 
+	 * @param entry The entry to write.
+	 * @throws IOException If writing fails.
+	 */
+	public void write(JsonObject entry) throws IOException {
+		ELEMENT_ADAPTER.write(writer, entry);
+		count++;
+	}
+	
+	/** Get the amount of entries written so far.
+	 * 
+	 * @return The amount of entries.
+	 */
+	public int getCount() {
+		return count;
+	}
+	
+	/** Finish the snapshot and close the underlying stream.
+	 * 
+	 */
+	@Override
+	public void close() throws IOException {
+		writer.endArray();
+		writer.endObject();
+		writer.close();
+	}
+}
@@ -0,0 +1,299 @@
+package slimeattack07.patchgen.snapshots;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import slimeattack07.patchgen.Nullable;
+import slimeattack07.patchgen.Utils;
+
+/** The stored versions of a project in the order they were generated, along with how each of them is stored.
+ * Kept in src/patchgen/data/versions.json. Versions stored before the history existed are simply not listed, and are
+ * treated as full snapshots.
+ * 
+ */
+public class VersionHistory {
+	public static final String FILE_NAME = "versions";
+	public static final String VERSIONS = "versions";
+	public static final String VERSION = "version";
+	public static final String STORAGE = "storage";
+	public static final String BASE = "base";
+	public static final String HASH = "hash";
+	
+	/** Version stored as complete snapshot. */
+	public static final String FULL = "full";
+	/** Version stored as the changes against its base version. */
+	public static final String DELTA = "delta";
+	
+	private final IFile ifile;
+	private final List<Record> records;
+	
+	/** Constructor.
+	 * 
+	 * @param ifile The file the history is stored in.
+	 * @param records The versions, oldest first.
+	 */
+	private VersionHistory(IFile ifile, List<Record> records) {
+		this.ifile = ifile;
+		this.records = records;
+	}
+	
+	/** Load the history of a project.
+	 * 
+	 * @param project The project.
+	 * @return The history, which is empty if none has been stored yet.
+	 * @throws IOException If reading fails.
+	 * @throws CoreException If the file can't be opened.
+	 */
+	public static VersionHistory load(IProject project) throws IOException, CoreException {
+		IFile ifile = Utils.requestFile(project, "data", FILE_NAME, "json");
+		List<Record> records = new ArrayList<>();
+		
+		if(ifile.exists()) {
+			try(Reader reader = new InputStreamReader(ifile.getContents())){
+				JsonElement root = JsonParser.parseReader(reader);
+				
+				if(root.isJsonObject() && root.getAsJsonObject().has(VERSIONS)) {
+					for(JsonElement element : root.getAsJsonObject().getAsJsonArray(VERSIONS)) {
+						JsonObject jo = element.getAsJsonObject();
+						String base = jo.has(BASE) ? jo.get(BASE).getAsString() : null;
+						SnapshotHash hash = jo.has(HASH) ? SnapshotHash.fromJson(jo.getAsJsonObject(HASH)) : null;
+						records.add(new Record(jo.get(VERSION).getAsString(), jo.get(STORAGE).getAsString(), base, hash));
+					}
+				}
+			}
+		}
+		
+		return new VersionHistory(ifile, records);
+	}
+	
+	/** Write the history to file.
+	 * 
+	 * @throws CoreException If the file can't be written.
+	 */
+	public void save() throws CoreException {
+		JsonArray versions = new JsonArray();
+		
+		for(Record record : records) {
+			JsonObject jo = new JsonObject();
+			jo.addProperty(VERSION, record.version);
+			jo.addProperty(STORAGE, record.storage);
+			
+			if(record.base != null)
+				jo.addProperty(BASE, record.base);
+			
+			if(record.hash != null)
+				jo.add(HASH, record.hash.toJson());
+			
+			versions.add(jo);
+		}
+		
+		JsonObject root = new JsonObject();
+		root.add(VERSIONS, versions);
+		InputStream is = new ByteArrayInputStream(root.toString().getBytes());
+		
+		if(ifile.exists())
+			ifile.setContents(is, false, true, null);
+		else
+			ifile.create(is, false, null);
+	}
+	
+	/** Get when the history was last written.
+	 * 
+	 * @return The local time stamp of the history file.
+	 */
+	public long getTimeStamp() {
+		return ifile.getLocalTimeStamp();
+	}
+	
+	/** Get the record of a version.
+	 * 
+	 * @param version The version.
+	 * @return The record, or null if the version is not in the history.
+	 */
+	@Nullable
+	public Record get(String version) {
+		for(Record record : records)
+			if(record.version.equals(version))
+				return record;
+		
+		return null;
+	}
+	
+	/** Get all versions in the history.
+	 * 
+	 * @return The records, oldest first.
+	 */
+	public List<Record> getRecords() {
+		return Collections.unmodifiableList(records);
+	}
+	
+	/** Get the latest version in the history, ignoring a given version.
+	 * 
+	 * @param ignored The version to ignore, usually the one that is being stored.
+	 * @return The latest version, or null if there is none.
+	 */
+	@Nullable
+	public Record getLatest(String ignored) {
+		for(int i = records.size() - 1; i >= 0; i--)
+			if(!records.get(i).version.equals(ignored))
+				return records.get(i);
+		
+		return null;
+	}
+	
+	/** Get the amount of deltas that need to be applied to reconstruct a version.
+	 * 
+	 * @param version The version.
+	 * @return The length of the delta chain, 0 for full snapshots and versions not in the history.
+	 */
+	public int getDepth(String version) {
+		int depth = 0;
+		Record record = get(version);
+		
+		// Depth is bounded by the history size, which also guards against a hand-edited cyclic history.
+		while(record != null && record.isDelta() && depth <= records.size()) {
+			depth++;
+			record = get(record.base);
+		}
+		
+		return depth;
+	}
+	
+	/** Get the versions stored as delta against a given version.
+	 * 
+	 * @param version The base version.
+	 * @return The records of the dependent versions.
+	 */
+	public List<Record> getDependents(String version) {
+		List<Record> dependents = new ArrayList<>();
+		
+		for(Record record : records)
+			if(record.isDelta() && version.equals(record.base))
+				dependents.add(record);
+		
+		return dependents;
+	}
+	
+	/** Add a version as the latest version, or update how it is stored if it is already in the history. The hash of
+	 * a version that is already in the history is kept, as its content doesn't change by storing it differently.
+	 * 
+	 * @param version The version.
+	 * @param storage How the version is stored, {@link #FULL} or {@link #DELTA}.
+	 * @param base The base version for deltas, null otherwise.
+	 * @param latest Whether the version should become the latest version. If false, its position is kept.
+	 */
+	public void put(String version, String storage, @Nullable String base, boolean latest) {
+		Record existing = get(version);
+		Record record = new Record(version, storage, base, existing == null ? null : existing.hash);
+		
+		for(int i = 0; i < records.size(); i++) {
+			if(records.get(i).version.equals(version)) {
+				if(!latest) {
+					records.set(i, record);
+					return;
+				}
+				
+				records.remove(i);
+				break;
+			}
+		}
+		
+		records.add(record);
+	}
+	
+	/** Set the content hash of a version in the history.
+	 * 
+	 * @param version The version. Does nothing if it is not in the history.
+	 * @param hash The hash of its content.
+	 */
+	public void setHash(String version, SnapshotHash hash) {
+		for(int i = 0; i < records.size(); i++) {
+			Record record = records.get(i);
+			
+			if(record.version.equals(version))
+				records.set(i, new Record(record.version, record.storage, record.base, hash));
+		}
+	}
+	
+	/** Remove a version from the history.
+	 * 
+	 * @param version The version.
+	 * @return True if the version was in the history, false otherwise.
+	 */
+	public boolean remove(String version) {
+		return records.removeIf(record -> record.version.equals(version));
+	}
+	
+	/** How a single version is stored.
+	 * 
+	 */
+	public static class Record {
+		private final String version;
+		private final String storage;
+		private final String base;
+		private final SnapshotHash hash;
+		
+		/** Constructor.
+		 * 
+		 * @param version The version.
+		 * @param storage How the version is stored.
+		 * @param base The base version for deltas, null otherwise.
+		 * @param hash The hash of the content of the version, or null if it is unknown.
+		 */
+		public Record(String version, String storage, @Nullable String base, @Nullable SnapshotHash hash) {
+			this.version = version;
+			this.storage = storage;
+			this.base = base;
+			this.hash = hash;
+		}
+		
+		/** Get the version.
+		 * 
+		 * @return The version.
+		 */
+		public String getVersion() {
+			return version;
+		}
+		
+		/** Get the base version.
+		 * 
+		 * @return The base version for deltas, null otherwise.
+		 */
+		@Nullable
+		public String getBase() {
+			return base;
+		}
+		
+		/** Get the hash of the content of the version.
+		 * 
+		 * @return The hash, or null if the version was stored before hashes were kept.
+		 */
+		@Nullable
+		public SnapshotHash getHash() {
+			return hash;
+		}
+		
+		/** Whether the version is stored as delta.
+		 * 
+		 * @return True for deltas, false for full snapshots.
+		 */
+		public boolean isDelta() {
+			return DELTA.equals(storage) && base != null;
+		}
+	}
+}